@@ -0,0 +1,64 @@
+package ecshospital;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <b>AdministratorBenchmark</b> measures a whole simulation run by a {@link HospitalAdministrator}, see {@link HospitalWorkload}.
+ * <p>aDayPasses: one day with patients arriving at the load, in days per second, see {@link HospitalAdministrator#aDayPasses(HospitalAdministrator)}.
+ * The matching parameter is "firstFit" or "optimal", see {@link HospitalAdministrator#setOptimalAssignment(boolean)}.
+ * @author Man-Leong Chan
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AdministratorBenchmark extends HospitalWorkload {
+
+	@Param({"firstFit","optimal"})
+	public String matching;
+
+	private HospitalAdministrator administrator;
+
+	/**
+	 * Read the configuration of the parameters into a new administrator for each trial.
+	 */
+	@Setup(Level.Trial)
+	public void setUp(){
+		administrator = new HospitalAdministrator();
+		administrator.setEventLog(EventLog.NONE);
+		administrator.setOptimalAssignment(matching.equals("optimal"));
+		administrator.getRecoveryTimeSampler().setSeed(1);
+		administrator.readConfiguration(new ConfigurationScanner(configuration(0, true)));
+	}
+
+	/**
+	 * Release the patient source.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown(){
+		administrator.closePatientSource();
+	}
+
+	/**
+	 * Let a day pass.
+	 * @return	The number of busy doctors.
+	 * @throws Exception	If the day fails.
+	 */
+	@Benchmark
+	public int aDayPasses() throws Exception{
+		administrator.aDayPasses(administrator);
+		return administrator.getNumOfBusyDoctors();
+	}
+}
@@ -0,0 +1,72 @@
+package ecshospital;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <b>ConfigurationBenchmark</b> measures reading a configuration file with the hospital and doctors of the parameters and ten patients per bed,
+ * taking every patient, see {@link HospitalAdministrator#readConfigurationFile(File)} and {@link HospitalWorkload}.
+ * @author Man-Leong Chan
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ConfigurationBenchmark extends HospitalWorkload {
+
+	private File file;
+
+	/**
+	 * Write the configuration file for each trial.
+	 * @throws IOException	If the file cannot be written.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws IOException{
+		file = File.createTempFile("benchmark", ".txt");
+		file.deleteOnExit();
+		FileOutputStream out = new FileOutputStream(file);
+		try{
+			out.write(configuration(beds * 10, false));
+		}finally{
+			out.close();
+		}
+	}
+
+	/**
+	 * Delete the configuration file.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown(){
+		file.delete();
+	}
+
+	/**
+	 * Read the configuration file and take every patient.
+	 * @return	The number of patients.
+	 */
+	@Benchmark
+	public long readConfigurationFile(){
+		HospitalAdministrator administrator = new HospitalAdministrator();
+		administrator.setEventLog(EventLog.NONE);
+		administrator.readConfigurationFile(file);
+		long numOfPatients = 0;
+		PatientSource source = administrator.getPatientSource();
+		while(source != null && source.nextPatient(0) != null)
+			numOfPatients++;
+		administrator.closePatientSource();
+		return numOfPatients;
+	}
+}
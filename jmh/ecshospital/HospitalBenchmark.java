@@ -0,0 +1,71 @@
+package ecshospital;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <b>HospitalBenchmark</b> measures the operations of a single {@link Hospital} filled to the load, see {@link HospitalWorkload}.
+ * <p>admitPatient: admit a patient and discharge it again, see {@link Hospital#admitPatient(Patient)}.
+ * <p>size: count the patients, see {@link Hospital#size()}.
+ * <p>aDayPasses: one day of patients who never recover, in days per second, see {@link Hospital#aDayPasses()}.
+ * @author Man-Leong Chan
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class HospitalBenchmark extends HospitalWorkload {
+
+	private Hospital hospital;
+	private Patient patient;
+
+	/**
+	 * Fill a new hospital for each trial.
+	 * @throws Exception	If a patient cannot be made.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws Exception{
+		hospital = filledHospital();
+		patient = new Patient('F',40,2,0,Integer.MAX_VALUE / 2);
+	}
+
+	/**
+	 * Admit a patient and discharge it, so the hospital stays at the load.
+	 * @return	The bed.
+	 * @throws Exception	If the hospital is full.
+	 */
+	@Benchmark
+	public int admitPatient() throws Exception{
+		int bed = hospital.admitPatient(patient);
+		hospital.dischargePatient(bed);
+		return bed;
+	}
+
+	/**
+	 * Count the patients.
+	 * @return	The count.
+	 */
+	@Benchmark
+	public int size(){
+		return hospital.size();
+	}
+
+	/**
+	 * Let a day pass.
+	 * @return	The day.
+	 */
+	@Benchmark
+	public int aDayPasses(){
+		hospital.aDayPasses();
+		return hospital.getDay();
+	}
+}
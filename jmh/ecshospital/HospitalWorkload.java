@@ -0,0 +1,78 @@
+package ecshospital;
+import java.nio.charset.StandardCharsets;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * <b>HospitalWorkload</b> holds the parameters shared by the JMH benchmarks of the simulation core: the hospital, the doctor mix and the load.
+ * <p>
+ * Each is a JMH {@link Param}, so a run can sweep them from the command line, e.g. "-p beds=1000,20000 -p doctorMix=40/20/10/10".
+ * The doctor mix is the number of doctors, surgeons, limb surgeons and organ surgeons, separated by "/" as JMH splits values at commas.
+ * The load is the share of beds filled for the hospital benchmarks, and for the administrator a fifth of that many patients arrive per day,
+ * a typical stay being about five days.
+ * @author Man-Leong Chan
+ */
+@State(Scope.Benchmark)
+public abstract class HospitalWorkload {
+
+	private static final String[] DOCTOR_CLASSES = {"doctor","surgeon","limbSurgeon","organSurgeon"};
+
+	@Param({"1000"})
+	public int beds;
+
+	@Param({"4"})
+	public int theatres;
+
+	@Param({"40/20/10/10"})
+	public String doctorMix;
+
+	@Param({"0.8"})
+	public double load;
+
+	/**
+	 * Make a quiet hospital with the load share of its beds taken by patients who never recover.
+	 * @return	The hospital.
+	 * @throws Exception	If a patient cannot be made.
+	 */
+	Hospital filledHospital() throws Exception{
+		Hospital hospital = new Hospital(beds, theatres);
+		hospital.setEventLog(EventLog.NONE);
+		int numOfPatients = (int)Math.min(beds - 1, Math.round(beds * load));
+		for(int i=0;i<numOfPatients;i++)
+			hospital.admitPatient(new Patient(i % 2 == 0 ? 'M' : 'F', i % 90, 2, 0, Integer.MAX_VALUE / 2));
+		return hospital;
+	}
+
+	/**
+	 * Write a configuration with the hospital and doctors of the parameters.
+	 * @param numOfPatients		The number of "patient:" lines.
+	 * @param arrivals			Whether patients of illness 1 to 8 arrive at the load.
+	 * @return	The configuration, in the format of "myHospital.txt".
+	 */
+	byte[] configuration(int numOfPatients, boolean arrivals){
+		String[] counts = doctorMix.split("/");
+		if(counts.length != DOCTOR_CLASSES.length)
+			throw new IllegalArgumentException("Four doctor counts expected: "+doctorMix+". ERROR");
+
+		StringBuilder configuration = new StringBuilder();
+		configuration.append("hospital:").append(beds).append(',').append(theatres).append('\n');
+		for(int kind=0;kind<DOCTOR_CLASSES.length;kind++){
+			int count = Integer.parseInt(counts[kind].trim());
+			for(int i=0;i<count;i++)
+				configuration.append(DOCTOR_CLASSES[kind]).append(':').append(i % 2 == 0 ? 'M' : 'F').append(',').append(30 + i % 30).append('\n');
+		}
+		for(int i=0;i<numOfPatients;i++){
+			int illness = i % 9;
+			configuration.append("patient:").append(i % 2 == 0 ? 'M' : 'F').append(',').append(i % 90).append(',').append(illness)
+				.append(',').append(illness == 0 ? 3 : -1).append('\n');
+		}
+		if(arrivals){
+			double perDay = beds * load / 5;
+			for(int illness=1;illness<=8;illness++)
+				configuration.append("arrival:").append(illness).append(',').append(perDay / 8).append('\n');
+		}
+		return configuration.toString().getBytes(StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,65 @@
+package ecshospital;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <b>RecoveryTimeBenchmark</b> measures drawing recovery times for illness 1 to 8 in turn.
+ * <p>randomizeRecoveryTime: from the default illnesses, see {@link Health#randomizeRecoveryTime(int)}.
+ * <p>nextRecoveryTime: from a simulation's own sampler, see {@link RecoveryTimeSampler#nextRecoveryTime(int)}.
+ * @author Man-Leong Chan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RecoveryTimeBenchmark {
+
+	private Patient patient;
+	private RecoveryTimeSampler sampler;
+	private int illness;
+
+	/**
+	 * Make the patient and a seeded sampler for each trial.
+	 * @throws Exception	If the patient cannot be made.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws Exception{
+		patient = new Patient('M',40);
+		sampler = new HospitalAdministrator().getRecoveryTimeSampler();
+		sampler.setSeed(1);
+	}
+
+	/**
+	 * Draw a recovery time from the default illnesses.
+	 * @return	The recovery time.
+	 * @throws Exception	If the illness does not exist.
+	 */
+	@Benchmark
+	public int randomizeRecoveryTime() throws Exception{
+		illness = (illness & 7) + 1;
+		return patient.randomizeRecoveryTime(illness);
+	}
+
+	/**
+	 * Draw a recovery time from the sampler.
+	 * @return	The recovery time.
+	 */
+	@Benchmark
+	public int nextRecoveryTime(){
+		illness = (illness & 7) + 1;
+		return sampler.nextRecoveryTime(illness);
+	}
+}
@@ -0,0 +1,128 @@
+package ecshospital;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <b>AsyncFileEventSink</b> hands events to a background thread which formats them and writes them to a file through a large buffer.
+ * <p>The simulation only pays for putting the event on a queue. When the queue is full the simulation waits for the writer, so no event is lost.
+ * @author Man-Leong Chan
+ */
+public class AsyncFileEventSink implements EventSink, Runnable {
+	
+	/*
+	 * One queued event. The end of the stream is marked by an event with a null level.
+	 */
+	private static class Event{
+		private final EventLog.Level level;
+		private final String format;
+		private final Object[] args;
+		
+		Event(EventLog.Level level, String format, Object[] args){
+			this.level = level;
+			this.format = format;
+			this.args = args;
+		}
+	}
+	
+	private static final int QUEUE_CAPACITY = 8192;
+	private static final int BUFFER_SIZE = 1 << 16;
+	
+	private BlockingQueue<Event> events;
+	private BufferedWriter writer;
+	private Thread writerThread;
+	
+	/**
+	 * Open the log file and start the writer thread.
+	 * @param logFile		The file to write to, it is overwritten.
+	 * @throws IOException	If the file cannot be opened.
+	 */
+	AsyncFileEventSink(File logFile) throws IOException{
+		events = new ArrayBlockingQueue<Event>(QUEUE_CAPACITY);
+		writer = new BufferedWriter(new FileWriter(logFile), BUFFER_SIZE);
+		writerThread = new Thread(this, "EventLog writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+	
+	/**
+	 * Queue one event for the writer thread.
+	 * @param level		The level of the event.
+	 * @param format	The message with a "{}" for each argument.
+	 * @param args		The arguments of the message.
+	 */
+	public void write(EventLog.Level level, String format, Object[] args){
+		put(new Event(level, format, args));
+	}
+	
+	/**
+	 * Wait for the writer thread to write out every queued event, then close the file.
+	 */
+	public void close(){
+		if(!writerThread.isAlive())
+			return;
+		put(new Event(null, null, null));
+		try{
+			writerThread.join();
+		}catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * The writer thread. It drains the queue in batches and only flushes once the queue runs dry.
+	 */
+	public void run(){
+		ArrayList<Event> batch = new ArrayList<Event>(QUEUE_CAPACITY);
+		try{
+			boolean endOfStream = false;
+			while(!endOfStream){
+				batch.add(events.take());
+				events.drainTo(batch);
+				for(int i=0;i<batch.size();i++){
+					Event event = batch.get(i);
+					if(event.level == null){
+						endOfStream = true;
+						break;
+					}
+					writer.write(event.level.name());
+					writer.write(' ');
+					writer.write(EventLog.format(event.format, event.args));
+					writer.newLine();
+				}
+				batch.clear();
+				if(events.isEmpty())
+					writer.flush();
+			}
+		}catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+		}catch (IOException e){
+			System.err.println(e);
+		}finally{
+			try{
+				writer.close();
+			}catch (IOException e){
+				System.err.println(e);
+			}
+		}
+	}
+	
+	/*
+	 * Wait for room on the queue, giving up if the writer thread has died.
+	 */
+	private void put(Event event){
+		try{
+			while(!events.offer(event, 100, TimeUnit.MILLISECONDS)){
+				if(!writerThread.isAlive())
+					return;
+			}
+		}catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+	}
+}
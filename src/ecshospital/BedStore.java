@@ -0,0 +1,154 @@
+package ecshospital;
+import java.util.BitSet;
+
+/**
+ * <b>BedStore</b> keeps the changing state of the patients in a {@link Hospital}'s beds as parallel primitive arrays, one slot per bed.
+ * <p>While a patient is in a bed, its {@link Patient} object is a view: the health state, illness, recovery time, age and takenCareOf are read from and written to its slot here.
+ * This lets the daily recovery tick run as one loop over primitive arrays, see {@link #recoverOneDay(int, int, int[], int)}.
+ * <p>An empty bed has health state -1.
+ * @author Man-Leong Chan
+ */
+public class BedStore {
+	
+	private int[] healthState;
+	private int[] illness;
+	private int[] recoveryTime;
+	private int[] age;
+	private BitSet takenCareOf;
+	
+	/**
+	 * Constructor for a store of empty beds.
+	 * @param numOfBeds		The number of beds.
+	 */
+	BedStore(int numOfBeds){
+		healthState = new int[numOfBeds];
+		illness = new int[numOfBeds];
+		recoveryTime = new int[numOfBeds];
+		age = new int[numOfBeds];
+		takenCareOf = new BitSet(numOfBeds);
+		for(int bed=0;bed<numOfBeds;bed++)
+			healthState[bed] = -1;
+	}
+	
+	/**
+	 * Copy an admitted patient's state into a bed's slot. The patient is not yet a view when this is called.
+	 * @param bed		The bed index.
+	 * @param patient	The patient admitted to the bed.
+	 */
+	void store(int bed, Patient patient){
+		healthState[bed] = patient.getHealthState();
+		illness[bed] = patient.getIllness();
+		recoveryTime[bed] = patient.getRecoveryTime();
+		age[bed] = patient.getAge();
+		takenCareOf.set(bed, patient.takenCareOf());
+	}
+	
+	/**
+	 * Mark a bed as empty.
+	 * @param bed	The bed index.
+	 */
+	void clear(int bed){
+		healthState[bed] = -1;
+		takenCareOf.clear(bed);
+	}
+	
+	/**
+	 * Get the health state in a bed, -1 if the bed is empty.
+	 */
+	int getHealthState(int bed){
+		return healthState[bed];
+	}
+	
+	/**
+	 * Set the health state in a bed.
+	 */
+	void setHealthState(int bed, int value){
+		healthState[bed] = value;
+	}
+	
+	/**
+	 * Get the illness in a bed.
+	 */
+	int getIllness(int bed){
+		return illness[bed];
+	}
+	
+	/**
+	 * Set the illness in a bed.
+	 */
+	void setIllness(int bed, int value){
+		illness[bed] = value;
+	}
+	
+	/**
+	 * Get the recovery time in a bed.
+	 */
+	int getRecoveryTime(int bed){
+		return recoveryTime[bed];
+	}
+	
+	/**
+	 * Set the recovery time in a bed.
+	 */
+	void setRecoveryTime(int bed, int value){
+		recoveryTime[bed] = value;
+	}
+	
+	/**
+	 * Get the age of the patient in a bed.
+	 */
+	int getAge(int bed){
+		return age[bed];
+	}
+	
+	/**
+	 * Set the age of the patient in a bed.
+	 */
+	void setAge(int bed, int value){
+		age[bed] = value;
+	}
+	
+	/**
+	 * Whether the patient in a bed is taken care of by a doctor.
+	 */
+	boolean takenCareOf(int bed){
+		return takenCareOf.get(bed);
+	}
+	
+	/**
+	 * Set whether the patient in a bed is taken care of by a doctor.
+	 */
+	void setTakenCareOf(int bed, boolean value){
+		takenCareOf.set(bed, value);
+	}
+	
+	/**
+	 * The daily recovery tick of {@link Patient#aDayPasses()} for the beds <i>from</i> to <i>to</i> - 1, without the output.
+	 * <p>Every recovering patient's recovery time goes down by a day, and a patient whose time is up becomes healthy.
+	 * The beds of all healthy patients, whether they recovered today or were admitted healthy, are listed for discharge in ascending order.
+	 * @param from			The first bed.
+	 * @param to			One past the last bed.
+	 * @param healthyBeds	Where the healthy beds are listed, with room for at least <i>to - from</i> more entries.
+	 * @param offset		Where in <i>healthyBeds</i> to start listing.
+	 * @return	The number of beds listed.
+	 */
+	int recoverOneDay(int from, int to, int[] healthyBeds, int offset){
+		int[] healthState = this.healthState;
+		int[] recoveryTime = this.recoveryTime;
+		int counter = offset;
+		for(int bed=from;bed<to;bed++){
+			int state = healthState[bed];
+			if(state == 2){
+				int remaining = recoveryTime[bed] - 1;
+				recoveryTime[bed] = remaining;
+				if(remaining <= 0){
+					healthState[bed] = 0;
+					state = 0;
+				}
+			}
+			if(state == 0)
+				healthyBeds[counter++] = bed;
+		}
+		return counter - offset;
+	}
+}
@@ -0,0 +1,188 @@
+package ecshospital;
+import java.io.IOException;
+
+/**
+ * <b>CapabilityTable</b> holds what each doctor specialism can do for each illness: treat it, operate on it, or nothing.
+ * <p>For every specialism code (1=Doctor, 2=Surgeon, 3=LimbSurgeon, 4=OrganSurgeon) it keeps one bit mask of the illnesses it treats and one of the illnesses it operates on.
+ * Assignment and treatment look the answer up here instead of each doctor class checking illness ranges.
+ * <p>{@link Customizable#capabilityTable} holds the defaults. Every simulation works on its own copy,
+ * to which new illnesses and capabilities can be added from the configuration file.
+ * @author Man-Leong Chan
+ */
+public class CapabilityTable {
+	
+	/**
+	 * The specialism cannot take care of the illness.
+	 */
+	public static final int CANNOT = 0;
+	/**
+	 * The specialism treats the illness on the ward.
+	 */
+	public static final int TREAT = 1;
+	/**
+	 * The specialism operates on the illness in a theatre.
+	 */
+	public static final int OPERATE = 2;
+	
+	/**
+	 * The highest illness code a bit mask can hold.
+	 */
+	public static final int MAX_ILLNESS = 63;
+	
+	/*
+	 * treatMask and operateMask are indexed by specialism code, bit i stands for illness i.
+	 * An illness is never in both masks of the same specialism.
+	 * illnesses caches the illness codes set in either mask, for the treatment queue.
+	 */
+	private long[] treatMask;
+	private long[] operateMask;
+	private int[][] illnesses;
+	
+	/**
+	 * Constructor for the table of the default ECS hospital.
+	 * <p>Every specialism treats illness 1-3.
+	 * Surgeons operate on illness 4, Limb Surgeons on illness 4, 7 and 8, and Organ Surgeons on illness 4-6.
+	 */
+	CapabilityTable(){
+		treatMask = new long[5];
+		operateMask = new long[5];
+		illnesses = new int[5][];
+		
+		for(int specialism=1;specialism<=4;specialism++){
+			for(int illness=1;illness<=3;illness++)
+				treatMask[specialism] |= 1L << illness;
+		}
+		operateMask[2] = 1L << 4;
+		operateMask[3] = (1L << 4) | (1L << 7) | (1L << 8);
+		operateMask[4] = (1L << 4) | (1L << 5) | (1L << 6);
+		
+		for(int specialism=0;specialism<illnesses.length;specialism++)
+			illnesses[specialism] = toIllnesses(treatMask[specialism] | operateMask[specialism]);
+	}
+	
+	/**
+	 * Constructor for a copy of another table, so a simulation can change its own table.
+	 * @param capabilityTable	The table to copy.
+	 */
+	CapabilityTable(CapabilityTable capabilityTable){
+		treatMask = capabilityTable.treatMask.clone();
+		operateMask = capabilityTable.operateMask.clone();
+		illnesses = capabilityTable.illnesses.clone();
+	}
+	
+	/**
+	 * Look up what a specialism can do for an illness.
+	 * @param specialism	The specialism code.
+	 * @param illness		The illness code.
+	 * @return	{@link #TREAT}, {@link #OPERATE} or {@link #CANNOT}.
+	 */
+	public int lookup(int specialism, int illness){
+		if(specialism < 0 || specialism >= treatMask.length || illness < 0 || illness > MAX_ILLNESS)
+			return CANNOT;
+		return (int)((treatMask[specialism] >>> illness) & 1L) | (int)(((operateMask[specialism] >>> illness) & 1L) << 1);
+	}
+	
+	/**
+	 * Whether a doctor of the specialism can be assigned to a patient with the illness.
+	 * @param specialism	The specialism code.
+	 * @param illness		The illness code.
+	 * @return	True if it can treat or operate on the illness.
+	 */
+	public boolean canBeAssigned(int specialism, int illness){
+		return lookup(specialism, illness) != CANNOT;
+	}
+	
+	/**
+	 * Get the illnesses a specialism can be assigned to.
+	 * @param specialism	The specialism code.
+	 * @return	An array of illness codes in ascending order, empty for an unknown specialism.
+	 */
+	public int[] getIllnesses(int specialism){
+		if(specialism < 0 || specialism >= illnesses.length)
+			return new int[0];
+		return illnesses[specialism];
+	}
+	
+	/**
+	 * Change what a specialism can do for an illness.
+	 * @param specialism	The specialism code.
+	 * @param illness		The illness code, up to {@link #MAX_ILLNESS}.
+	 * @param capability	{@link #TREAT}, {@link #OPERATE} or {@link #CANNOT}.
+	 * @throws Exception	If illegal parameters passed.
+	 */
+	public void setCapability(int specialism, int illness, int capability) throws Exception{
+		if(specialism < 1 || specialism >= treatMask.length)
+			throw new Exception("Unknown specialism "+specialism+"! ERROR");
+		if(illness < 1 || illness > MAX_ILLNESS)
+			throw new Exception("Illness code "+illness+" out of range! ERROR");
+		if(capability != CANNOT && capability != TREAT && capability != OPERATE)
+			throw new Exception("Unknown capability "+capability+"! ERROR");
+		
+		long bit = 1L << illness;
+		treatMask[specialism] &= ~bit;
+		operateMask[specialism] &= ~bit;
+		if(capability == TREAT)
+			treatMask[specialism] |= bit;
+		else if(capability == OPERATE)
+			operateMask[specialism] |= bit;
+		
+		illnesses[specialism] = toIllnesses(treatMask[specialism] | operateMask[specialism]);
+	}
+	
+	/**
+	 * Turn a capability name from the configuration file into its code.
+	 * @param capability	"treat", "operate" or "cannot".
+	 * @return	The capability code.
+	 * @throws Exception	If the name is unknown.
+	 */
+	public static int parseCapability(String capability) throws Exception{
+		if(capability.equals("treat"))
+			return TREAT;
+		else if(capability.equals("operate"))
+			return OPERATE;
+		else if(capability.equals("cannot"))
+			return CANNOT;
+		else
+			throw new Exception("Unknown capability "+capability+". ERROR");
+	}
+	
+	/**
+	 * List the illness codes set in a bit mask.
+	 */
+	private static int[] toIllnesses(long mask){
+		int[] codes = new int[Long.bitCount(mask)];
+		int counter = 0;
+		while(mask != 0){
+			codes[counter++] = Long.numberOfTrailingZeros(mask);
+			mask &= mask - 1;
+		}
+		return codes;
+	}
+	
+	/**
+	 * Write the table to a snapshot, see {@link HospitalSnapshot}.
+	 * @param out	The snapshot.
+	 * @throws IOException	If the snapshot cannot be written.
+	 */
+	void writeTo(SnapshotOutput out) throws IOException{
+		out.writeLongArray(treatMask);
+		out.writeLongArray(operateMask);
+	}
+	
+	/**
+	 * Replace the table with one read from a snapshot.
+	 * @param in	The snapshot.
+	 * @throws IOException	If the snapshot cannot be read or is corrupt.
+	 */
+	void readFrom(SnapshotInput in) throws IOException{
+		long[] treat = in.readLongArray();
+		long[] operate = in.readLongArray();
+		if(treat.length != treatMask.length || operate.length != operateMask.length)
+			throw new IOException("Snapshot is corrupt: capability table size. ERROR");
+		treatMask = treat;
+		operateMask = operate;
+		illnesses = new int[treatMask.length][];
+		for(int specialism=0;specialism<illnesses.length;specialism++)
+			illnesses[specialism] = toIllnesses(treatMask[specialism] | operateMask[specialism]);
+	}
+}
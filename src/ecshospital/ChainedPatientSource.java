@@ -0,0 +1,68 @@
+package ecshospital;
+
+/**
+ * <b>ChainedPatientSource</b> takes patients from two sources, e.g. the "patient:" lines of a configuration and a {@link PatientArrivalGenerator}.
+ * <p>Of the patients who have arrived by a day, those of the first source are taken before those of the second.
+ * @author Man-Leong Chan
+ */
+public class ChainedPatientSource implements PatientSource {
+	
+	private PatientSource first;
+	private PatientSource second;
+	
+	/**
+	 * Constructor.
+	 * @param first		The source taken from first, closed with this one.
+	 * @param second	The source taken from when the first has nobody, closed with this one.
+	 */
+	ChainedPatientSource(PatientSource first, PatientSource second){
+		this.first = first;
+		this.second = second;
+	}
+	
+	/**
+	 * Get the source taken from first.
+	 * @return	The source.
+	 */
+	PatientSource getFirst(){
+		return first;
+	}
+	
+	/**
+	 * Get the source taken from when the first has nobody.
+	 * @return	The source.
+	 */
+	PatientSource getSecond(){
+		return second;
+	}
+	
+	/**
+	 * Take the next patient who has arrived by a day, from the first source if it has one.
+	 * @param day	The current day of the simulation.
+	 * @return	The patient, null if nobody else has arrived by that day.
+	 */
+	public Patient nextPatient(int day){
+		if(first.getNextArrivalDay() <= day){
+			Patient patient = first.nextPatient(day);
+			if(patient != null)
+				return patient;
+		}
+		return second.nextPatient(day);
+	}
+	
+	/**
+	 * Get the day the next patient arrives at either source.
+	 * @return	The day, Integer.MAX_VALUE if no more patients will arrive.
+	 */
+	public int getNextArrivalDay(){
+		return Math.min(first.getNextArrivalDay(), second.getNextArrivalDay());
+	}
+	
+	/**
+	 * Close both sources.
+	 */
+	public void close(){
+		first.close();
+		second.close();
+	}
+}
@@ -0,0 +1,91 @@
+package ecshospital;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <b>ConfigurationPatientSource</b> streams the "patient:" lines of a configuration, see {@link HospitalAdministrator#readConfiguration(ConfigurationScanner)}.
+ * <p>Every patient has arrived on day 0. A line is only read when the patient before it is taken, so a configuration with millions of patients
+ * is never held in memory. Invalid lines are reported with their line number and skipped.
+ * @author Man-Leong Chan
+ */
+public class ConfigurationPatientSource implements PatientSource {
+	
+	private static final byte[] PATIENT = "patient".getBytes(StandardCharsets.US_ASCII);
+	
+	private HospitalAdministrator administrator;
+	private ConfigurationScanner scanner;
+	
+	/*
+	 * The next valid patient, read one ahead so that the end of the configuration is known. Null at the end.
+	 */
+	private Patient nextPatient;
+	
+	/**
+	 * Constructor, reading the configuration from where the scanner is.
+	 * @param administrator		The administrator that checks the patients, see {@link HospitalAdministrator#createPatient(char, int, int, int)}.
+	 * @param scanner			The scanner, closed when the configuration is used up.
+	 */
+	ConfigurationPatientSource(HospitalAdministrator administrator, ConfigurationScanner scanner){
+		this.administrator = administrator;
+		this.scanner = scanner;
+		readAhead();
+	}
+	
+	/**
+	 * Take the next patient of the configuration.
+	 * @param day	The current day of the simulation.
+	 * @return	The patient, null when the configuration is used up.
+	 */
+	public Patient nextPatient(int day){
+		Patient patient = nextPatient;
+		if(patient != null)
+			readAhead();
+		return patient;
+	}
+	
+	/**
+	 * Get the day the next patient arrives.
+	 * @return	0 while patients are left, Integer.MAX_VALUE when the configuration is used up.
+	 */
+	public int getNextArrivalDay(){
+		return (nextPatient == null) ? Integer.MAX_VALUE : 0;
+	}
+	
+	/**
+	 * Read up to the next valid "patient:" line.
+	 */
+	private void readAhead(){
+		nextPatient = null;
+		EventLog eventLog = administrator.getEventLog();
+		try{
+			while(scanner.nextLine()){
+				if(!scanner.prefixIs(PATIENT))
+					continue;
+				try{
+					nextPatient = administrator.createPatient(scanner.getChar(0),scanner.getInt(1),scanner.getInt(2),scanner.getInt(3));
+					if(eventLog.isEnabled(EventLog.Level.DEBUG))
+						eventLog.debug("Patient: {}. IMPORTED.", scanner.getSuffix());
+					return;
+				}catch (NumberFormatException e){
+					eventLog.error("Line {}: Invalid patient configuration.", scanner.getLineNumber());
+				}catch (Exception e){
+					eventLog.error("Line {}: {}", scanner.getLineNumber(), e);
+				}
+			}
+		}catch (IOException e){
+			eventLog.error("Reading error occured: {}", e);
+		}
+		close();
+	}
+	
+	/**
+	 * Close the configuration.
+	 */
+	public void close(){
+		try{
+			scanner.close();
+		}catch (IOException e){
+			administrator.getEventLog().error("{}", e);
+		}
+	}
+}
@@ -0,0 +1,318 @@
+package ecshospital;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * <b>ConfigurationScanner</b> reads "prefix:field,field,..." lines of a configuration in the format of "myHospital.txt" straight from bytes.
+ * <p>
+ * The file is read through a FileChannel into one large buffer, and a line is only cut into field boundaries, no String or regular expression is made for it.
+ * Numbers are parsed from the bytes, see {@link #getInt(int)}. A configuration already in memory can be scanned from a byte array instead.
+ * <p>The scanner can go back to the start of the configuration, so it can be read in several passes.
+ * @author Man-Leong Chan
+ */
+public class ConfigurationScanner {
+	
+	/*
+	 * 1 MiB, enough for any line. A longer line is an error.
+	 */
+	private static final int BUFFER_SIZE = 1 << 20;
+	private static final int MAX_FIELDS = 8;
+	
+	/*
+	 * The channel read from, null when scanning a byte array. buffer holds the bytes from position 0 to its limit.
+	 */
+	private FileChannel channel;
+	private ByteBuffer buffer;
+	private byte[] bytes;
+	private boolean endOfInput;
+	
+	/*
+	 * The current line: where its prefix ends (the ':'), where it ends, and where each of its fields starts and ends.
+	 * next is where the following line starts.
+	 */
+	private int lineStart;
+	private int prefixEnd;
+	private int lineEnd;
+	private int next;
+	private int lineNumber;
+	private int numOfFields;
+	private int[] fieldStart;
+	private int[] fieldEnd;
+	
+	/**
+	 * Constructor for a configuration file.
+	 * @param channel	The open channel of the file, it is closed by {@link #close()}.
+	 */
+	ConfigurationScanner(FileChannel channel){
+		this.channel = channel;
+		bytes = new byte[BUFFER_SIZE];
+		buffer = ByteBuffer.wrap(bytes);
+		fieldStart = new int[MAX_FIELDS];
+		fieldEnd = new int[MAX_FIELDS];
+		rewindBuffer();
+	}
+	
+	/**
+	 * Constructor for a configuration in memory. The array is only read, so it can be shared by many scanners.
+	 * @param configuration		The configuration.
+	 */
+	ConfigurationScanner(byte[] configuration){
+		bytes = configuration;
+		buffer = ByteBuffer.wrap(bytes);
+		fieldStart = new int[MAX_FIELDS];
+		fieldEnd = new int[MAX_FIELDS];
+		rewindBuffer();
+	}
+	
+	/**
+	 * Go back to the start of the configuration.
+	 * @throws IOException	If the file cannot be read.
+	 */
+	public void rewind() throws IOException{
+		if(channel != null)
+			channel.position(0);
+		rewindBuffer();
+	}
+	
+	private void rewindBuffer(){
+		if(channel != null){
+			buffer.clear();
+			buffer.limit(0);
+			endOfInput = false;
+		}else{
+			buffer.clear();
+			endOfInput = true;
+		}
+		next = 0;
+		lineNumber = 0;
+		numOfFields = 0;
+	}
+	
+	/**
+	 * Move to the next line that is not empty.
+	 * @return	False at the end of the configuration.
+	 * @throws IOException	If the file cannot be read, or a line is longer than the buffer.
+	 */
+	public boolean nextLine() throws IOException{
+		while(true){
+			int end = findLineEnd();
+			if(end == -1)
+				return false;
+	
+			lineNumber++;
+			lineStart = next;
+			lineEnd = end;
+			next = (end < buffer.limit()) ? end + 1 : end;
+			//Windows line ends
+			if(lineEnd > lineStart && bytes[lineEnd - 1] == '\r')
+				lineEnd--;
+			if(lineEnd > lineStart){
+				splitFields();
+				return true;
+			}
+		}
+	}
+	
+	/**
+	 * Find the end of the line starting at next, reading more of the file when needed.
+	 * @return	The index of its '\n', or the limit for a last line without one, -1 at the end of the configuration.
+	 */
+	private int findLineEnd() throws IOException{
+		int scanned = next;
+		while(true){
+			int limit = buffer.limit();
+			for(int i=scanned;i<limit;i++){
+				if(bytes[i] == '\n')
+					return i;
+			}
+			if(endOfInput)
+				return (next < limit) ? limit : -1;
+	
+			//Move the part of the line already read to the front, and read more behind it
+			int carried = limit - next;
+			if(carried == bytes.length)
+				throw new IOException("Line "+(lineNumber + 1)+" is too long.");
+			System.arraycopy(bytes, next, bytes, 0, carried);
+			next = 0;
+			scanned = carried;
+			buffer.limit(bytes.length);
+			buffer.position(carried);
+			while(buffer.hasRemaining()){
+				if(channel.read(buffer) == -1){
+					endOfInput = true;
+					break;
+				}
+			}
+			buffer.limit(buffer.position());
+		}
+	}
+	
+	/**
+	 * Find the prefix and the comma separated fields of the current line.
+	 */
+	private void splitFields(){
+		prefixEnd = -1;
+		numOfFields = 0;
+		for(int i=lineStart;i<lineEnd;i++){
+			if(bytes[i] == ':'){
+				prefixEnd = i;
+				break;
+			}
+		}
+		if(prefixEnd == -1)
+			return;
+	
+		int start = prefixEnd + 1;
+		for(int i=start;i<=lineEnd && numOfFields<MAX_FIELDS;i++){
+			if(i == lineEnd || bytes[i] == ','){
+				fieldStart[numOfFields] = start;
+				fieldEnd[numOfFields] = i;
+				numOfFields++;
+				start = i + 1;
+			}
+		}
+	}
+	
+	/**
+	 * Get the number of the current line, counting from 1.
+	 * @return	The line number.
+	 */
+	public int getLineNumber(){
+		return lineNumber;
+	}
+	
+	/**
+	 * Whether the current line has a "prefix:" part.
+	 * @return	False if there is no ':'.
+	 */
+	public boolean hasPrefix(){
+		return prefixEnd != -1;
+	}
+	
+	/**
+	 * Check the prefix of the current line without making a String of it.
+	 * @param prefix	The prefix, in ASCII.
+	 * @return	Whether the current line has this prefix.
+	 */
+	public boolean prefixIs(byte[] prefix){
+		if(prefixEnd - lineStart != prefix.length)
+			return false;
+		for(int i=0;i<prefix.length;i++){
+			if(bytes[lineStart + i] != prefix[i])
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Get the prefix of the current line.
+	 * @return	The prefix, the whole line if it has no ':'.
+	 */
+	public String getPrefix(){
+		return new String(bytes, lineStart, (prefixEnd == -1 ? lineEnd : prefixEnd) - lineStart);
+	}
+	
+	/**
+	 * Get everything after the ':' of the current line, for reporting.
+	 * @return	The fields as written.
+	 */
+	public String getSuffix(){
+		if(prefixEnd == -1)
+			return "";
+		return new String(bytes, prefixEnd + 1, lineEnd - prefixEnd - 1);
+	}
+	
+	/**
+	 * Get the number of fields of the current line.
+	 * @return	The count, 0 if the line has no prefix.
+	 */
+	public int getNumOfFields(){
+		return numOfFields;
+	}
+	
+	/**
+	 * Parse a field of the current line as an integer.
+	 * @param field		The field index, from 0.
+	 * @return	The number.
+	 * @throws NumberFormatException	If the field is missing or is not a number.
+	 */
+	public int getInt(int field){
+		checkField(field);
+		int i = fieldStart[field];
+		int end = fieldEnd[field];
+		boolean negative = false;
+		if(i < end && (bytes[i] == '-' || bytes[i] == '+')){
+			negative = bytes[i] == '-';
+			i++;
+		}
+		if(i == end)
+			throw new NumberFormatException("Line "+lineNumber+": field "+(field + 1)+" is not a number.");
+	
+		long value = 0;
+		for(;i<end;i++){
+			int digit = bytes[i] - '0';
+			if(digit < 0 || digit > 9)
+				throw new NumberFormatException("Line "+lineNumber+": field "+(field + 1)+" is not a number.");
+			value = value * 10 + digit;
+			if(value > (long)Integer.MAX_VALUE + 1)
+				throw new NumberFormatException("Line "+lineNumber+": field "+(field + 1)+" is out of range.");
+		}
+		value = negative ? -value : value;
+		if(value > Integer.MAX_VALUE)
+			throw new NumberFormatException("Line "+lineNumber+": field "+(field + 1)+" is out of range.");
+		return (int)value;
+	}
+	
+	/**
+	 * Parse a field of the current line as a decimal number, e.g. a rate.
+	 * @param field		The field index, from 0.
+	 * @return	The number.
+	 * @throws NumberFormatException	If the field is missing or is not a number.
+	 */
+	public double getDouble(int field){
+		try{
+			return Double.parseDouble(getString(field));
+		}catch (NumberFormatException e){
+			throw new NumberFormatException("Line "+lineNumber+": field "+(field + 1)+" is not a number.");
+		}
+	}
+	
+	/**
+	 * Get the first character of a field of the current line.
+	 * @param field		The field index, from 0.
+	 * @return	The character.
+	 * @throws NumberFormatException	If the field is missing or empty.
+	 */
+	public char getChar(int field){
+		checkField(field);
+		if(fieldStart[field] == fieldEnd[field])
+			throw new NumberFormatException("Line "+lineNumber+": field "+(field + 1)+" is empty.");
+		return (char)(bytes[fieldStart[field]] & 0xff);
+	}
+	
+	/**
+	 * Get a field of the current line as a String.
+	 * @param field		The field index, from 0.
+	 * @return	The field.
+	 * @throws NumberFormatException	If the field is missing.
+	 */
+	public String getString(int field){
+		checkField(field);
+		return new String(bytes, fieldStart[field], fieldEnd[field] - fieldStart[field]);
+	}
+	
+	private void checkField(int field){
+		if(field < 0 || field >= numOfFields)
+			throw new NumberFormatException("Line "+lineNumber+": field "+(field + 1)+" is missing.");
+	}
+	
+	/**
+	 * Close the file, nothing to do for a configuration in memory.
+	 * @throws IOException	If the file cannot be closed.
+	 */
+	public void close() throws IOException{
+		if(channel != null)
+			channel.close();
+	}
+}
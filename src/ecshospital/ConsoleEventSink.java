@@ -0,0 +1,29 @@
+package ecshospital;
+
+/**
+ * <b>ConsoleEventSink</b> prints events straight away, warnings and errors to System.err and everything else to System.out.
+ * @author Man-Leong Chan
+ */
+public class ConsoleEventSink implements EventSink {
+	
+	/**
+	 * Print one event.
+	 * @param level		The level of the event.
+	 * @param format	The message with a "{}" for each argument.
+	 * @param args		The arguments of the message.
+	 */
+	public void write(EventLog.Level level, String format, Object[] args){
+		if(level.compareTo(EventLog.Level.WARN) >= 0)
+			System.err.println(EventLog.format(format, args));
+		else
+			System.out.println(EventLog.format(format, args));
+	}
+	
+	/**
+	 * Flush the console streams.
+	 */
+	public void close(){
+		System.out.flush();
+		System.err.flush();
+	}
+}
@@ -1,7 +1,5 @@
 package ecshospital;
 
-import java.util.HashMap;
-
 /**
  * The are values and properties that are customizable in the ECS hospital, new properties could be imported from the configuration file.
  * <p>However, if the setting (E.g. modify recovery time) has a syntax error, the program will ignore the new configuration and continue the use of the default setting.
@@ -11,11 +9,16 @@ import java.util.HashMap;
 public interface Customizable {
 	
 	/*
-	 * illnessRecoveryTimeMap maps the range of recovery time needed from a particular illness. 
-	 * The key contains the illness that the patient could suffer from.
-	 * The value contains an array of two numbers which indicates the range of possible recovery time needed.
+	 * illnessCatalogue holds the illnesses a patient could suffer from, with the range of possible recovery time needed for each.
+	 * These are the defaults. A catalogue never changes, a simulation with other illnesses builds its own, see IllnessCatalogue.Builder.
+	 */
+	IllnessCatalogue illnessCatalogue = IllnessCatalogue.DEFAULT;
+	
+	/*
+	 * capabilityTable says, for each doctor specialism and illness, whether the doctor treats it, operates on it or cannot take care of it.
+	 * These are the defaults, every HospitalAdministrator copies them and imports changes from "capability:" lines into its copy.
 	 */
-	HashMap<Integer, Integer[]> illnessRecoveryTimeMap = new HashMap<Integer,Integer[]>();
+	CapabilityTable capabilityTable = new CapabilityTable();
 
 	
 }
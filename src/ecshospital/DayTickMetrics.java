@@ -0,0 +1,379 @@
+package ecshospital;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import javax.management.ObjectName;
+
+/**
+ * <b>DayTickMetrics</b> times the phases of a simulated day and counts what happens in them, to find out which phase makes a day slow.
+ * <p>
+ * The phases are admission, matching doctors to patients, treatment (including the booked operations), the recovery sweep and clearing the theatres.
+ * The counters are admissions, assignment attempts and successes, theatre contention (no free theatre, patient put on the waiting list) and discharges.
+ * The depths of the admission, treatment and theatre queues are taken at the end of each day.
+ * <p>
+ * The {@link HospitalAdministrator} and its {@link Hospital} only hold metrics when they are switched on. Without them a phase costs one null check.
+ * With them it costs one {@link System#nanoTime()} and a few additions.
+ * <p>
+ * The totals can be read through JMX, see {@link #register(String)}, and every few days a row with the figures of those days can be written
+ * to a CSV file or as JSON lines, see {@link #dumpTo(String, int)}. The figures are updated by the simulation thread without locking,
+ * so a JMX read during a run may see one phase of a day without the next.
+ * @author Man-Leong Chan
+ */
+public class DayTickMetrics implements DayTickMetricsMBean {
+	
+	/**
+	 * The phases of a day, in the order they run.
+	 */
+	public enum Phase {ADMISSION, MATCHING, TREATMENT, RECOVERY, THEATRE}
+	
+	private static final String CSV_HEADER = "day,days,admissionNanos,matchingNanos,treatmentNanos,recoveryNanos,theatreNanos,"
+			+ "admissions,assignmentAttempts,assignmentSuccesses,theatreContentions,discharges,admissionQueue,treatmentQueue,theatreQueue";
+	
+	/*
+	 * Totals since the start or the last reset, and the totals when the last row was written, so a row holds the difference.
+	 * The counters are indexed by the constants below.
+	 */
+	private static final int ADMISSIONS = 0;
+	private static final int ATTEMPTS = 1;
+	private static final int SUCCESSES = 2;
+	private static final int CONTENTIONS = 3;
+	private static final int DISCHARGES = 4;
+	private static final int NUM_OF_COUNTERS = 5;
+	
+	private long days;
+	private long[] phaseNanos;
+	private long[] counters;
+	private long dumpedDays;
+	private long[] dumpedPhaseNanos;
+	private long[] dumpedCounters;
+	
+	/*
+	 * The queue depths at the end of the last day.
+	 */
+	private int admissionQueueDepth;
+	private int treatmentQueueDepth;
+	private int theatreQueueDepth;
+	
+	/*
+	 * Where rows are written every dumpEvery days, null for nowhere. nextDumpDay is the first day to write a row after.
+	 */
+	private Writer dump;
+	private boolean json;
+	private int dumpEvery;
+	private int nextDumpDay;
+	
+	private ObjectName objectName;
+	
+	/**
+	 * Constructor, with everything at zero and no dump.
+	 */
+	public DayTickMetrics(){
+		phaseNanos = new long[Phase.values().length];
+		counters = new long[NUM_OF_COUNTERS];
+		dumpedPhaseNanos = new long[phaseNanos.length];
+		dumpedCounters = new long[NUM_OF_COUNTERS];
+	}
+	
+	/**
+	 * Add the time since a phase started to the phase.
+	 * @param phase		The phase.
+	 * @param start		When the phase started, from {@link System#nanoTime()}.
+	 * @return	Now, when the next phase starts.
+	 */
+	long phaseEnded(Phase phase, long start){
+		long now = System.nanoTime();
+		phaseNanos[phase.ordinal()] += now - start;
+		return now;
+	}
+	
+	/**
+	 * Count an admission.
+	 */
+	void admitted(){
+		counters[ADMISSIONS]++;
+	}
+	
+	/**
+	 * Count a free doctor looking for a patient.
+	 * @param success	Whether the doctor took a patient.
+	 */
+	void assignmentAttempted(boolean success){
+		counters[ATTEMPTS]++;
+		if(success)
+			counters[SUCCESSES]++;
+	}
+	
+	/**
+	 * Count a patient who found no free theatre.
+	 */
+	void theatreContended(){
+		counters[CONTENTIONS]++;
+	}
+	
+	/**
+	 * Count a discharge.
+	 */
+	void discharged(){
+		counters[DISCHARGES]++;
+	}
+	
+	/**
+	 * Note the end of a day with the queue depths, and write a row if one is due.
+	 * @param day					The day that ended.
+	 * @param admissionQueueDepth	The patients in the admission queue.
+	 * @param treatmentQueueDepth	The patients in beds waiting for a doctor.
+	 * @param theatreQueueDepth		The patients waiting for a theatre slot.
+	 * @throws IOException	If the row cannot be written. Nothing more is written after that.
+	 */
+	void dayEnded(int day, int admissionQueueDepth, int treatmentQueueDepth, int theatreQueueDepth) throws IOException{
+		days++;
+		this.admissionQueueDepth = admissionQueueDepth;
+		this.treatmentQueueDepth = treatmentQueueDepth;
+		this.theatreQueueDepth = theatreQueueDepth;
+		if(dump != null && day >= nextDumpDay){
+			nextDumpDay = day + dumpEvery;
+			writeRow(day);
+		}
+	}
+	
+	/**
+	 * Write a row every few days, with the figures of those days.
+	 * @param fileName		The file, JSON lines if it ends with ".json", CSV otherwise.
+	 * @param everyDays		The number of days between rows.
+	 * @throws IOException	If the file cannot be opened.
+	 */
+	public void dumpTo(String fileName, int everyDays) throws IOException{
+		closeDump();
+		json = fileName.endsWith(".json");
+		dumpEvery = Math.max(1, everyDays);
+		nextDumpDay = dumpEvery - 1;
+		dump = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName), StandardCharsets.UTF_8));
+		if(!json){
+			dump.write(CSV_HEADER);
+			dump.write('\n');
+		}
+		markDumped();
+	}
+	
+	/**
+	 * Close the dump, if there is one.
+	 */
+	public void closeDump(){
+		if(dump == null)
+			return;
+		try{
+			dump.close();
+		}catch (IOException e){
+			System.err.println(e);
+		}
+		dump = null;
+	}
+	
+	private void writeRow(int day) throws IOException{
+		StringBuilder row = new StringBuilder(256);
+		if(json){
+			row.append("{\"day\":").append(day).append(",\"days\":").append(days - dumpedDays);
+			for(Phase phase : Phase.values())
+				row.append(",\"").append(phase.name().toLowerCase()).append("Nanos\":").append(phaseNanos[phase.ordinal()] - dumpedPhaseNanos[phase.ordinal()]);
+			row.append(",\"admissions\":").append(counters[ADMISSIONS] - dumpedCounters[ADMISSIONS]);
+			row.append(",\"assignmentAttempts\":").append(counters[ATTEMPTS] - dumpedCounters[ATTEMPTS]);
+			row.append(",\"assignmentSuccesses\":").append(counters[SUCCESSES] - dumpedCounters[SUCCESSES]);
+			row.append(",\"theatreContentions\":").append(counters[CONTENTIONS] - dumpedCounters[CONTENTIONS]);
+			row.append(",\"discharges\":").append(counters[DISCHARGES] - dumpedCounters[DISCHARGES]);
+			row.append(",\"admissionQueue\":").append(admissionQueueDepth);
+			row.append(",\"treatmentQueue\":").append(treatmentQueueDepth);
+			row.append(",\"theatreQueue\":").append(theatreQueueDepth).append('}');
+		}else{
+			row.append(day).append(',').append(days - dumpedDays);
+			for(int phase=0;phase<phaseNanos.length;phase++)
+				row.append(',').append(phaseNanos[phase] - dumpedPhaseNanos[phase]);
+			for(int counter=0;counter<NUM_OF_COUNTERS;counter++)
+				row.append(',').append(counters[counter] - dumpedCounters[counter]);
+			row.append(',').append(admissionQueueDepth).append(',').append(treatmentQueueDepth).append(',').append(theatreQueueDepth);
+		}
+		row.append('\n');
+		try{
+			dump.write(row.toString());
+		}catch (IOException e){
+			closeDump();
+			throw e;
+		}
+		markDumped();
+	}
+	
+	private void markDumped(){
+		dumpedDays = days;
+		System.arraycopy(phaseNanos, 0, dumpedPhaseNanos, 0, phaseNanos.length);
+		System.arraycopy(counters, 0, dumpedCounters, 0, NUM_OF_COUNTERS);
+	}
+	
+	/**
+	 * Register with the platform MBean server as "ecshospital:type=DayTickMetrics,name=<i>name</i>".
+	 * @param name	The name of the simulation.
+	 * @throws Exception	If the name is taken or invalid.
+	 */
+	public void register(String name) throws Exception{
+		ObjectName objectName = new ObjectName("ecshospital:type=DayTickMetrics,name="+ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		this.objectName = objectName;
+	}
+	
+	/**
+	 * Unregister from the platform MBean server, if registered.
+	 */
+	public void unregister(){
+		if(objectName == null)
+			return;
+		try{
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		}catch (Exception e){
+			System.err.println(e);
+		}
+		objectName = null;
+	}
+	
+	/**
+	 * Get the number of days stepped through.
+	 * @return	The number of days.
+	 */
+	public long getDays(){
+		return days;
+	}
+	
+	/**
+	 * Get the time spent admitting patients.
+	 * @return	The time in nanoseconds.
+	 */
+	public long getAdmissionNanos(){
+		return phaseNanos[Phase.ADMISSION.ordinal()];
+	}
+	
+	/**
+	 * Get the time spent matching free doctors to waiting patients.
+	 * @return	The time in nanoseconds.
+	 */
+	public long getMatchingNanos(){
+		return phaseNanos[Phase.MATCHING.ordinal()];
+	}
+	
+	/**
+	 * Get the time spent by doctors treating and operating, and starting booked operations.
+	 * @return	The time in nanoseconds.
+	 */
+	public long getTreatmentNanos(){
+		return phaseNanos[Phase.TREATMENT.ordinal()];
+	}
+	
+	/**
+	 * Get the time spent in the recovery sweep over the beds, with the discharges.
+	 * @return	The time in nanoseconds.
+	 */
+	public long getRecoveryNanos(){
+		return phaseNanos[Phase.RECOVERY.ordinal()];
+	}
+	
+	/**
+	 * Get the time spent clearing the theatres and booking the waiting list.
+	 * @return	The time in nanoseconds.
+	 */
+	public long getTheatreNanos(){
+		return phaseNanos[Phase.THEATRE.ordinal()];
+	}
+	
+	/**
+	 * Get the number of patients admitted.
+	 * @return	The count.
+	 */
+	public long getAdmissions(){
+		return counters[ADMISSIONS];
+	}
+	
+	/**
+	 * Get the number of times a free doctor looked for a waiting patient.
+	 * @return	The count.
+	 */
+	public long getAssignmentAttempts(){
+		return counters[ATTEMPTS];
+	}
+	
+	/**
+	 * Get the number of times a free doctor took a patient.
+	 * @return	The count.
+	 */
+	public long getAssignmentSuccesses(){
+		return counters[SUCCESSES];
+	}
+	
+	/**
+	 * Get the number of patients who found no free theatre and were put on the waiting list.
+	 * @return	The count.
+	 */
+	public long getTheatreContentions(){
+		return counters[CONTENTIONS];
+	}
+	
+	/**
+	 * Get the number of patients discharged.
+	 * @return	The count.
+	 */
+	public long getDischarges(){
+		return counters[DISCHARGES];
+	}
+	
+	/**
+	 * Get the number of patients in the admission queue at the end of the last day, not counting those the patient source still holds.
+	 * @return	The queue length.
+	 */
+	public int getAdmissionQueueDepth(){
+		return admissionQueueDepth;
+	}
+	
+	/**
+	 * Get the number of patients in beds waiting for a doctor at the end of the last day.
+	 * @return	The queue length.
+	 */
+	public int getTreatmentQueueDepth(){
+		return treatmentQueueDepth;
+	}
+	
+	/**
+	 * Get the number of patients waiting for a theatre slot at the end of the last day.
+	 * @return	The queue length.
+	 */
+	public int getTheatreQueueDepth(){
+		return theatreQueueDepth;
+	}
+	
+	/**
+	 * Set the times and counters back to zero.
+	 */
+	public void reset(){
+		days = 0;
+		for(int phase=0;phase<phaseNanos.length;phase++)
+			phaseNanos[phase] = 0;
+		for(int counter=0;counter<NUM_OF_COUNTERS;counter++)
+			counters[counter] = 0;
+		markDumped();
+	}
+	
+	/**
+	 * A one line summary of the totals, in milliseconds per phase.
+	 * @return	The summary.
+	 */
+	@Override
+	public String toString(){
+		StringBuilder summary = new StringBuilder();
+		summary.append("days=").append(days);
+		for(Phase phase : Phase.values())
+			summary.append(String.format(" %sMs=%.1f", phase.name().toLowerCase(), phaseNanos[phase.ordinal()] / 1e6));
+		summary.append(" admissions=").append(counters[ADMISSIONS]);
+		summary.append(" assignments=").append(counters[SUCCESSES]).append('/').append(counters[ATTEMPTS]);
+		summary.append(" theatreContentions=").append(counters[CONTENTIONS]);
+		summary.append(" discharges=").append(counters[DISCHARGES]);
+		return summary.toString();
+	}
+}
@@ -0,0 +1,97 @@
+package ecshospital;
+
+/**
+ * The JMX view of a {@link DayTickMetrics}: the time spent in each phase of the day and the counters since the start or the last reset.
+ * @author Man-Leong Chan
+ */
+public interface DayTickMetricsMBean {
+	
+	/**
+	 * Get the number of days stepped through.
+	 * @return	The number of days.
+	 */
+	long getDays();
+	
+	/**
+	 * Get the time spent admitting patients.
+	 * @return	The time in nanoseconds.
+	 */
+	long getAdmissionNanos();
+	
+	/**
+	 * Get the time spent matching free doctors to waiting patients.
+	 * @return	The time in nanoseconds.
+	 */
+	long getMatchingNanos();
+	
+	/**
+	 * Get the time spent by doctors treating and operating, and starting booked operations.
+	 * @return	The time in nanoseconds.
+	 */
+	long getTreatmentNanos();
+	
+	/**
+	 * Get the time spent in the recovery sweep over the beds, with the discharges.
+	 * @return	The time in nanoseconds.
+	 */
+	long getRecoveryNanos();
+	
+	/**
+	 * Get the time spent clearing the theatres and booking the waiting list.
+	 * @return	The time in nanoseconds.
+	 */
+	long getTheatreNanos();
+	
+	/**
+	 * Get the number of patients admitted.
+	 * @return	The count.
+	 */
+	long getAdmissions();
+	
+	/**
+	 * Get the number of times a free doctor looked for a waiting patient.
+	 * @return	The count.
+	 */
+	long getAssignmentAttempts();
+	
+	/**
+	 * Get the number of times a free doctor took a patient.
+	 * @return	The count.
+	 */
+	long getAssignmentSuccesses();
+	
+	/**
+	 * Get the number of patients who found no free theatre and were put on the waiting list.
+	 * @return	The count.
+	 */
+	long getTheatreContentions();
+	
+	/**
+	 * Get the number of patients discharged.
+	 * @return	The count.
+	 */
+	long getDischarges();
+	
+	/**
+	 * Get the number of patients in the admission queue at the end of the last day, not counting those the patient source still holds.
+	 * @return	The queue length.
+	 */
+	int getAdmissionQueueDepth();
+	
+	/**
+	 * Get the number of patients in beds waiting for a doctor at the end of the last day.
+	 * @return	The queue length.
+	 */
+	int getTreatmentQueueDepth();
+	
+	/**
+	 * Get the number of patients waiting for a theatre slot at the end of the last day.
+	 * @return	The queue length.
+	 */
+	int getTheatreQueueDepth();
+	
+	/**
+	 * Set the times and counters back to zero.
+	 */
+	void reset();
+}
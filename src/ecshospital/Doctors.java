@@ -15,10 +15,20 @@ public class Doctors extends Person{
 	
 	private Patient assignedPatient;
 	
+	/*
+	 * The number of days spent treating the assigned patient on the ward so far.
+	 */
+	private int daysTreating;
+	
 	private int iD;
 
 	private Hospital hospital;
 	
+	/**
+	 * How each specialism is called in the output, indexed by specialism.
+	 */
+	private static final String[] TITLES = {"Doctor","Doctor","Surgeon","Limb Surgeon","Organ Surgeon"};
+	
 	/**
 	 * Constructor for pure Doctors only.This is not used by Surgeon, LimbSurgeon or OrganSurgeon.
 	 * @param iD			Doctor ID. All doctors has ID so that we can easily identify their movement.
@@ -71,23 +81,64 @@ public class Doctors extends Person{
 		return hospital;
 	}
 	
+	/**
+	 * Get the event log of the hospital the doctor works in.
+	 * @return	The hospital's log, {@link EventLog#NONE} if the doctor has no hospital.
+	 */
+	public EventLog getEventLog(){
+		if(hospital == null)
+			return EventLog.NONE;
+		return hospital.getEventLog();
+	}
+	
+	/**
+	 * Get the table of what doctors can treat, from the hospital the doctor works in.
+	 * @return	The hospital's table, {@link Customizable#capabilityTable} if the doctor has no hospital.
+	 */
+	public CapabilityTable getCapabilityTable(){
+		if(hospital == null)
+			return capabilityTable;
+		return hospital.getCapabilityTable();
+	}
+	
+	/**
+	 * Get the doctor's title, e.g. "Limb Surgeon".
+	 * @return	The title of the doctor's specialism.
+	 */
+	public String getTitle(){
+		if(specialism < 0 || specialism >= TITLES.length)
+			return TITLES[1];
+		return TITLES[specialism];
+	}
+	
+	/**
+	 * Get the illnesses this doctor can be assigned to, looked up in the {@link #getCapabilityTable()}.
+	 * Used by {@link Hospital#nextUntreatedPatient(int[])} to find a patient.
+	 * @return	An array of illness codes.
+	 */
+	public int[] getTreatableIllnesses(){
+		return getCapabilityTable().getIllnesses(specialism);
+	}
+	
 	/**
 	 * Try to assign patient to a specific doctor.
 	 * <p>
-	 * It checks whether the doctor has the specialism required.
+	 * It checks the {@link #getCapabilityTable()} for whether the doctor's specialism can take care of the illness.
 	 * 
 	 * @param patient  The patient to be assigned.
 	 * @return	Whether the assignment is successful.
 	 */
 	public boolean tryAssignPatient(Patient patient){
-		int illness = patient.getIllness();
-		if(illness >= 1 && illness <= 3){
+		if(getCapabilityTable().canBeAssigned(specialism, patient.getIllness())){
 			assignedPatient = patient;
 			assignedPatient.setTakenCareOf(true);
-			System.out.println("Doctor "+iD+" is assigned to patient: Aged "+assignedPatient.getAge()+" ,"+assignedPatient.getGender()+".");
+			daysTreating = 0;
+			if(getEventLog().isEnabled(EventLog.Level.INFO))
+				getEventLog().info("{} {} is assigned to patient: Aged {} ,{}.", getTitle(), iD, assignedPatient.getAge(), assignedPatient.getGender());
 			return true;
 		}else{
-			System.out.println("Doctor "+iD+" CANNOT be assigned with patient: Aged "+patient.getAge()+" ,"+patient.getGender()+".");
+			if(getEventLog().isEnabled(EventLog.Level.DEBUG))
+				getEventLog().debug("{} {} CANNOT be assigned with patient: Aged {} ,{}.", getTitle(), iD, patient.getAge(), patient.getGender());
 			return false;
 		}	
 	}
@@ -112,38 +163,199 @@ public class Doctors extends Person{
 	 * Treat the patient.
 	 * <p>
 	 * First check if the doctor is assigned with a patient, else it assumes that the doctor has treat a patient.
-	 * @throws Exception 
+	 * <p>
+	 * The {@link #getCapabilityTable()} decides whether the patient is treated on the ward or needs an operation.
+	 * @throws Exception	If the doctor cannot treat the illness, or no theatre is free for an operation.
 	 */
 	public void treatPatient() throws Exception{
-		//If the surgeon is assigned with a patient
-		if(assignedPatient != null){
-			int illness = assignedPatient.getIllness();
-			if(illness >= 1 && illness <=3){
-				//Set patient to recovering
-				assignedPatient.setHealthState(2);
-				//Set recovery time for patient
-				assignedPatient.setRecoveryTime(assignedPatient.getIllnessRecoveryTime(assignedPatient.getIllness()));
-				System.out.println("Doctor "+iD+" Treat patient successfully!");
-				System.out.println("Patient requires "+getAssignedPatient().getRecoveryTime()+" days to recover.");
-			}else
-				throw new Exception("This surgeon cannot treat this illness!");
+		TreatmentOutcome outcome = tryTreatPatient();
+		if(!outcome.isSuccessful())
+			throw new Exception(describeFailure(outcome));
+	}
+	
+	/**
+	 * Treat the patient, reporting the outcome instead of throwing an Exception.
+	 * <p>
+	 * The {@link #getCapabilityTable()} decides whether the patient is treated on the ward or needs an operation, see {@link #tryOperate()}.
+	 * @return	The outcome.
+	 */
+	public TreatmentOutcome tryTreatPatient(){
+		//If the doctor is assigned with a patient
+		if(assignedPatient == null)
+			return TreatmentOutcome.NO_PATIENT;
+		
+		switch(getCapabilityTable().lookup(specialism, assignedPatient.getIllness())){
+		case CapabilityTable.TREAT:
+			//A treatment that takes several days keeps the doctor with the patient until its last day
+			daysTreating++;
+			if(hospital != null && daysTreating < hospital.getTreatmentDays(assignedPatient.getIllness())){
+				if(getEventLog().isEnabled(EventLog.Level.INFO))
+					getEventLog().info("{} {} treating patient, day {} of {}.", getTitle(), iD, daysTreating, hospital.getTreatmentDays(assignedPatient.getIllness()));
+				return TreatmentOutcome.TREATING;
+			}
+			int recoveryTime = drawRecoveryTime();
+			if(recoveryTime < 0)
+				return TreatmentOutcome.UNKNOWN_ILLNESS;
+			//Set patient to recovering
+			assignedPatient.setHealthState(2);
+			//Set recovery time for patient
+			assignedPatient.setRecoveryTime(recoveryTime);
+			if(hospital != null){
+				hospital.getStatistics().recordTreatment();
+				hospital.recoveryStarted(assignedPatient);
+			}
+			if(getEventLog().isEnabled(EventLog.Level.INFO)){
+				getEventLog().info("{} {} Treat patient successfully!", getTitle(), iD);
+				getEventLog().info("Patient requires {} days to recover.", recoveryTime);
+			}
+			return TreatmentOutcome.TREATED;
+		case CapabilityTable.OPERATE:
+			getEventLog().info("Operation NEEDED!");
+			return tryOperate();
+		default:
+			return TreatmentOutcome.CANNOT_TREAT;
+		}
+	}
+	
+	/**
+	 * Treat patient using one of the operation theatre. This requires a free theatre.
+	 * @throws Exception	If no theatre is free.
+	 */
+	public void operate() throws Exception{
+		TreatmentOutcome outcome = tryOperate();
+		if(!outcome.isSuccessful())
+			throw new Exception(describeFailure(outcome));
+	}
+	
+	/**
+	 * Operate on the patient in a free theatre, reporting the outcome instead of throwing an Exception.
+	 * @return	{@link TreatmentOutcome#OPERATED}, {@link TreatmentOutcome#SCHEDULED} if the patient was put on the theatre waiting list,
+	 * 			or {@link TreatmentOutcome#NO_THEATRE} if the hospital has no theatres.
+	 */
+	public TreatmentOutcome tryOperate(){
+		if(assignedPatient == null)
+			return TreatmentOutcome.NO_PATIENT;
+		if(!hasRecoveryTime())
+			return TreatmentOutcome.UNKNOWN_ILLNESS;
+		if(hospital == null)
+			return TreatmentOutcome.NO_THEATRE;
+		if(!hospital.prepForTheatre(assignedPatient)){
+			//Every theatre is busy today, a slot is booked for the patient at the end of the day
+			if(!hospital.addToTheatreWaitingList(assignedPatient))
+				return TreatmentOutcome.NO_THEATRE;
+			getEventLog().info("No operation theatre free today, patient put on the theatre waiting list.");
+			return TreatmentOutcome.SCHEDULED;
+		}
+		
+		int recoveryTime = hospital.operate(assignedPatient);
+		getEventLog().info("Operation successful!");
+		if(getEventLog().isEnabled(EventLog.Level.INFO))
+			getEventLog().info("Patient requires {} days to recover.", recoveryTime);
+		return TreatmentOutcome.OPERATED;
+	}
+	
+	/**
+	 * Whether a recovery time can be drawn for the assigned patient's illness.
+	 */
+	private boolean hasRecoveryTime(){
+		int illness = assignedPatient.getIllness();
+		if(assignedPatient.getHospital() != null)
+			return assignedPatient.getHospital().getRecoveryTimeSampler().hasIllness(illness);
+		return illnessCatalogue.hasIllness(illness);
+	}
+	
+	/**
+	 * Draw the assigned patient's recovery time, from its hospital's sampler if it is admitted.
+	 * @return	The recovery time, -1 if the illness does not exist.
+	 */
+	private int drawRecoveryTime(){
+		int illness = assignedPatient.getIllness();
+		if(assignedPatient.getHospital() != null)
+			return assignedPatient.getHospital().getRecoveryTimeSampler().nextRecoveryTime(illness);
+		try{
+			return assignedPatient.getIllnessRecoveryTime(illness);
+		}catch (Exception e){
+			return -1;
+		}
+	}
+	
+	/**
+	 * Get the number of days left of a treatment on the ward that is under way.
+	 * @return	The number of days, counting today, 0 if the doctor is not in the middle of a treatment.
+	 */
+	int getTreatmentDaysLeft(){
+		if(assignedPatient == null || hospital == null || daysTreating == 0)
+			return 0;
+		int daysLeft = hospital.getTreatmentDays(assignedPatient.getIllness()) - daysTreating;
+		return Math.max(daysLeft, 0);
+	}
+	
+	/**
+	 * Carry on with a treatment on the ward over days on which nothing else happens, see {@link HospitalAdministrator#advanceDays(int)}.
+	 * @param days	The number of days, less than {@link #getTreatmentDaysLeft()}.
+	 */
+	void continueTreatment(int days){
+		daysTreating += days;
+	}
+	
+	/**
+	 * Get the number of days spent treating the assigned patient on the ward so far.
+	 * @return	The number of days.
+	 */
+	int getDaysTreating(){
+		return daysTreating;
+	}
+	
+	/**
+	 * Give the doctor back its patient when restoring a snapshot, see {@link HospitalSnapshot}.
+	 * @param patient		The patient, already in its bed.
+	 * @param daysTreating	The number of days spent treating the patient on the ward so far.
+	 */
+	void restoreAssignment(Patient patient, int daysTreating){
+		assignedPatient = patient;
+		this.daysTreating = daysTreating;
+	}
+	
+	/**
+	 * The message for an outcome that is not successful, as the old Exceptions had it.
+	 * @param outcome	The outcome.
+	 * @return	The message.
+	 */
+	public String describeFailure(TreatmentOutcome outcome){
+		switch(outcome){
+		case NO_THEATRE:
+			return "No operation theatre free! Patient:"+assignedPatient.getGender()+","+assignedPatient.getAge()
+					+" with illness "+assignedPatient.getIllness()+" cannot be cured! ERROR";
+		case CANNOT_TREAT:
+			return "This "+getTitle()+" cannot treat this illness!";
+		case UNKNOWN_ILLNESS:
+			return "This illness does not exist!";
+		default:
+			return outcome.name();
 		}
 	}
 	
 	/**
 	 * The workflow of a doctor in a day.
-	 * <p>It treats the patient and release the patient.
+	 * <p>It treats the patient and release the patient, unless a treatment on the ward takes more days, see {@link Hospital#getTreatmentDays(int)}.
 	 * 
 	 * @return	Whether the workflow is successful.
 	 */
 	public boolean aDayPasses(){
-		try{
-			treatPatient();
+		TreatmentOutcome outcome = tryTreatPatient();
+		if(outcome == TreatmentOutcome.TREATING){
+			//The doctor carries the patient over to the next day.
+			if(getEventLog().isEnabled(EventLog.Level.DEBUG))
+				getEventLog().debug("Doctor {} ADayPasses, still treating.", iD);
+		}else if(outcome.isSuccessful()){
 			//Release patient from doctor. He is now free after the day.
 			assignedPatient = null;
-			System.out.println("Doctor "+getID()+" ADayPasses.");
-		}catch (Exception e){
-			System.err.println(e);
+			daysTreating = 0;
+			if(getEventLog().isEnabled(EventLog.Level.DEBUG))
+				getEventLog().debug("Doctor {} ADayPasses.", iD);
+		}else if(getEventLog().isEnabled(EventLog.Level.ERROR)){
+			//The doctor keeps the patient and tries again tomorrow.
+			getEventLog().error("{}", describeFailure(outcome));
 		}
 		return true;
 	}
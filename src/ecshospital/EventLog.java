@@ -0,0 +1,193 @@
+package ecshospital;
+import java.io.File;
+
+/**
+ * <b>EventLog</b> reports what happens in the hospital: admissions, assignments, treatments, recovery and discharges.
+ * <p>Every event has a {@link Level}. Events below the log's level are dropped before any message is built.
+ * Messages use "{}" placeholders that are only filled in by the {@link EventSink}, which could do it on another thread.
+ * <p>A message without arguments goes through a method of its own, so logging it allocates nothing.
+ * A message with arguments goes through varargs, which box the arguments into a new array before the level is checked.
+ * Code on the per-patient and per-day path, or that has to do work just to collect the arguments, checks {@link #isEnabled(Level)} first,
+ * so a log at {@link Level#OFF} costs it a level check per event and nothing else.
+ * @author Man-Leong Chan
+ */
+public class EventLog {
+	
+	/**
+	 * The levels of events, from the most detailed to the most serious.
+	 */
+	public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+	
+	/**
+	 * A log that drops every event.
+	 */
+	public static final EventLog NONE = new EventLog(Level.OFF, null);
+	
+	/**
+	 * A log that prints every event to the console, the output of the ECS hospital before logs could be configured.
+	 */
+	public static final EventLog CONSOLE = new EventLog(Level.DEBUG, new ConsoleEventSink());
+	
+	private static final Object[] NO_ARGS = new Object[0];
+	
+	private final Level level;
+	private final EventSink sink;
+	
+	/**
+	 * Constructor for a log.
+	 * @param level		Events below this level are dropped.
+	 * @param sink		Where the events go, ignored for {@link Level#OFF}.
+	 */
+	EventLog(Level level, EventSink sink){
+		this.level = (sink == null) ? Level.OFF : level;
+		this.sink = sink;
+	}
+	
+	/**
+	 * Get the level of the log.
+	 * @return	The lowest level written.
+	 */
+	public Level getLevel(){
+		return level;
+	}
+	
+	/**
+	 * Whether events of the level are written.
+	 * @param eventLevel	The level to check.
+	 * @return	True if events at that level reach the sink.
+	 */
+	public boolean isEnabled(Level eventLevel){
+		return eventLevel.compareTo(level) >= 0 && eventLevel != Level.OFF;
+	}
+	
+	/**
+	 * Log a detailed event without arguments.
+	 * @param message	The message.
+	 */
+	public void debug(String message){
+		if(level == Level.DEBUG)
+			sink.write(Level.DEBUG, message, NO_ARGS);
+	}
+	
+	/**
+	 * Log a detailed event, e.g. a recovery tick.
+	 * @param format	The message with a "{}" for each argument.
+	 * @param args		The arguments.
+	 */
+	public void debug(String format, Object... args){
+		if(level == Level.DEBUG)
+			sink.write(Level.DEBUG, format, args);
+	}
+	
+	/**
+	 * Log an ordinary event without arguments.
+	 * @param message	The message.
+	 */
+	public void info(String message){
+		if(level.compareTo(Level.INFO) <= 0)
+			sink.write(Level.INFO, message, NO_ARGS);
+	}
+	
+	/**
+	 * Log an ordinary event, e.g. an admission.
+	 * @param format	The message with a "{}" for each argument.
+	 * @param args		The arguments.
+	 */
+	public void info(String format, Object... args){
+		if(level.compareTo(Level.INFO) <= 0)
+			sink.write(Level.INFO, format, args);
+	}
+	
+	/**
+	 * Log an event that needs attention without arguments.
+	 * @param message	The message.
+	 */
+	public void warn(String message){
+		if(level.compareTo(Level.WARN) <= 0)
+			sink.write(Level.WARN, message, NO_ARGS);
+	}
+	
+	/**
+	 * Log an event that needs attention, e.g. a full hospital.
+	 * @param format	The message with a "{}" for each argument.
+	 * @param args		The arguments.
+	 */
+	public void warn(String format, Object... args){
+		if(level.compareTo(Level.WARN) <= 0)
+			sink.write(Level.WARN, format, args);
+	}
+	
+	/**
+	 * Log an error without arguments.
+	 * @param message	The message.
+	 */
+	public void error(String message){
+		if(level.compareTo(Level.ERROR) <= 0)
+			sink.write(Level.ERROR, message, NO_ARGS);
+	}
+	
+	/**
+	 * Log an error.
+	 * @param format	The message with a "{}" for each argument.
+	 * @param args		The arguments.
+	 */
+	public void error(String format, Object... args){
+		if(level.compareTo(Level.ERROR) <= 0)
+			sink.write(Level.ERROR, format, args);
+	}
+	
+	/**
+	 * Write out everything buffered by the sink.
+	 */
+	public void close(){
+		if(sink != null)
+			sink.close();
+	}
+	
+	/**
+	 * Fill in the "{}" placeholders of a message with its arguments, in order.
+	 * Extra placeholders are left as they are and extra arguments are ignored.
+	 * @param format	The message.
+	 * @param args		The arguments.
+	 * @return	The message.
+	 */
+	public static String format(String format, Object[] args){
+		if(args == null || args.length == 0)
+			return format;
+		
+		StringBuilder message = new StringBuilder(format.length() + 16 * args.length);
+		int start = 0;
+		int argIndex = 0;
+		int placeholder;
+		while(argIndex < args.length && (placeholder = format.indexOf("{}", start)) >= 0){
+			message.append(format, start, placeholder);
+			message.append(args[argIndex++]);
+			start = placeholder + 2;
+		}
+		message.append(format, start, format.length());
+		return message.toString();
+	}
+	
+	/**
+	 * Build a log from the command line settings.
+	 * @param levelName		The name of the lowest level to write, e.g. "INFO", null for {@link Level#DEBUG}.
+	 * @param logFileName	A file to write to through an {@link AsyncFileEventSink}, null for the console.
+	 * @return	The log.
+	 * @throws Exception	If the level is unknown or the file cannot be opened.
+	 */
+	public static EventLog create(String levelName, String logFileName) throws Exception{
+		Level logLevel = Level.DEBUG;
+		if(levelName != null){
+			try{
+				logLevel = Level.valueOf(levelName.toUpperCase());
+			}catch (IllegalArgumentException e){
+				throw new Exception("Unknown log level "+levelName+". ERROR");
+			}
+		}
+		if(logLevel == Level.OFF)
+			return NONE;
+		if(logFileName == null)
+			return new EventLog(logLevel, new ConsoleEventSink());
+		return new EventLog(logLevel, new AsyncFileEventSink(new File(logFileName)));
+	}
+}
@@ -0,0 +1,22 @@
+package ecshospital;
+
+/**
+ * An <b>EventSink</b> receives the events of an {@link EventLog} that passed its level check.
+ * <p>The message is handed over unformatted, so a sink can format it on another thread or not at all.
+ * @author Man-Leong Chan
+ */
+public interface EventSink {
+	
+	/**
+	 * Write one event.
+	 * @param level		The level of the event.
+	 * @param format	The message with a "{}" for each argument, see {@link EventLog#format(String, Object[])}.
+	 * @param args		The arguments of the message. The sink may keep the array.
+	 */
+	void write(EventLog.Level level, String format, Object[] args);
+	
+	/**
+	 * Write out everything buffered so far and release the sink.
+	 */
+	void close();
+}
@@ -1,5 +1,5 @@
 package ecshospital;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * <b>Health</b> models a person's health. 
@@ -23,13 +23,12 @@ public abstract class Health implements Customizable{
 	private int illness;
 	
 	/**
-	 * Constructor including a HashMap for illness-recovery time. 
-	 * <p>This maps the illness with the required recovery time for illness 1,2&3.
+	 * Constructor for a state of health.
+	 * <p>Recovery times are drawn from the illnesses of the {@link Customizable#illnessCatalogue}.
 	 * 
 	 * @param healthState				Integer representation of the person's health state.
 	 * @param illness					Integer representation of the person's illness.
 	 * @param recoveryTime				Time in days until full recovery.
-	 * @param illnessRecoveryTimeMap	A HashMap for all illness's recovery time.
 	 */
 	Health(int healthState, int illness, int recoveryTime){
 		this.healthState = healthState;
@@ -87,34 +86,24 @@ public abstract class Health implements Customizable{
 	
 	/**
 	 * This method helps to create the random recovery time for illnesses.
+	 * <p>Admitted patients use their hospital's {@link RecoveryTimeSampler} instead, see {@link Patient#getIllnessRecoveryTime(int)}.
 	 * @param illness	The illness that the patient suffers.
 	 * @return		The randomized recovery time.
 	 */
 	public int randomizeRecoveryTime(int illness) throws Exception{
-		if(illnessRecoveryTimeMap.containsKey(illness)){
-			Random randomGenerator = new Random();
-			int randomRecoveryTime;
+		if(illnessCatalogue.hasIllness(illness)){
+			int minRecoveryTime = illnessCatalogue.getMinRecoveryTime(illness);
+			int maxRecoveryTime = illnessCatalogue.getMaxRecoveryTime(illness);
 			
-			Integer[] illnessRecoveryTimeRange = illnessRecoveryTimeMap.get(illness);
-			int minRecoveryTime = illnessRecoveryTimeRange[0];
-			int maxRecoveryTime = illnessRecoveryTimeRange[1];
-			
-			do{
-				/*
-				 * Generate a range of number between 0 - 99.
-				 * Although the maximum illness recovery time so far is 8 days(Semicolon Missing, Trapped Exception),
-				 * This allow the configuration file to create illness with recovery time exceeding 10 days.
-				 */
-				randomRecoveryTime = randomGenerator.nextInt(100);
-			}while(randomRecoveryTime < minRecoveryTime || randomRecoveryTime > maxRecoveryTime);
-			return randomRecoveryTime;
+			//Draw straight from the range, every value being equally likely.
+			return minRecoveryTime + ThreadLocalRandom.current().nextInt(maxRecoveryTime - minRecoveryTime + 1);
 		}else{
 			throw new Exception("This illness does not exist!");
 		}
 	}
 	
 	/**
-	 * This method uses the {@link ecshospital.Customizable#illnessRecoveryTimeMap} to check the recovery time for illness 1-3. The Map is initialized by the constructor.
+	 * This method uses the {@link ecshospital.Customizable#illnessCatalogue} to check the recovery time for the illness.
 	 * @param illness	The illness that the patient suffers.
 	 * @return			The recovery time in days.
 	 * @throws Exception	If illegal illness entered.
@@ -1,6 +1,14 @@
 package ecshospital;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Hospital class implement all the core functionality of a hospital.
@@ -14,7 +22,75 @@ public class Hospital{
 	
 
 	private ArrayList<Patient> beds;
-	private ArrayList<Patient> theatres;
+	
+	/*
+	 * The theatres, their bookings and the waiting list for operations.
+	 */
+	private TheatreScheduler theatreScheduler;
+	
+	/*
+	 * The number of days a treatment on the ward takes, indexed by illness code.
+	 */
+	private int[] treatmentDays;
+	
+	/*
+	 * freeBeds has a bit set for every bed that is currently free.
+	 * lowestFreeBed is a hint: no bed below this index is free, so the search for the next free bed starts there.
+	 */
+	private BitSet freeBeds;
+	private int lowestFreeBed;
+	
+	/*
+	 * Live counters, updated on admission, discharge, theatre preparation and recovery.
+	 * healthStateCount is indexed by health state (0: Healthy, 1: Sick, 2: Recovering) of the patients in beds.
+	 */
+	private int numOfPatients;
+	private int[] healthStateCount;
+	
+	/*
+	 * Sick patients in beds who are not yet taken care of by a doctor, queued by illness.
+	 */
+	private TreatmentQueue untreatedPatients;
+	
+	private EventLog eventLog;
+	
+	private HospitalStatistics statistics;
+	
+	/*
+	 * The recovery time ranges and capability table of the simulation the hospital belongs to.
+	 */
+	private RecoveryTimeSampler recoveryTimeSampler;
+	private CapabilityTable capabilityTable;
+	
+	/*
+	 * The number of times aDayPasses has run, used for the patients' length of stay.
+	 */
+	private int day;
+	
+	/*
+	 * The recoveries and theatre changes due, only kept for the event driven simulation, null otherwise.
+	 */
+	private PriorityQueue<SimulationEvent> events;
+	
+	/*
+	 * The optional columnar store of the patients' state, null unless the hospital was built with columnar beds.
+	 * healthyBeds is the scratch list of beds to discharge after a recovery tick.
+	 */
+	private BedStore bedStore;
+	private int[] healthyBeds;
+	
+	/*
+	 * The phase timers and counters, null when they are switched off.
+	 */
+	private DayTickMetrics metrics;
+	
+	/*
+	 * The pool for the parallel day tick, null for the sequential tick.
+	 * Beds are split into chunks of at least MIN_BEDS_PER_CHUNK, a few per thread.
+	 */
+	private ForkJoinPool tickPool;
+	private static final int MIN_BEDS_PER_CHUNK = 4096;
+	private static final int CHUNKS_PER_THREAD = 4;
 	
 	/**
 	 * Default Hospital Constructor. With 50 beds and 4 theaters.
@@ -32,31 +108,200 @@ public class Hospital{
 	 * @param numOfTheatres	  An integer of the number of theatres.
 	 */
 	Hospital(int numOfBeds,int numOfTheatres){
+		this(numOfBeds,numOfTheatres,false);
+	}
+	
+	/**
+	 * Hospital Constructor with the choice of a columnar bed store.
+	 * <p>
+	 * With columnar beds the state of admitted patients is kept in a {@link BedStore}, and the daily recovery tick
+	 * runs as one loop over primitive arrays whenever the event log is quieter than INFO.
+	 * This pays off for very large bed counts. The {@link Patient} objects keep working as views of their bed.
+	 * 
+	 * @param numOfBeds       An integer of the number of beds.
+	 * @param numOfTheatres	  An integer of the number of theatres.
+	 * @param columnarBeds	  Whether to keep the patients' state in a {@link BedStore}.
+	 */
+	Hospital(int numOfBeds,int numOfTheatres,boolean columnarBeds){
 		
 		beds = new ArrayList<Patient>(numOfBeds);
-		theatres = new ArrayList<Patient>(numOfTheatres);
 
 		for(int i=0;i<numOfBeds;i++){
 			beds.add(null);
 		}
-		for(int i=0;i<numOfTheatres;i++){
-			theatres.add(null);
+		freeBeds = new BitSet(numOfBeds);
+		freeBeds.set(0, numOfBeds);
+		lowestFreeBed = 0;
+		
+		numOfPatients = 0;
+		healthStateCount = new int[3];
+		untreatedPatients = new TreatmentQueue();
+		eventLog = EventLog.CONSOLE;
+		statistics = new HospitalStatistics();
+		theatreScheduler = new TheatreScheduler(numOfTheatres, statistics);
+		treatmentDays = defaultTreatmentDays();
+		recoveryTimeSampler = new RecoveryTimeSampler(Customizable.illnessCatalogue);
+		capabilityTable = new CapabilityTable(Customizable.capabilityTable);
+		day = 0;
+		if(columnarBeds){
+			bedStore = new BedStore(numOfBeds);
+			healthyBeds = new int[numOfBeds];
+		}
+	}
+	
+	/**
+	 * Get the log that the hospital, its doctors and its patients report events to.
+	 * @return	The event log.
+	 */
+	public EventLog getEventLog(){
+		return eventLog;
+	}
+	
+	/**
+	 * Set the log that the hospital, its doctors and its patients report events to.
+	 * @param eventLog	The event log, {@link EventLog#NONE} for a quiet hospital.
+	 */
+	public void setEventLog(EventLog eventLog){
+		this.eventLog = eventLog;
+	}
+	
+	/**
+	 * Opt in to, or out of, the parallel day tick.
+	 * <p>With more than one thread the recovery sweep of {@link #aDayPasses()} is split into chunks of beds that are ticked side by side,
+	 * see {@link RecoveryTick}. The outcome is identical to the sequential tick, including which beds are free the next day.
+	 * The parallel sweep only runs while the event log is quieter than INFO, because per-patient output has to come out in bed order.
+	 * @param numOfThreads	The number of threads, 1 for the sequential tick.
+	 */
+	public void setTickParallelism(int numOfThreads){
+		if(tickPool != null){
+			tickPool.shutdown();
+			tickPool = null;
+		}
+		if(numOfThreads > 1){
+			tickPool = new ForkJoinPool(numOfThreads);
+			if(healthyBeds == null)
+				healthyBeds = new int[beds.size()];
 		}
 	}
 	
+	/**
+	 * Time the phases of the day and count what happens, see {@link DayTickMetrics}.
+	 * @param metrics	The metrics, null to switch them off.
+	 */
+	public void setMetrics(DayTickMetrics metrics){
+		this.metrics = metrics;
+	}
+	
+	/**
+	 * Get the outcome counts of the hospital.
+	 * @return	The statistics.
+	 */
+	public HospitalStatistics getStatistics(){
+		return statistics;
+	}
+	
+	/**
+	 * Get the sampler for the recovery time of patients treated in this hospital.
+	 * @return	The sampler.
+	 */
+	public RecoveryTimeSampler getRecoveryTimeSampler(){
+		return recoveryTimeSampler;
+	}
+	
+	/**
+	 * Set the sampler for the recovery time of patients treated in this hospital.
+	 * @param recoveryTimeSampler	The sampler of the simulation.
+	 */
+	public void setRecoveryTimeSampler(RecoveryTimeSampler recoveryTimeSampler){
+		this.recoveryTimeSampler = recoveryTimeSampler;
+	}
+	
+	/**
+	 * Get the table of what the hospital's doctors can treat.
+	 * @return	The capability table, the hospital's own copy of {@link Customizable#capabilityTable} unless another was set.
+	 */
+	public CapabilityTable getCapabilityTable(){
+		return capabilityTable;
+	}
+	
+	/**
+	 * Set the table of what the hospital's doctors can treat.
+	 * @param capabilityTable	The capability table of the simulation.
+	 */
+	public void setCapabilityTable(CapabilityTable capabilityTable){
+		this.capabilityTable = capabilityTable;
+	}
+	
 	/**
 	 * Return the current number of patients in hospital.
 	 * 
 	 * @return	An integer of the number of patients in hospital.
 	 */
 	public int size(){
-		int numOfPatient=0;
-		Iterator<Patient> it = beds.iterator();
-		while(it.hasNext()){
-			if(it.next() != null)
-				numOfPatient++;
-		}
-		return numOfPatient;
+		return numOfPatients;
+	}
+	
+	/**
+	 * Whether the patients' state is kept in a columnar {@link BedStore}.
+	 * @return	True for columnar beds.
+	 */
+	public boolean isColumnar(){
+		return bedStore != null;
+	}
+	
+	/**
+	 * Get the total number of beds.
+	 * @return	An integer of the number of beds.
+	 */
+	public int getNumOfBeds(){
+		return beds.size();
+	}
+	
+	/**
+	 * Get the number of free beds.
+	 * @return	An integer of the number of beds without a patient.
+	 */
+	public int getNumOfFreeBeds(){
+		return beds.size() - numOfPatients;
+	}
+	
+	/**
+	 * Get the total number of theatres.
+	 * @return	An integer of the number of theatres.
+	 */
+	public int getNumOfTheatres(){
+		return theatreScheduler.size();
+	}
+	
+	/**
+	 * Get the number of free theatres.
+	 * @return	An integer of the number of theatres without a patient.
+	 */
+	public int getNumOfFreeTheatres(){
+		return theatreScheduler.getNumOfFreeTheatres();
+	}
+	
+	/**
+	 * Get the number of patients in beds with the given health state.
+	 * @param healthState	0: Healthy, 1: Sick, 2: Recovering.
+	 * @return	An integer of the number of patients, 0 for an unknown health state.
+	 */
+	public int getNumOfPatients(int healthState){
+		if(healthState < 0 || healthState >= healthStateCount.length)
+			return 0;
+		return healthStateCount[healthState];
+	}
+	
+	/**
+	 * Called by an admitted {@link Patient} whenever its health state changes, so the counters stay up to date.
+	 * @param previousState		The health state before the change.
+	 * @param healthState		The new health state.
+	 */
+	void healthStateChanged(int previousState, int healthState){
+		if(previousState >= 0 && previousState < healthStateCount.length)
+			healthStateCount[previousState]--;
+		if(healthState >= 0 && healthState < healthStateCount.length)
+			healthStateCount[healthState]++;
 	}
 
 	/**
@@ -67,28 +312,50 @@ public class Hospital{
 	 * @throws			Exception if there is no free beds.
 	 */
 	public int admitPatient(Patient patient) throws Exception{
-		Iterator<Patient> it = beds.iterator();
-		int counter = 0;
-		boolean ifFoundABed = false;
-		
+		int bedIndex = tryAdmit(patient);
+		if(bedIndex == -1)
+			throw new Exception("Cannot admit patient: aged "+patient.getAge()+", "+patient.getGender()+". Hospital is full!");
+		return bedIndex;
+	}
+	
+	/**
+	 * Admit Patient, without an Exception when the hospital is full.
+	 * 
+	 * @param patient   A patient who requested for admission.
+	 * @return 			An integer value of the patient's bed number, return -1 if there's no bed.
+	 */
+	public int tryAdmit(Patient patient){
 		/*
-		 * The iterator will loop through and find if there is any free beds represented by "Null".
+		 * The lowest numbered free bed is taken, the same bed the old linear scan would have found.
+		 * The search starts from the lowestFreeBed hint instead of bed 0.
 		 */
-		while(it.hasNext()){
-			Patient nextBed = it.next();
-			if(nextBed == null){
-				beds.set(counter, patient);
-				ifFoundABed = true;
-				//Stop the while loop once it found a free bed.
-				break;
-			}
-			counter++;
+		int bedIndex = freeBeds.nextSetBit(lowestFreeBed);
+		if(bedIndex < 0 || bedIndex >= beds.size()){
+			lowestFreeBed = beds.size();
+			return -1;
 		}
-		if(ifFoundABed == false)
-			throw new Exception("Cannot admit patient: aged "+patient.getAge()+", "+patient.getGender()+". Hospital is full!");
-			//return -1;
 		
-		return counter;
+		beds.set(bedIndex, patient);
+		freeBeds.clear(bedIndex);
+		lowestFreeBed = bedIndex + 1;
+		patient.setBed(bedIndex);
+		if(bedStore != null)
+			patient.attachToBedStore(bedStore, bedIndex);
+		
+		numOfPatients++;
+		healthStateChanged(-1, patient.getHealthState());
+		patient.setHospital(this);
+		patient.setAdmittedDay(day);
+		statistics.recordOccupancy(numOfPatients);
+		if(metrics != null)
+			metrics.admitted();
+		
+		if(patient.getHealthState() == 1 && !patient.takenCareOf())
+			untreatedPatients.add(patient);
+		else if(patient.getHealthState() != 1)
+			recoveryStarted(patient);
+		
+		return bedIndex;
 	}
 	
 	/**
@@ -106,21 +373,173 @@ public class Hospital{
 		try {
 			return beds.get(bedIndex);
 		} catch ( IndexOutOfBoundsException e ) {
-			System.err.println("Invalid bed number entered. The specified bed does not exist!");
+			eventLog.error("Invalid bed number entered. The specified bed does not exist!");
 		}
 		return null;
 	}
 	
+	/**
+	 * Set the policy that picks the next untreated patient for a doctor, see {@link TriagePolicy}.
+	 * @param policy	The triage policy, patients already waiting are kept.
+	 */
+	public void setTriagePolicy(TriagePolicy policy){
+		untreatedPatients.setPolicy(policy);
+	}
+	
+	/**
+	 * Get the policy that picks the next untreated patient for a doctor.
+	 * @return	The triage policy, first come, first served unless another was set.
+	 */
+	public TriagePolicy getTriagePolicy(){
+		return untreatedPatients.getPolicy();
+	}
+	
+	/**
+	 * Take the untreated sick patient that goes first by the triage policy among those a doctor can treat.
+	 * <p>The patient is removed from the waiting queue, the caller is expected to assign it to the doctor.
+	 * @param illnesses		The illness codes the doctor can treat, see {@link Doctors#getTreatableIllnesses()}.
+	 * @return	The patient, null if no suitable patient is waiting.
+	 */
+	public Patient nextUntreatedPatient(int[] illnesses){
+		return untreatedPatients.poll(illnesses, this);
+	}
+	
+	/**
+	 * Take the untreated sick patient with the illness that goes first by the triage policy.
+	 * <p>The patient is removed from the waiting queue, the caller is expected to assign it to a doctor.
+	 * @param illness	The illness code.
+	 * @return	The patient, null if no patient with the illness is waiting.
+	 */
+	public Patient nextUntreatedPatient(int illness){
+		return untreatedPatients.poll(illness, this);
+	}
+	
+	/**
+	 * Give back a patient taken by {@link #nextUntreatedPatient(int[])} or {@link #nextUntreatedPatient(int)} that no doctor could take,
+	 * so it keeps its place in the waiting queue.
+	 * @param patient	The patient, still untreated.
+	 */
+	void returnUntreatedPatient(Patient patient){
+		if(patient.getHospital() == this && patient.getHealthState() == 1 && !patient.takenCareOf())
+			untreatedPatients.putBack(patient);
+	}
+	
+	/**
+	 * Get the number of patients in beds waiting for a doctor.
+	 * @return	The number of patients.
+	 */
+	public int getNumOfUntreatedPatients(){
+		return untreatedPatients.size();
+	}
+	
+	/**
+	 * Get the number of patients with an illness in beds waiting for a doctor.
+	 * @param illness	The illness code.
+	 * @return	The number of patients.
+	 */
+	public int getNumOfUntreatedPatients(int illness){
+		return untreatedPatients.size(illness, this);
+	}
+	
+	/**
+	 * Whether there may be untreated sick patients waiting for a doctor.
+	 * @return	False if no patient is waiting.
+	 */
+	public boolean hasUntreatedPatients(){
+		return !untreatedPatients.isEmpty();
+	}
+	
+	/**
+	 * Whether there may be untreated sick patients with one of the given illnesses waiting for a doctor.
+	 * @param illnesses		The illness codes a doctor can treat.
+	 * @return	False if no such patient is waiting.
+	 */
+	public boolean hasUntreatedPatients(int[] illnesses){
+		return untreatedPatients.hasPatients(illnesses);
+	}
+	
 	/**
 	 * Send patient back home according to the bed index.
 	 * @param bedIndex	An integer of the patient's bed index.
 	 */
 	public void dischargePatient(int bedIndex){
-		if(beds.get(bedIndex) != null){
+		Patient patient = beds.get(bedIndex);
+		if(patient != null){
+			patient.setHospital(null);
+			healthStateChanged(patient.getHealthState(), -1);
+			numOfPatients--;
+			//A patient admitted and discharged on the same day stayed for one day.
+			statistics.recordDischarge(patient.getIllness(), day - patient.getAdmittedDay() + 1);
+			patient.detachFromBedStore();
+			patient.setBed(-1);
+			if(metrics != null)
+				metrics.discharged();
+			
 			beds.set(bedIndex, null);
-			System.out.println("Patient dismissed");
+			freeBeds.set(bedIndex);
+			if(bedIndex < lowestFreeBed)
+				lowestFreeBed = bedIndex;
+			eventLog.info("Patient dismissed");
 		}else
-			System.out.println("There is no one in bed "+bedIndex+"! ERROR");
+			eventLog.error("There is no one in bed {}! ERROR", bedIndex);
+	}
+	
+	/**
+	 * Take a patient out of its bed to move it to another hospital, see {@link HospitalNetwork}. Unlike a discharge this is not counted.
+	 * <p>The patient keeps its bed index and admission day, for {@link #transferBack(Patient)} and the length of stay at the other hospital.
+	 * @param patient	The patient.
+	 * @return	False if the patient is not in this hospital.
+	 */
+	boolean transferOut(Patient patient){
+		int bedIndex = patient.getBed();
+		if(patient.getHospital() != this || bedIndex < 0 || beds.get(bedIndex) != patient)
+			return false;
+		patient.setHospital(null);
+		healthStateChanged(patient.getHealthState(), -1);
+		numOfPatients--;
+		patient.detachFromBedStore();
+		beds.set(bedIndex, null);
+		freeBeds.set(bedIndex);
+		if(bedIndex < lowestFreeBed)
+			lowestFreeBed = bedIndex;
+		if(eventLog.isEnabled(EventLog.Level.INFO))
+			eventLog.info("Patient transferred: aged {}, {}.", patient.getAge(), patient.getGender());
+		return true;
+	}
+	
+	/**
+	 * Put a patient taken out by {@link #transferOut(Patient)} back in its bed, when the other hospital could not take it.
+	 * @param patient	The patient.
+	 * @return	False if its bed has been taken since.
+	 */
+	boolean transferBack(Patient patient){
+		int bedIndex = patient.getBed();
+		if(patient.getHospital() != null || bedIndex < 0 || bedIndex >= beds.size() || beds.get(bedIndex) != null)
+			return false;
+		restoreBed(bedIndex, patient);
+		if(eventLog.isEnabled(EventLog.Level.INFO))
+			eventLog.info("Patient transfer cancelled: aged {}, {}.", patient.getAge(), patient.getGender());
+		return true;
+	}
+	
+	/**
+	 * Admit a patient transferred from another hospital for an operation, and operate at once, see {@link HospitalNetwork}.
+	 * <p>The patient keeps the day it was admitted to the other hospital, so its length of stay covers both, the sites counting days together.
+	 * @param patient	The patient, whose operation was booked in the other hospital.
+	 * @return	False if there is no free bed or theatre, the patient is not admitted then.
+	 */
+	boolean transferInForOperation(Patient patient){
+		if(getNumOfFreeBeds() == 0 || theatreScheduler.findFreeTheatre() == -1)
+			return false;
+		int admittedDay = patient.getAdmittedDay();
+		if(tryAdmit(patient) == -1)
+			return false;
+		patient.setAdmittedDay(admittedDay);
+		prepForTheatre(patient);
+		int recoveryTime = operate(patient);
+		if(eventLog.isEnabled(EventLog.Level.INFO))
+			eventLog.info("Transferred patient operated: aged {}, {}. {} days to recover.", patient.getAge(), patient.getGender(), recoveryTime);
+		return true;
 	}
 	
 	/**
@@ -129,10 +548,7 @@ public class Hospital{
 	 * @return	A boolean of whether the specific theatre is free.
 	 */
 	public boolean isTheatreFree(int theatreIndex){
-		if(theatres.get(theatreIndex) == null)
-			return true;
-		else
-			return false;
+		return theatreScheduler.isTheatreFree(theatreIndex);
 	}
 	
 	/**
@@ -140,22 +556,7 @@ public class Hospital{
 	 * @return	An integer of the theatre index. Return -1 if no theatre available.
 	 */
 	public int findFreeTheatre(){
-		//Iterator<Patient> it = theatres.iterator();
-		int counter;
-		boolean ifFoundATheatre = false;
-
-		for(counter=0;counter<theatres.size();counter++){
-			if(isTheatreFree(counter)){
-				ifFoundATheatre = true;
-				break;
-			}
-		}
-		if(ifFoundATheatre == false){
-			
-			return -1;
-		}else
-			return counter;
-	
+		return theatreScheduler.findFreeTheatre();
 	}
 
 	/**
@@ -164,37 +565,248 @@ public class Hospital{
 	 * @param patient       The patient.
 	 */
 	public void prepForTheatre(int theatreIndex,Patient patient) throws Exception{
-		if(theatres.get(theatreIndex) == null)
-			theatres.set(theatreIndex,patient);
-		else 
+		if(theatreScheduler.isTheatreFree(theatreIndex)){
+			theatreScheduler.claim(theatreIndex, patient, day);
+			theatreOccupied(patient);
+		}else 
 			throw new Exception("Theatre is not free! ERROR");
 	}
 	
 	/**
-	 * Prepare for theatre operation.
+	 * Prepare for theatre operation, in a theatre that is free today.
 	 *
 	 * @param patient       The patient.
 	 * @return  Whether preparation for theatre operation is successful.
 	 */
 	public boolean prepForTheatre(Patient patient){
-		//As default, the hospital has no free theatres.
-		int theatreIndex = 0;
+		int theatreIndex = theatreScheduler.claimFreeTheatre(patient, day);
+		if(theatreIndex == -1)
+			return false;
+		theatreOccupied(patient);
+		return true;
+	}
+	
+	/**
+	 * Put a patient who needs an operation on the theatre waiting list. A theatre slot is booked for it at the end of the day.
+	 * @param patient       The patient.
+	 * @return  False if the hospital has no theatres at all.
+	 */
+	public boolean addToTheatreWaitingList(Patient patient){
+		if(metrics != null)
+			metrics.theatreContended();
+		if(theatreScheduler.size() == 0)
+			return false;
+		theatreScheduler.addToWaitingList(patient, day);
+		return true;
+	}
+	
+	/**
+	 * Operate on a patient who was just put into a theatre, the patient starts recovering.
+	 * <p>The recovery time drawn is counted from the last day of the operation.
+	 * @param patient       The patient.
+	 * @return  The recovery time, counted from today.
+	 */
+	int operate(Patient patient){
+		int illness = patient.getIllness();
+		int recoveryTime = recoveryTimeSampler.nextRecoveryTime(illness) + theatreScheduler.getOperationDays(illness) - 1;
 		
-		//Unless the findFreeTheatre is successful.
-		try{
-			theatreIndex = findFreeTheatre();
-		}catch (Exception e){
-			System.err.println(e);
-		}
+		//Set patient to recovering
+		patient.setHealthState(2);
 		
-		if(theatreIndex != -1){
-			theatres.set(theatreIndex,patient);
-			return true;
-		}else{
-			return false;
-		}
-
+		//Set recovery time for patient
+		patient.setRecoveryTime(recoveryTime);
+		recoveryStarted(patient);
 		
+		return recoveryTime;
+	}
+	
+	/**
+	 * Start keeping the events due, for the event driven simulation. Patients already recovering and theatres already in use are picked up.
+	 */
+	void trackEvents(){
+		if(events != null)
+			return;
+		events = new PriorityQueue<SimulationEvent>();
+		for(int bedIndex=0;bedIndex<beds.size();bedIndex++){
+			Patient patient = beds.get(bedIndex);
+			if(patient != null && patient.getHealthState() != 1)
+				recoveryStarted(patient);
+		}
+		for(int theatreIndex=0;theatreIndex<theatreScheduler.size();theatreIndex++){
+			if(theatreScheduler.getOccupant(theatreIndex) != null)
+				events.add(new SimulationEvent(SimulationEvent.Type.THEATRE_FREE, theatreScheduler.getOperationEnd(theatreIndex) - 1));
+		}
+		bookingMade();
+	}
+	
+	/**
+	 * Note the day a patient who started recovering today becomes healthy. The recovery tick runs later the same day.
+	 * @param patient	The patient.
+	 */
+	void recoveryStarted(Patient patient){
+		if(events == null)
+			return;
+		//A healthy patient is discharged today
+		int dueDay = (patient.getHealthState() == 0) ? day : day + Math.max(patient.getRecoveryTime(), 1) - 1;
+		events.add(new SimulationEvent(SimulationEvent.Type.RECOVERY_COMPLETE, dueDay));
+	}
+	
+	/**
+	 * Note the last day of an operation that started today.
+	 * @param patient	The patient in the theatre.
+	 */
+	private void theatreOccupied(Patient patient){
+		if(events != null)
+			events.add(new SimulationEvent(SimulationEvent.Type.THEATRE_FREE, day + theatreScheduler.getOperationDays(patient.getIllness()) - 1));
+	}
+	
+	/**
+	 * Note the day the next booked operation starts.
+	 */
+	private void bookingMade(){
+		if(events != null && theatreScheduler.getNumOfBookings() > 0)
+			events.add(new SimulationEvent(SimulationEvent.Type.OPERATION_START, theatreScheduler.getNextBookedDay()));
+	}
+	
+	/**
+	 * Get the next day something is due to change in the hospital by itself: a recovery, an operation ending or a booked operation starting.
+	 * <p>Only known after {@link #trackEvents()}.
+	 * @return	The day, Integer.MAX_VALUE if nothing is due.
+	 */
+	int getNextEventDay(){
+		//Drop the events of days gone by
+		while(!events.isEmpty() && events.peek().getDay() < day)
+			events.poll();
+		if(events.isEmpty())
+			return Integer.MAX_VALUE;
+		return events.peek().getDay();
+	}
+	
+	/**
+	 * Let days pass on which nothing but the recovery countdown happens, all in one sweep.
+	 * <p>The caller makes sure that no recovery ends and no theatre changes in those days, see {@link #getNextEventDay()}.
+	 * @param days	The number of days.
+	 */
+	void advanceDays(int days){
+		for(int bedIndex=0;bedIndex<beds.size();bedIndex++){
+			Patient patient = beds.get(bedIndex);
+			if(patient != null && patient.getHealthState() == 2)
+				patient.setRecoveryTime(patient.getRecoveryTime() - days);
+		}
+		statistics.recordTheatreDays((long)(theatreScheduler.size() - theatreScheduler.getNumOfFreeTheatres()) * days);
+		day += days;
+	}
+	
+	/**
+	 * Get the bed of every patient in the hospital, to write references to patients into a snapshot.
+	 * @return	The bed index of each admitted patient.
+	 */
+	Map<Patient, Integer> indexBeds(){
+		Map<Patient, Integer> bedOf = new IdentityHashMap<Patient, Integer>(numOfPatients * 2);
+		for(int bedIndex=0;bedIndex<beds.size();bedIndex++){
+			if(beds.get(bedIndex) != null)
+				bedOf.put(beds.get(bedIndex), bedIndex);
+		}
+		return bedOf;
+	}
+	
+	/**
+	 * Write the beds, the treatment queue, the statistics and the theatres to a snapshot, see {@link HospitalSnapshot}.
+	 * The recovery times and capabilities belong to the administrator and are written by it.
+	 * @param out	The snapshot.
+	 * @throws IOException	If the snapshot cannot be written.
+	 */
+	void writeTo(SnapshotOutput out) throws IOException{
+		out.writeInt(beds.size());
+		out.writeInt(theatreScheduler.size());
+		out.writeBoolean(bedStore != null);
+		out.writeInt(day);
+		out.writeInt(numOfPatients);
+		for(int bedIndex=0;bedIndex<beds.size();bedIndex++){
+			Patient patient = beds.get(bedIndex);
+			if(patient == null)
+				continue;
+			out.writeInt(bedIndex);
+			out.writeChar(patient.getGender());
+			out.writeInt(patient.getAge());
+			out.writeInt(patient.getHealthState());
+			out.writeInt(patient.getIllness());
+			out.writeInt(patient.getRecoveryTime());
+			out.writeBoolean(patient.takenCareOf());
+			out.writeLong(patient.getQueueTicket());
+			out.writeInt(patient.getAdmittedDay());
+		}
+		out.writeLong(untreatedPatients.getNextTicket());
+		statistics.writeTo(out);
+		theatreScheduler.writeTo(out, indexBeds());
+	}
+	
+	/**
+	 * Build a hospital from a snapshot written by {@link #writeTo(SnapshotOutput)}.
+	 * @param in	The snapshot.
+	 * @return	The hospital, with the default recovery times and capabilities until the administrator sets its own.
+	 * @throws IOException	If the snapshot cannot be read or is corrupt.
+	 */
+	static Hospital readFrom(SnapshotInput in) throws IOException{
+		Hospital hospital = new Hospital(in.readLength(), in.readLength(), in.readBoolean());
+		hospital.day = in.readInt();
+		int numOfPatients = in.readLength();
+		ArrayList<Patient> waiting = new ArrayList<Patient>();
+		for(int count=0;count<numOfPatients;count++){
+			int bedIndex = in.readInt();
+			if(bedIndex < 0 || bedIndex >= hospital.beds.size() || hospital.beds.get(bedIndex) != null)
+				throw new IOException("Snapshot is corrupt: bed "+bedIndex+". ERROR");
+			Patient patient;
+			try{
+				patient = new Patient(in.readChar(), in.readInt(), in.readInt(), in.readInt(), in.readInt());
+			}catch(Exception e){
+				throw new IOException("Snapshot is corrupt: "+e.getMessage());
+			}
+			patient.setTakenCareOf(in.readBoolean());
+			patient.setQueueTicket(in.readLong());
+			patient.setAdmittedDay(in.readInt());
+			hospital.restoreBed(bedIndex, patient);
+			if(patient.getHealthState() == 1 && !patient.takenCareOf())
+				waiting.add(patient);
+		}
+		//The treatment queue is first come, first served: put the waiting patients back in ticket order
+		Collections.sort(waiting, new Comparator<Patient>(){
+			public int compare(Patient a, Patient b){
+				return Long.compare(a.getQueueTicket(), b.getQueueTicket());
+			}
+		});
+		for(Patient patient : waiting){
+			hospital.untreatedPatients.restore(patient);
+		}
+		hospital.untreatedPatients.setNextTicket(in.readLong());
+		hospital.statistics.readFrom(in);
+		hospital.theatreScheduler.readFrom(in, hospital.beds);
+		return hospital;
+	}
+	
+	/**
+	 * Put a patient back in its bed without admitting it again, so the statistics and the queue are left alone.
+	 * @param bedIndex	The bed.
+	 * @param patient	The patient.
+	 */
+	private void restoreBed(int bedIndex, Patient patient){
+		beds.set(bedIndex, patient);
+		freeBeds.clear(bedIndex);
+		patient.setBed(bedIndex);
+		if(bedStore != null)
+			patient.attachToBedStore(bedStore, bedIndex);
+		patient.setHospital(this);
+		numOfPatients++;
+		healthStateChanged(-1, patient.getHealthState());
+		lowestFreeBed = 0;
+	}
+	
+	/**
+	 * Get the number of times a day has passed in the hospital.
+	 * @return	The day.
+	 */
+	public int getDay(){
+		return day;
 	}
 	
 	/**
@@ -202,17 +814,111 @@ public class Hospital{
 	 * @param theatreIndex		The theatre that the patient is in.
 	 */
 	public void takeForRecovery(int theatreIndex){
-		theatres.set(theatreIndex, null);
+		theatreScheduler.release(theatreIndex, day);
+	}
+	
+	/**
+	 * Get the theatre scheduler, which holds the theatres, their bookings and the waiting list.
+	 * @return	The theatre scheduler.
+	 */
+	public TheatreScheduler getTheatreScheduler(){
+		return theatreScheduler;
+	}
+	
+	/**
+	 * Get a table of treatment days with every treatment taking 1 day.
+	 * @return	The table, indexed by illness code.
+	 */
+	static int[] defaultTreatmentDays(){
+		int[] treatmentDays = new int[CapabilityTable.MAX_ILLNESS + 1];
+		for(int illness=0;illness<treatmentDays.length;illness++)
+			treatmentDays[illness] = 1;
+		return treatmentDays;
+	}
+	
+	/**
+	 * Set the table of the number of days a treatment on the ward takes. The table is shared, not copied.
+	 * @param treatmentDays		The number of days, indexed by illness code.
+	 */
+	public void setTreatmentDays(int[] treatmentDays){
+		this.treatmentDays = treatmentDays;
+	}
+	
+	/**
+	 * Get the number of days a treatment on the ward for an illness takes, the doctor stays with the patient for all of them.
+	 * @param illness	The illness code.
+	 * @return	The number of days, at least 1.
+	 */
+	public int getTreatmentDays(int illness){
+		if(illness < 0 || illness >= treatmentDays.length)
+			return 1;
+		return treatmentDays[illness];
+	}
+	
+	/**
+	 * Set the table of the number of days an operation takes. The table is shared, not copied.
+	 * @param operationDays		The number of days, indexed by illness code.
+	 */
+	public void setOperationDays(int[] operationDays){
+		theatreScheduler.setOperationDays(operationDays);
 	}
 	
 	/**
 	 * Simulate all task that a Hospital should run. 
 	 * <p>
-	 * Take all patient from operation theatre back to their beds.
+	 * Start the operations booked for today, then take all patient whose operation is over from operation theatre back to their beds.
 	 */
 	public boolean aDayPasses(){
 		
-		//Trigger aDayPasses on all Patient
+		long time = (metrics != null) ? System.nanoTime() : 0;
+		Patient patientToOperate;
+		while((patientToOperate = theatreScheduler.startNextBookedOperation(day)) != null){
+			theatreOccupied(patientToOperate);
+			int recoveryTime = operate(patientToOperate);
+			if(eventLog.isEnabled(EventLog.Level.INFO)){
+				eventLog.info("Booked operation started for patient: aged {}, {}.", patientToOperate.getAge(), patientToOperate.getGender());
+				eventLog.info("Patient requires {} days to recover.", recoveryTime);
+			}
+		}
+		if(metrics != null)
+			time = metrics.phaseEnded(DayTickMetrics.Phase.TREATMENT, time);
+		
+		//With nothing to report, the sweep could be split over several threads
+		if(tickPool != null && !eventLog.isEnabled(EventLog.Level.INFO)){
+			patientsADayPassesInParallel();
+		//With columnar beds and nothing to report, recover everybody in one pass over the bed store
+		}else if(bedStore != null && !eventLog.isEnabled(EventLog.Level.INFO)){
+			int healthyBefore = healthStateCount[0];
+			int numOfHealthy = bedStore.recoverOneDay(0, beds.size(), healthyBeds, 0);
+			
+			//Every bed listed beyond those already healthy belongs to a patient who recovered today
+			int recovered = numOfHealthy - healthyBefore;
+			healthStateCount[2] -= recovered;
+			healthStateCount[0] += recovered;
+			for(int i=0;i<numOfHealthy;i++)
+				dischargePatient(healthyBeds[i]);
+		}else{
+			patientsADayPasses();
+		}
+		if(metrics != null)
+			time = metrics.phaseEnded(DayTickMetrics.Phase.RECOVERY, time);
+		
+		//Empty the theatres whose operation is over and book the waiting list
+		theatreScheduler.endOfDay(day);
+		bookingMade();
+		if(metrics != null)
+			metrics.phaseEnded(DayTickMetrics.Phase.THEATRE, time);
+		
+		day++;
+		
+		return true;
+		
+	}
+	
+	/**
+	 * Trigger aDayPasses on all Patient, and discharge those who are healthy.
+	 */
+	private void patientsADayPasses(){
 		Iterator<Patient> PatientADayPasses = beds.iterator();
 		int bedIndex = 0;
 		while(PatientADayPasses.hasNext()){
@@ -224,19 +930,42 @@ public class Hospital{
 			}
 			bedIndex++;
 		}
-		
-		//Empty Theatres
-		Iterator<Patient> emptyTheatre = theatres.iterator();
-		int theatreIndex=0;
-		while(emptyTheatre.hasNext()){
-			Patient theatre = emptyTheatre.next();
-			if(theatre != null)
-				takeForRecovery(theatreIndex);
-			theatreIndex++;
+	}
+	
+	/**
+	 * The recovery sweep split into chunks of beds on the tickPool.
+	 * <p>The chunks only decrement recovery times and list healthy beds. Counters are corrected and beds discharged afterwards,
+	 * chunk by chunk in bed order, so the free beds and statistics come out exactly as in the sequential sweep.
+	 */
+	private void patientsADayPassesInParallel(){
+		int numOfBeds = beds.size();
+		int numOfChunks = Math.max(1, Math.min(tickPool.getParallelism() * CHUNKS_PER_THREAD, numOfBeds / MIN_BEDS_PER_CHUNK));
+		ArrayList<RecoveryTick> chunks = new ArrayList<RecoveryTick>(numOfChunks);
+		for(int chunk=0;chunk<numOfChunks;chunk++){
+			int from = (int)((long)numOfBeds * chunk / numOfChunks);
+			int to = (int)((long)numOfBeds * (chunk + 1) / numOfChunks);
+			chunks.add(new RecoveryTick(beds, bedStore, from, to, healthyBeds));
 		}
 		
-		return true;
+		for(int chunk=0;chunk<numOfChunks;chunk++)
+			tickPool.execute(chunks.get(chunk));
+		for(int chunk=0;chunk<numOfChunks;chunk++)
+			chunks.get(chunk).join();
 		
+		int healthyBefore = healthStateCount[0];
+		int numOfHealthy = 0;
+		for(int chunk=0;chunk<numOfChunks;chunk++)
+			numOfHealthy += chunks.get(chunk).getNumOfHealthy();
+		
+		//Every bed listed beyond those already healthy belongs to a patient who recovered today
+		int recovered = numOfHealthy - healthyBefore;
+		healthStateCount[2] -= recovered;
+		healthStateCount[0] += recovered;
+		
+		for(int chunk=0;chunk<numOfChunks;chunk++){
+			RecoveryTick tick = chunks.get(chunk);
+			for(int i=tick.getFrom();i<tick.getFrom()+tick.getNumOfHealthy();i++)
+				dischargePatient(healthyBeds[i]);
+		}
 	}
 }
-
@@ -1,9 +1,16 @@
 package ecshospital;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 /**
  * <b>Hospital Administrator</b> controls the entire workflow of the ECS hospital. 
@@ -12,23 +19,129 @@ import java.io.FileReader;
  */
 public class HospitalAdministrator implements Customizable{
 	
+	/**
+	 * @param TRIAGE_WINDOW  How many patients beyond the free beds a triage policy may look at, so the queue does not hold every patient the source has.
+	 */
+	private static final int TRIAGE_WINDOW = 64;
+	
 	/**
 	 * @param doctorList  An arrayList of Doctors.
 	 */
 	private ArrayList<Doctors> doctorList;
+	
+	/*
+	 * Doctors by their index in doctorList: availableDoctors has one set per specialism of the doctors free to take a patient,
+	 * busyDoctors has the doctors with a patient, who may carry it over several days.
+	 * candidateDoctors has the free doctors the first-fit pass of a day visits, kept between days so the day allocates nothing.
+	 */
+	private BitSet[] availableDoctors;
+	private BitSet busyDoctors;
+	private BitSet candidateDoctors;
+	/**
+	 * @param incomingPatients  The Patients waiting for a bed, a first-in first-out queue unless the triage policy orders them by priority.
+	 */
+	private Queue<Patient> incomingPatients;
+	/**
+	 * @param triagePolicy  Which waiting patient goes first, for a bed and for a doctor, see {@link TriagePolicy}.
+	 */
+	private TriagePolicy triagePolicy;
 	/**
-	 * @param incomingPatients  An arrayList of Patients.
+	 * @param nextAdmissionTicket  The queue ticket of the next patient to join incomingPatients, so patients of the same priority keep their order.
 	 */
-	private ArrayList<Patient> incomingPatients;
+	private long nextAdmissionTicket;
+	/**
+	 * @param hospitalUnderPressure  Whether patients were left waiting for a bed after the last admissions.
+	 */
+	private boolean hospitalUnderPressure;
 	/**
 	 * @param daysSinceStarted  An integer of Days since the hospital started working.
 	 */
 	private int daysSinceStarted;
 	
-	private BufferedReader reader;
+	/**
+	 * @param patientSource  Where patients come from once incomingPatients is empty, read only when there is a free bed.
+	 */
+	private PatientSource patientSource;
+	/**
+	 * @param arrivalGenerator  The generator of the "arrival" lines of the configuration, null if there are none.
+	 */
+	private PatientArrivalGenerator arrivalGenerator;
+	
+	/*
+	 * The prefixes of the configuration lines, in ASCII for the ConfigurationScanner.
+	 */
+	private static final byte[] HOSPITAL = "hospital".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] PATIENT = "patient".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] DOCTOR = "doctor".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] SURGEON = "surgeon".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] LIMB_SURGEON = "limbSurgeon".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] ORGAN_SURGEON = "organSurgeon".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] NEW_ILLNESS = "newIllness".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] CAPABILITY = "capability".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] OPERATION = "operation".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] TREATMENT = "treatment".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] ILLNESS = "illness".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] ARRIVAL = "arrival".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] ARRIVAL_BURST = "arrivalBurst".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] ARRIVAL_GENDER = "arrivalGender".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] ARRIVAL_AGE = "arrivalAge".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] ARRIVAL_DAYS = "arrivalDays".getBytes(StandardCharsets.US_ASCII);
+	
+	/*
+	 * Mixed into the recovery time seed to seed the arrival generator, so the two draw different numbers.
+	 */
+	private static final long ARRIVAL_SEED_MIX = 0x6a09e667f3bcc909L;
+	
+	/*
+	 * The doctor class names of the configuration file, indexed by specialism code, see {@link #specialismCode(String)}.
+	 */
+	private static final String[] SPECIALISMS = {"doctor","doctor","surgeon","limbSurgeon","organSurgeon"};
 	
 	private Hospital hospital;
 	
+	/**
+	 * @param eventLog  Where the administrator, the hospital, its doctors and patients report events.
+	 */
+	private EventLog eventLog;
+	
+	/**
+	 * @param recoveryTimeSampler  The simulation's own illness recovery time ranges and random number generator.
+	 */
+	private RecoveryTimeSampler recoveryTimeSampler;
+	/**
+	 * @param capabilities  The simulation's own copy of the {@link Customizable#capabilityTable}.
+	 */
+	private CapabilityTable capabilities;
+	/**
+	 * @param operationDays  The number of days an operation takes, indexed by illness code, see {@link TheatreScheduler}.
+	 */
+	private int[] operationDays;
+	/**
+	 * @param treatmentDays  The number of days a treatment on the ward takes, indexed by illness code, see {@link Hospital#getTreatmentDays(int)}.
+	 */
+	private int[] treatmentDays;
+	/**
+	 * @param columnarBeds  Whether the hospital is built with a columnar {@link BedStore}.
+	 */
+	private boolean columnarBeds;
+	/**
+	 * @param tickParallelism  The number of threads for the hospital's day tick, see {@link Hospital#setTickParallelism(int)}.
+	 */
+	private int tickParallelism = 1;
+	/**
+	 * @param metrics  The phase timers and counters of the day, see {@link DayTickMetrics}. Null when they are switched off.
+	 */
+	private DayTickMetrics metrics;
+	/**
+	 * @param assignmentSolver  Plans the doctors' assignments of each day, see {@link StaffAssignmentSolver}. Null for first fit.
+	 */
+	private StaffAssignmentSolver assignmentSolver;
+	/*
+	 * The free doctors by specialism and the waiting patients by illness, handed to the assignment solver.
+	 */
+	private int[] freeDoctors;
+	private int[] waitingPatients;
+	
 	/**
 	 * It initialize a list of doctors and incoming Patients.
 	 * <p>doctorList: A list of doctors working in the hospital.
@@ -36,120 +149,440 @@ public class HospitalAdministrator implements Customizable{
 	 */
 	HospitalAdministrator(){
 		doctorList = new ArrayList<Doctors>();
-		incomingPatients= new ArrayList<Patient>();
+		availableDoctors = new BitSet[5];
+		for(int specialism=0;specialism<availableDoctors.length;specialism++)
+			availableDoctors[specialism] = new BitSet();
+		busyDoctors = new BitSet();
+		candidateDoctors = new BitSet();
+		incomingPatients= new ArrayDeque<Patient>();
+		triagePolicy = TriagePolicy.FIRST_COME;
+		eventLog = EventLog.CONSOLE;
 		
-		/*
-		 * illnessRecoveryTimeMap maps the range of recovery time needed from a particular illness. 
-		 * The key contains the illness that the patient could suffer from.
-		 * The value contains an array of two numbers which indicates the range of possible recovery time needed.
-		 */
-		illnessRecoveryTimeMap.put(1, new Integer[] {5,5});
-		illnessRecoveryTimeMap.put(2, new Integer[] {3,3});
-		illnessRecoveryTimeMap.put(3, new Integer[] {1,1});
-		illnessRecoveryTimeMap.put(4, new Integer[] {2,4});
-		illnessRecoveryTimeMap.put(5, new Integer[] {5,8});
-		illnessRecoveryTimeMap.put(6, new Integer[] {6,8});
-		illnessRecoveryTimeMap.put(7, new Integer[] {4,6});
-		illnessRecoveryTimeMap.put(8, new Integer[] {2,3});
+		//The default illnesses never change, the capabilities are copied, so that simulations never share settings or random numbers.
+		recoveryTimeSampler = new RecoveryTimeSampler(illnessCatalogue);
+		capabilities = new CapabilityTable(capabilityTable);
+		operationDays = TheatreScheduler.defaultOperationDays();
+		treatmentDays = Hospital.defaultTreatmentDays();
+	}
+	
+	/**
+	 * Constructor for a simulation with the illnesses, capabilities, operations, treatments and arrivals read by another administrator,
+	 * e.g. for one scenario of a {@link ScenarioSweep}. It has no hospital, doctors or patients yet.
+	 * <p>The capability table and the operation and treatment days are shared with the other administrator, read only.
+	 * The recovery times and the arrivals get their own generators.
+	 * @param template		The administrator whose configuration has been read. It must not read any more.
+	 * @param seed			The seed of the recovery times and the arrivals, like --seed.
+	 * @param loadFactor	The factor applied to the arrival rates, 1 for the configured load.
+	 */
+	HospitalAdministrator(HospitalAdministrator template, long seed, double loadFactor){
+		this();
+		recoveryTimeSampler = new RecoveryTimeSampler(template.recoveryTimeSampler, seed);
+		capabilities = template.capabilities;
+		operationDays = template.operationDays;
+		treatmentDays = template.treatmentDays;
+		if(template.arrivalGenerator != null)
+			arrivalGenerator = new PatientArrivalGenerator(template.arrivalGenerator, seed ^ ARRIVAL_SEED_MIX, loadFactor);
+	}
+	
+	/**
+	 * Choose whether the hospital imported from the configuration keeps its patients' state in a columnar {@link BedStore}.
+	 * Must be set before the configuration is read.
+	 * @param columnarBeds	True for columnar beds.
+	 */
+	public void setColumnarBeds(boolean columnarBeds){
+		this.columnarBeds = columnarBeds;
+	}
+	
+	/**
+	 * Choose the number of threads for the hospital's day tick, see {@link Hospital#setTickParallelism(int)}.
+	 * @param tickParallelism	The number of threads, 1 for the sequential tick.
+	 */
+	public void setTickParallelism(int tickParallelism){
+		this.tickParallelism = tickParallelism;
+		if(hospital != null)
+			hospital.setTickParallelism(tickParallelism);
+	}
+	
+	/**
+	 * Time the phases of each day and count what happens in them, see {@link DayTickMetrics}. The metrics are passed on to the hospital.
+	 * @param metrics	The metrics, null to switch them off.
+	 */
+	public void setMetrics(DayTickMetrics metrics){
+		this.metrics = metrics;
+		if(hospital != null)
+			hospital.setMetrics(metrics);
+	}
+	
+	/**
+	 * Set the policy that picks the next waiting patient, for a bed and for a doctor. It is passed on to the hospital.
+	 * <p>Patients already waiting are kept. Set it after the configuration is read, as a severity policy ranks the illnesses configured then.
+	 * @param triagePolicy	The triage policy.
+	 */
+	public void setTriagePolicy(TriagePolicy triagePolicy){
+		Queue<Patient> waiting = incomingPatients;
+		this.triagePolicy = triagePolicy;
+		if(triagePolicy.isFirstCome())
+			incomingPatients = new ArrayDeque<Patient>();
+		else
+			incomingPatients = new PriorityQueue<Patient>(Math.max(11, waiting.size()), triagePolicy);
+		while(!waiting.isEmpty())
+			incomingPatients.add(waiting.poll());
+		if(hospital != null)
+			hospital.setTriagePolicy(triagePolicy);
+	}
+	
+	/**
+	 * Get the policy that picks the next waiting patient.
+	 * @return	The triage policy, first come, first served unless another was set.
+	 */
+	public TriagePolicy getTriagePolicy(){
+		return triagePolicy;
+	}
+	
+	/**
+	 * Choose how free doctors are matched to waiting patients each day.
+	 * <p>First fit, the default, lets each free doctor in turn take the patient who goes first among those it can take care of.
+	 * Optimal assignment first plans the day with a {@link StaffAssignmentSolver}: as many patients as possible get a doctor,
+	 * and surgeons are kept for the patients only they can help. Any doctor left free then goes first fit.
+	 * @param optimalAssignment	True for optimal assignment, false for first fit.
+	 */
+	public void setOptimalAssignment(boolean optimalAssignment){
+		if(!optimalAssignment){
+			assignmentSolver = null;
+			return;
+		}
+		if(assignmentSolver == null){
+			assignmentSolver = new StaffAssignmentSolver(availableDoctors.length, CapabilityTable.MAX_ILLNESS + 1);
+			freeDoctors = new int[availableDoctors.length];
+			waitingPatients = new int[CapabilityTable.MAX_ILLNESS + 1];
+		}
+	}
+	
+	/**
+	 * Whether free doctors are matched to waiting patients by optimal assignment.
+	 * @return	False for first fit.
+	 */
+	public boolean isOptimalAssignment(){
+		return assignmentSolver != null;
+	}
+	
+	/**
+	 * Get the phase timers and counters of the day.
+	 * @return	The metrics, null if they are switched off.
+	 */
+	public DayTickMetrics getMetrics(){
+		return metrics;
+	}
+	
+	/**
+	 * Get the simulation's recovery time sampler, e.g. to seed it.
+	 * @return	The sampler.
+	 */
+	public RecoveryTimeSampler getRecoveryTimeSampler(){
+		return recoveryTimeSampler;
+	}
+	
+	/**
+	 * Get the event log of the simulation.
+	 * @return	The event log.
+	 */
+	public EventLog getEventLog(){
+		return eventLog;
+	}
+	
+	/**
+	 * Set the event log of the simulation, it is passed on to the hospital.
+	 * @param eventLog	The event log, {@link EventLog#NONE} for a quiet run.
+	 */
+	public void setEventLog(EventLog eventLog){
+		this.eventLog = eventLog;
+		if(hospital != null)
+			hospital.setEventLog(eventLog);
 	}
 	
 	/**
 	 * Read configuration file "myHospital.txt".
-	 * <p>The program will import all the patients and doctors, it will also construct the basics of the hospital.
+	 * <p>The program will import the doctors and illnesses, it will also construct the basics of the hospital.
+	 * The patients are streamed from the file as beds become free, see {@link #readConfiguration(ConfigurationScanner)}.
 	 * @param configurationFile		The configuration file imported.
 	 * @return		The hospital constructed.
 	 */
 	public Hospital readConfigurationFile(File configurationFile){
 		
+		ConfigurationScanner scanner;
 		try{
-			System.out.println("/////////////////////////////////");
-			System.out.println("Importing settings...");
-			System.out.println();
-			
-			reader = new BufferedReader(new FileReader(configurationFile));
-			String str;
-			
-			//Tagging the doctors with ID, starting from 1.
-			int doctorID = 1;
-			
-			//Read file line by line
-			while ((str = reader.readLine()) != null){
+			scanner = new ConfigurationScanner(new FileInputStream(configurationFile).getChannel());
+		}catch (Exception e){
+			eventLog.error("Reading error occured");
+			return hospital;
+		}
+		
+		return readConfiguration(scanner);
+	}
 	
-				//Split them into questions and answers
-				String[] parts = str.split(":",2);
+	/**
+	 * Read the configuration in the format of "myHospital.txt" from a reader, see {@link #readConfigurationFile(File)}.
+	 * <p>The configuration is read into memory first.
+	 * @param reader	The configuration.
+	 * @return		The hospital constructed.
+	 */
+	public Hospital readConfiguration(BufferedReader reader){
+		StringBuilder text = new StringBuilder();
+		try{
+			String line;
+			while((line = reader.readLine()) != null)
+				text.append(line).append('\n');
+		}catch (IOException e){
+			eventLog.error("Reading error occured");
+			return hospital;
+		}
+		return readConfiguration(new ConfigurationScanner(text.toString().getBytes()));
+	}
+	
+	/**
+	 * Read the configuration in the format of "myHospital.txt" in two passes.
+	 * <p>
+	 * The first pass imports everything but the patients: the hospital, doctors, illnesses, capabilities, operations and treatments.
+	 * The second pass is left to a {@link ConfigurationPatientSource}, which reads the "patient:" lines one at a time as beds become free.
+	 * So a patient line may come before the illness it refers to.
+	 * <p>An invalid line is reported with its line number and skipped.
+	 * @param scanner	The configuration, the patient source closes it once all patients are read.
+	 * @return		The hospital constructed.
+	 */
+	public Hospital readConfiguration(ConfigurationScanner scanner){
+		
+		eventLog.info("/////////////////////////////////");
+		eventLog.info("Importing settings...");
+		eventLog.info("");
+		
+		//Tagging the doctors with ID, starting from 1.
+		int doctorID = 1;
+		//Changes to the illnesses, which the simulation takes on at the end of the first pass.
+		IllnessCatalogue.Builder illnesses = new IllnessCatalogue.Builder(recoveryTimeSampler.getIllnessCatalogue());
+		
+		try{
+			//Read file line by line
+			while (scanner.nextLine()){
 				
 				/*
 				 * Prefix contain the class that would like to be initialized. E.g. 'hospital','Patient'...
-				 * Suffix contain the parameters of the class which would be initialized.
+				 * The fields after the ':' contain the parameters of the class which would be initialized.
 				 */
-				String prefix = parts[0];
-				String suffix = parts[1];
-				
+				if(!scanner.hasPrefix()){
+					eventLog.error("Line {}: \"{}\" has no ':'. Line skipped.", scanner.getLineNumber(), scanner.getPrefix());
+					continue;
+				}
 				
-				if(prefix.equals("hospital")){
-					try{
-						String[] spec = suffix.split(",", 2);
-						try {
-							//setHospital(Integer.parseInt(spec[0]),Integer.parseInt(spec[1]));
-							hospital = new Hospital(Integer.parseInt(spec[0]),Integer.parseInt(spec[1]));
-							System.out.println("Hospital with "+Integer.parseInt(spec[0])+" beds and "+Integer.parseInt(spec[1])+" theatres created!");
-						} catch (NumberFormatException e) {
-						      System.err.println("Invalid hospital configuration.");
-						}
-					}catch (Exception e){
-						System.err.println(e);
+				if(scanner.prefixIs(PATIENT)){
+					//Patients are streamed in the second pass
+				}else if(scanner.prefixIs(HOSPITAL)){
+					try {
+						createHospital(scanner.getInt(0),scanner.getInt(1));
+					} catch (NumberFormatException e) {
+					      eventLog.error("Line {}: Invalid hospital configuration.", scanner.getLineNumber());
+					}
+				}else if(scanner.prefixIs(DOCTOR) || scanner.prefixIs(SURGEON) || scanner.prefixIs(LIMB_SURGEON) || scanner.prefixIs(ORGAN_SURGEON)){
+					String prefix = scanner.getPrefix();
+					try {
+						addDoctor(doctorID,scanner.getChar(0),scanner.getInt(1),prefix,hospital);
+						eventLog.debug("{}: {}. IMPORTED.", prefix, scanner.getSuffix());
+					} catch (NumberFormatException e) {
+					      eventLog.error("Line {}: Invalid doctor configuration.", scanner.getLineNumber());
+					} catch (Exception e){
+						eventLog.error("Line {}: {}", scanner.getLineNumber(), e);
+					}
+					doctorID++;
+				}else if (scanner.prefixIs(NEW_ILLNESS)){
+					try {
+						addIllness(illnesses,scanner.getInt(0),scanner.getInt(1),scanner.getInt(2));
+						eventLog.info("New illness {} IMPORTED.", scanner.getInt(0));
+					} catch (NumberFormatException e) {
+					      eventLog.error("Line {}: Invalid illness configuration.", scanner.getLineNumber());
+					} catch (Exception e){
+						eventLog.error("Line {}: {}", scanner.getLineNumber(), e);
 					}
-				}else if(prefix.equals("patient")){
-					try{
-						String[] spec = suffix.split(",", 4);
-						try {
-							addPatient(spec[0].charAt(0),Integer.parseInt(spec[1]),Integer.parseInt(spec[2]),Integer.parseInt(spec[3]));
-							System.out.println("Patient: "+suffix+". IMPORTED.");
-						} catch (NumberFormatException e) {
-						      System.err.println("Invalid patient configuration.");
-						}
-					}catch (Exception e){
-						System.err.println(e);
+				}else if (scanner.prefixIs(CAPABILITY)){
+					try {
+						capabilities.setCapability(specialismCode(scanner.getString(0)),scanner.getInt(1),CapabilityTable.parseCapability(scanner.getString(2)));
+						eventLog.info("Capability: {}. IMPORTED.", scanner.getSuffix());
+					} catch (NumberFormatException e) {
+					      eventLog.error("Line {}: Invalid capability configuration.", scanner.getLineNumber());
+					} catch (Exception e){
+						eventLog.error("Line {}: {}", scanner.getLineNumber(), e);
 					}
-				}else if(prefix.equals("doctor") || prefix.equals("surgeon") || prefix.equals("limbSurgeon") || prefix.equals("organSurgeon")){
-					try{
-						String[] spec = suffix.split(",", 2);
-						try {
-							addDoctor(doctorID,spec[0].charAt(0),Integer.parseInt(spec[1]),prefix,hospital);
-							System.out.println(prefix+": "+suffix+". IMPORTED.");
-						} catch (NumberFormatException e) {
-						      System.err.println("Invalid doctor configuration.");
-						}
-						doctorID++;
-					}catch (Exception e){
-						System.err.println(e);
+				}else if (scanner.prefixIs(OPERATION)){
+					try {
+						setOperationDays(scanner.getInt(0),scanner.getInt(1));
+						eventLog.info("Operation: {}. IMPORTED.", scanner.getSuffix());
+					} catch (NumberFormatException e) {
+					      eventLog.error("Line {}: Invalid operation configuration.", scanner.getLineNumber());
+					} catch (Exception e){
+						eventLog.error("Line {}: {}", scanner.getLineNumber(), e);
 					}
-				}else if (prefix.equals("illness")){
-					try{
-						String[] spec = suffix.split(",", 3);
-						try {
-							modifyIllnessRecoveryTime(Integer.parseInt(spec[0]),Integer.parseInt(spec[1]),Integer.parseInt(spec[2]));
-							System.out.println("Illness configuration IMPORTED.");
-						} catch (NumberFormatException e) {
-						      System.err.println("Invalid patient configuration.");
-						}
-					}catch (Exception e){
-						System.err.println(e);
+				}else if (scanner.prefixIs(TREATMENT)){
+					try {
+						setTreatmentDays(scanner.getInt(0),scanner.getInt(1));
+						eventLog.info("Treatment: {}. IMPORTED.", scanner.getSuffix());
+					} catch (NumberFormatException e) {
+					      eventLog.error("Line {}: Invalid treatment configuration.", scanner.getLineNumber());
+					} catch (Exception e){
+						eventLog.error("Line {}: {}", scanner.getLineNumber(), e);
+					}
+				}else if (scanner.prefixIs(ARRIVAL)){
+					try {
+						int illness = scanner.getInt(0);
+						if(!illnesses.hasIllness(illness))
+							throw new Exception("Arrivals of unknown illness "+illness+"! ERROR");
+						getArrivalGenerator().setArrivalRate(illness,scanner.getDouble(1));
+						eventLog.info("Arrival: {}. IMPORTED.", scanner.getSuffix());
+					} catch (NumberFormatException e) {
+					      eventLog.error("Line {}: Invalid arrival configuration.", scanner.getLineNumber());
+					} catch (Exception e){
+						eventLog.error("Line {}: {}", scanner.getLineNumber(), e);
+					}
+				}else if (scanner.prefixIs(ARRIVAL_BURST)){
+					try {
+						getArrivalGenerator().setBurst(scanner.getInt(0),scanner.getDouble(1),scanner.getDouble(2),scanner.getDouble(3));
+						eventLog.info("Arrival burst: {}. IMPORTED.", scanner.getSuffix());
+					} catch (NumberFormatException e) {
+					      eventLog.error("Line {}: Invalid arrival burst configuration.", scanner.getLineNumber());
+					} catch (Exception e){
+						eventLog.error("Line {}: {}", scanner.getLineNumber(), e);
+					}
+				}else if (scanner.prefixIs(ARRIVAL_GENDER)){
+					try {
+						getArrivalGenerator().setMaleShare(scanner.getDouble(0));
+						eventLog.info("Arrival gender: {}. IMPORTED.", scanner.getSuffix());
+					} catch (NumberFormatException e) {
+					      eventLog.error("Line {}: Invalid arrival gender configuration.", scanner.getLineNumber());
+					} catch (Exception e){
+						eventLog.error("Line {}: {}", scanner.getLineNumber(), e);
+					}
+				}else if (scanner.prefixIs(ARRIVAL_AGE)){
+					try {
+						getArrivalGenerator().addAgeBand(scanner.getInt(0),scanner.getInt(1),scanner.getDouble(2));
+						eventLog.info("Arrival age: {}. IMPORTED.", scanner.getSuffix());
+					} catch (NumberFormatException e) {
+					      eventLog.error("Line {}: Invalid arrival age configuration.", scanner.getLineNumber());
+					} catch (Exception e){
+						eventLog.error("Line {}: {}", scanner.getLineNumber(), e);
+					}
+				}else if (scanner.prefixIs(ARRIVAL_DAYS)){
+					try {
+						getArrivalGenerator().setLastDay(scanner.getInt(0));
+						eventLog.info("Arrival days: {}. IMPORTED.", scanner.getSuffix());
+					} catch (NumberFormatException e) {
+					      eventLog.error("Line {}: Invalid arrival days configuration.", scanner.getLineNumber());
+					} catch (Exception e){
+						eventLog.error("Line {}: {}", scanner.getLineNumber(), e);
+					}
+				}else if (scanner.prefixIs(ILLNESS)){
+					try {
+						modifyIllnessRecoveryTime(illnesses,scanner.getInt(0),scanner.getInt(1),scanner.getInt(2));
+						eventLog.info("Illness configuration IMPORTED.");
+					} catch (NumberFormatException e) {
+					      eventLog.error("Line {}: Invalid illness configuration.", scanner.getLineNumber());
+					} catch (Exception e){
+						eventLog.error("Line {}: {}", scanner.getLineNumber(), e);
 					}
 				}
 			}
-			System.out.println("File Successfully imported.");
-		}catch (Exception e){
-			System.err.println("Reading error occured");
+			
+			recoveryTimeSampler.setIllnessCatalogue(illnesses.build());
+			
+			//Second pass: the patients
+			scanner.rewind();
+			if(arrivalGenerator == null)
+				setPatientSource(new ConfigurationPatientSource(this, scanner));
+			else
+				setPatientSource(new ChainedPatientSource(new ConfigurationPatientSource(this, scanner), arrivalGenerator));
+			eventLog.info("File Successfully imported.");
+		}catch (IOException e){
+			eventLog.error("Reading error occured: {}", e);
 		}
 		
 		
-		System.out.println("/////////////////////////////////");
-		System.out.println();
-		System.out.println();
+		eventLog.info("/////////////////////////////////");
+		eventLog.info("");
+		eventLog.info("");
 		
 		return hospital;
 	}
+	
+	/**
+	 * Create the hospital, like a "hospital:" line of the configuration, with this simulation's illnesses, capabilities and settings.
+	 * @param numOfBeds			The number of beds.
+	 * @param numOfTheatres		The number of theatres.
+	 * @return	The hospital.
+	 */
+	public Hospital createHospital(int numOfBeds, int numOfTheatres){
+		hospital = new Hospital(numOfBeds,numOfTheatres,columnarBeds);
+		hospital.setEventLog(eventLog);
+		hospital.setRecoveryTimeSampler(recoveryTimeSampler);
+		hospital.setCapabilityTable(capabilities);
+		hospital.setOperationDays(operationDays);
+		hospital.setTreatmentDays(treatmentDays);
+		hospital.setTickParallelism(tickParallelism);
+		hospital.setMetrics(metrics);
+		hospital.setTriagePolicy(triagePolicy);
+		eventLog.info("Hospital with {} beds and {} theatres created!", hospital.getNumOfBeds(), hospital.getNumOfTheatres());
+		return hospital;
+	}
+	
+	/**
+	 * Take the patients of a configuration in the format of "myHospital.txt", streamed from its "patient:" lines, followed by the arrivals.
+	 * The other lines are left alone, see {@link #HospitalAdministrator(HospitalAdministrator, long, double)} for sharing them.
+	 * @param configuration		The configuration, which is only read.
+	 */
+	void readPatients(byte[] configuration){
+		PatientSource patients = new ConfigurationPatientSource(this, new ConfigurationScanner(configuration));
+		if(arrivalGenerator == null)
+			setPatientSource(patients);
+		else
+			setPatientSource(new ChainedPatientSource(patients, arrivalGenerator));
+	}
+	
+	/**
+	 * Get the generator of the patients arriving day by day, made on first use and seeded from the recovery time sampler.
+	 * <p>It is configured by these lines, which come after the "newIllness:" lines:
+	 * <p>arrival:ILLNESS,RATE - on average RATE patients with the illness arrive per day, e.g. "arrival:1,2.5".
+	 * <p>arrivalBurst:ILLNESS,FACTOR,START,END - bursts at FACTOR times the rate start with chance START on a calm day and end with chance END.
+	 * <p>arrivalGender:SHARE - the share of men, 0.5 by default.
+	 * <p>arrivalAge:MIN,MAX,WEIGHT - an age band, ages 0 to 90 if there is none.
+	 * <p>arrivalDays:DAY - the last day on which patients arrive. Without it the simulation only stops at its day limit.
+	 * @return	The generator, see {@link PatientArrivalGenerator}.
+	 */
+	public PatientArrivalGenerator getArrivalGenerator(){
+		if(arrivalGenerator == null)
+			arrivalGenerator = new PatientArrivalGenerator(recoveryTimeSampler.getState() ^ ARRIVAL_SEED_MIX);
+		return arrivalGenerator;
+	}
+	
+	/**
+	 * Set where patients come from once the queue of patients added with {@link #addPatient(char, int, int, int)} is empty.
+	 * <p>A source set before is closed.
+	 * @param patientSource		The source, null for none.
+	 */
+	public void setPatientSource(PatientSource patientSource){
+		if(this.patientSource != null && this.patientSource != patientSource)
+			this.patientSource.close();
+		this.patientSource = patientSource;
+	}
+	
+	/**
+	 * Get where patients come from once the admission queue is empty.
+	 * @return	The source, null for none.
+	 */
+	PatientSource getPatientSource(){
+		return patientSource;
+	}
+	
+	/**
+	 * Close the patient source, if there is one.
+	 */
+	public void closePatientSource(){
+		setPatientSource(null);
+	}
 
 	/**
 	 * Import patient using the information given in the configuration file "myHospital.txt".
@@ -162,18 +595,48 @@ public class HospitalAdministrator implements Customizable{
 	 * @throws Exception		Throw invalid information error.
 	 */
 	public void addPatient(char gender,int age,int illness,int recoveryTime) throws Exception{
+		addIncomingPatient(createPatient(gender,age,illness,recoveryTime));
+	}
+	
+	/**
+	 * Put a patient in the admission queue, at the end of those with its priority, e.g. one routed here by a {@link HospitalNetwork}.
+	 * @param patient	The patient.
+	 */
+	void addIncomingPatient(Patient patient){
+		patient.setQueueTicket(nextAdmissionTicket++);
+		incomingPatients.add(patient);
+	}
+	
+	/**
+	 * Get the hospital imported from the configuration.
+	 * @return	The hospital, null if none was imported.
+	 */
+	public Hospital getHospital(){
+		return hospital;
+	}
+	
+	/**
+	 * Create a patient from the information given in the configuration file, see {@link #addPatient(char, int, int, int)}.
+	 * @param gender			The gender of the patient.
+	 * @param age				The age of the patient.
+	 * @param illness			The illness that the patient suffers.
+	 * @param recoveryTime		The time it takes to recover (days), -1 if the patient requires treatment.
+	 * @return		The patient.
+	 * @throws Exception		Throw invalid information error.
+	 */
+	Patient createPatient(char gender,int age,int illness,int recoveryTime) throws Exception{
 		
 		//Error checking, including illness and recovery time.
-		if(illness < 0 || illness >8)
+		if(illness < 0 || (illness > 0 && !recoveryTimeSampler.hasIllness(illness)))
 			throw new Exception("Invalid illness code entered! ERROR");
 		else if(recoveryTime < -1)
 			throw new Exception("Invalid recovery time entered! ERROR");
 		else if(recoveryTime == -1){
 			//If the patient requires treatment.
-			incomingPatients.add(new Patient(gender,age,1,illness,recoveryTime));
+			return new Patient(gender,age,1,illness,recoveryTime);
 		}else{
 			//If the patient doesn't require doctor's attention.
-			incomingPatients.add(new Patient(gender,age,2,illness,recoveryTime));
+			return new Patient(gender,age,2,illness,recoveryTime);
 		}
 	}
 
@@ -197,20 +660,77 @@ public class HospitalAdministrator implements Customizable{
 			doctorList.add(new OrganSurgeon(iD,gender,age,hospital));
 		else 
 			throw new Exception("Create new Doctor error! Unknown doctor class"+specialism+". ERROR");
+		
+		//A new doctor starts in the availability pool of its specialism
+		int index = doctorList.size() - 1;
+		availableDoctors[doctorList.get(index).getSpecialism()].set(index);
+	}
+	
+	/**
+	 * Turn a doctor class name from the configuration file into its specialism code.
+	 * @param specialism	"doctor", "surgeon", "limbSurgeon" or "organSurgeon".
+	 * @return	The specialism code, see {@link Doctors#getSpecialism()}.
+	 * @throws Exception	Throw invalid doctor specialism.
+	 */
+	public int specialismCode(String specialism) throws Exception{
+		if(specialism.equals("doctor"))
+			return 1;
+		else if(specialism.equals("surgeon"))
+			return 2;
+		else if(specialism.equals("limbSurgeon"))
+			return 3;
+		else if(specialism.equals("organSurgeon"))
+			return 4;
+		else
+			throw new Exception("Unknown doctor class "+specialism+". ERROR");
+	}
+	
+	/**
+	 * Add a new illness to the simulation's {@link IllnessCatalogue}, which is replaced by a new one.
+	 * <p>Which doctors can take care of it is set with "capability:" lines, see {@link CapabilityTable}.
+	 * @param illness			The new illness ID.
+	 * @param minRecoveryTime	The minimum recovery time for the illness.
+	 * @param maxRecoveryTime	The maximum recovery time for the illness.
+	 * @throws Exception		If the illness already exists or if illegal parameter passed.
+	 */
+	public void addIllness(int illness, int minRecoveryTime, int maxRecoveryTime) throws Exception{
+		IllnessCatalogue.Builder illnesses = new IllnessCatalogue.Builder(recoveryTimeSampler.getIllnessCatalogue());
+		addIllness(illnesses, illness, minRecoveryTime, maxRecoveryTime);
+		recoveryTimeSampler.setIllnessCatalogue(illnesses.build());
 	}
 	
 	/**
-	 * Modify the recovery time for illness. This changes the <i>illnessRecoveryTimeMap</i> in the Customizable interface.
+	 * Add a new illness to the illnesses being built.
+	 */
+	private void addIllness(IllnessCatalogue.Builder illnesses, int illness, int minRecoveryTime, int maxRecoveryTime) throws Exception{
+		if(illness > 0 && illness <= CapabilityTable.MAX_ILLNESS && minRecoveryTime > 0 && maxRecoveryTime > 0 && minRecoveryTime <= maxRecoveryTime){
+			if(illnesses.hasIllness(illness))
+				throw new Exception("This illness already exists!");
+			illnesses.setRecoveryTimeRange(illness, minRecoveryTime, maxRecoveryTime);
+		}else
+			throw new Exception("Illegal parameters passed.");
+	}
+	
+	/**
+	 * Modify the recovery time for illness. This replaces the simulation's {@link IllnessCatalogue} by a new one, the defaults in the Customizable interface are left alone.
 	 * @param illness			The illness ID.
 	 * @param minRecoveryTime	The minimum recovery time for the illness.
 	 * @param maxRecoveryTime	The maximum recovery time for the illness.
 	 * @throws Exception		If the illness entered does not exist or if illegal parameter passed.
 	 */
 	public void modifyIllnessRecoveryTime(int illness, int minRecoveryTime, int maxRecoveryTime) throws Exception{
+		IllnessCatalogue.Builder illnesses = new IllnessCatalogue.Builder(recoveryTimeSampler.getIllnessCatalogue());
+		modifyIllnessRecoveryTime(illnesses, illness, minRecoveryTime, maxRecoveryTime);
+		recoveryTimeSampler.setIllnessCatalogue(illnesses.build());
+	}
+	
+	/**
+	 * Modify the recovery time for an illness among the illnesses being built.
+	 */
+	private void modifyIllnessRecoveryTime(IllnessCatalogue.Builder illnesses, int illness, int minRecoveryTime, int maxRecoveryTime) throws Exception{
 		if(illness > 0 && minRecoveryTime > 0 && maxRecoveryTime > 0 && minRecoveryTime <= maxRecoveryTime){
-			Integer[] illnessRecoveryTimeRange = new Integer[] {minRecoveryTime,maxRecoveryTime};
-			if(illnessRecoveryTimeMap.containsKey(illness))
-				illnessRecoveryTimeMap.put(illness, illnessRecoveryTimeRange);
+			if(illnesses.hasIllness(illness))
+				illnesses.setRecoveryTimeRange(illness, minRecoveryTime, maxRecoveryTime);
 			else{
 				throw new Exception("This illness does not exist!");
 			}	
@@ -219,40 +739,143 @@ public class HospitalAdministrator implements Customizable{
 	}
 
 	/**
-	 * Admits incoming patients from the arrayList incomingPatients.
+	 * Set the number of days an operation for an illness keeps its theatre, 1 by default.
+	 * <p>The patient's recovery time is counted from the last day of the operation.
+	 * @param illness	The illness ID.
+	 * @param days		The number of days.
+	 * @throws Exception	If illegal parameter passed.
+	 */
+	public void setOperationDays(int illness, int days) throws Exception{
+		if(illness > 0 && illness <= CapabilityTable.MAX_ILLNESS && days > 0)
+			operationDays[illness] = days;
+		else
+			throw new Exception("Illegal parameters passed.");
+	}
+
+	/**
+	 * Set the number of days a treatment on the ward for an illness takes, 1 by default.
+	 * <p>The doctor stays with the patient until the last day, when the patient starts recovering.
+	 * @param illness	The illness ID.
+	 * @param days		The number of days.
+	 * @throws Exception	If illegal parameter passed.
+	 */
+	public void setTreatmentDays(int illness, int days) throws Exception{
+		if(illness > 0 && illness <= CapabilityTable.MAX_ILLNESS && days > 0)
+			treatmentDays[illness] = days;
+		else
+			throw new Exception("Illegal parameters passed.");
+	}
+
+	/**
+	 * Add an illness of another simulation to this one, with its recovery times, what each specialism can do for it and its operation and
+	 * treatment days, e.g. an illness of a {@link HospitalNetwork}'s region for one of its sites.
+	 * @param other		The simulation the illness comes from.
+	 * @param illness	The illness ID.
+	 * @throws Exception	If the illness already exists here or does not exist in the other simulation.
+	 */
+	void addIllness(HospitalAdministrator other, int illness) throws Exception{
+		RecoveryTimeSampler illnesses = other.recoveryTimeSampler;
+		if(!illnesses.hasIllness(illness))
+			throw new Exception("Illness "+illness+" does not exist! ERROR");
+		addIllness(illness, illnesses.getMinRecoveryTime(illness), illnesses.getMaxRecoveryTime(illness));
+		for(int specialism=1;specialism<SPECIALISMS.length;specialism++)
+			capabilities.setCapability(specialism, illness, other.capabilities.lookup(specialism, illness));
+		operationDays[illness] = other.operationDays[illness];
+		treatmentDays[illness] = other.treatmentDays[illness];
+	}
+
+	/**
+	 * Get the number of doctors who have a patient.
+	 * @return	The count.
+	 */
+	public int getNumOfBusyDoctors(){
+		return busyDoctors.cardinality();
+	}
+
+	/**
+	 * Get the number of doctors of a specialism who are free to take a patient.
+	 * @param specialism	The specialism code.
+	 * @return	The count.
+	 */
+	public int getNumOfAvailableDoctors(int specialism){
+		if(specialism < 0 || specialism >= availableDoctors.length)
+			return 0;
+		return availableDoctors[specialism].cardinality();
+	}
+
+	/**
+	 * Admits incoming patients from the queue incomingPatients, then from the patient source.
+	 * <p>
+	 * Patients are admitted in the order they arrived, for as long as the hospital has a free bed.
+	 * It stops as soon as the hospital is full, and the patients left in the queue keep their place for the next day.
+	 * Patients not yet taken from the source stay there.
 	 * <p>
-	 * If the method from {@link Hospital#admitPatient(Patient)} returns -1, it would output a line saying "Hospital is full".
-	 * It will stop trying to admit more patients from the arrayList incomingPatients.
+	 * With a triage policy other than first come, first served, the patients who have arrived are taken from the source into the queue first,
+	 * so that they can be compared, and the patient who goes first by the policy is admitted first.
+	 * The queue is only filled up to the free beds and {@link #TRIAGE_WINDOW} more patients; the rest wait in the source in the order they arrived.
 	 * <p>
-	 * This admit patient right away when a bed is available. 
+	 * If patients are left waiting, the hospital is under pressure, see {@link #isHospitalUnderPressure()}.
 	 * 
 	 * @param hospital  The Hospital.
 	 */
 	public void admitPatients(Hospital hospital){
-		Iterator<Patient> it = incomingPatients.iterator();
-		boolean hospitalUnderPressure = false;
-		int incomingPatientsIndex = 0;
-		while(it.hasNext()){
-			Patient patientToAdmit = it.next();
-			if(patientToAdmit != null){
-				try{
-					hospital.admitPatient(patientToAdmit);
-					System.out.println("Patient admitted: Aged "+patientToAdmit.getAge()+", "+patientToAdmit.getGender()+".");
-					//Remove the admitted patient from the arrayList incomingPatients
-					incomingPatients.set(incomingPatientsIndex, null);
-				}catch (Exception e){
-					System.err.println(e);
-				}
+		if(!triagePolicy.isFirstCome() && patientSource != null){
+			int lookAhead = hospital.getNumOfFreeBeds() + TRIAGE_WINDOW;
+			while(incomingPatients.size() < lookAhead && patientSource.getNextArrivalDay() <= daysSinceStarted){
+				Patient patient = patientSource.nextPatient(daysSinceStarted);
+				if(patient == null)
+					break;
+				addIncomingPatient(patient);
 			}
-			incomingPatientsIndex++;
 		}
+		while(hospital.getNumOfFreeBeds() > 0){
+			Patient patientToAdmit = incomingPatients.poll();
+			if(patientToAdmit == null && patientSource != null)
+				patientToAdmit = patientSource.nextPatient(daysSinceStarted);
+			if(patientToAdmit == null)
+				break;
+			if(hospital.tryAdmit(patientToAdmit) != -1){
+				if(eventLog.isEnabled(EventLog.Level.INFO))
+					eventLog.info("Patient admitted: Aged {}, {}.", patientToAdmit.getAge(), patientToAdmit.getGender());
+			}else if(eventLog.isEnabled(EventLog.Level.WARN))
+				eventLog.warn("Cannot admit patient: aged {}, {}. Hospital is full!", patientToAdmit.getAge(), patientToAdmit.getGender());
+		}
+		
+		hospitalUnderPressure = !incomingPatients.isEmpty() || (patientSource != null && patientSource.getNextArrivalDay() <= daysSinceStarted);
 		if(hospitalUnderPressure){
-			System.out.println(">>>>>>>>>>>>>>>>>>>>>>>");
-			System.out.println("Hospital is under pressure: No Free Beds!");
-			System.out.println(">>>>>>>>>>>>>>>>>>>>>>>");
+			eventLog.warn(">>>>>>>>>>>>>>>>>>>>>>>");
+			if(patientSource != null)
+				eventLog.warn("Hospital is under pressure: No Free Beds! Patients waiting.");
+			else if(eventLog.isEnabled(EventLog.Level.WARN))
+				eventLog.warn("Hospital is under pressure: No Free Beds! {} patients waiting.", incomingPatients.size());
+			eventLog.warn(">>>>>>>>>>>>>>>>>>>>>>>");
 		}
 		
 	}
+	
+	/**
+	 * Whether patients were left waiting for a bed after the last admissions.
+	 * @return	True if there is a backlog.
+	 */
+	public boolean isHospitalUnderPressure(){
+		return hospitalUnderPressure;
+	}
+	
+	/**
+	 * Whether patients are still to be admitted, from the admission queue or the patient source.
+	 * @return	False once every patient has been admitted.
+	 */
+	public boolean hasPatientsToCome(){
+		return !incomingPatients.isEmpty() || (patientSource != null && patientSource.getNextArrivalDay() != Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Get the number of patients waiting for a bed.
+	 * @return	The length of the admission queue, not counting the patients still in the patient source.
+	 */
+	public int getNumOfWaitingPatients(){
+		return incomingPatients.size();
+	}
 
 	/**
 	 * Start simulation.
@@ -264,23 +887,288 @@ public class HospitalAdministrator implements Customizable{
 		readConfigurationFile(configurationFile);
 		
 		//Simulate a day until all patients are cured.
+		simulate(Integer.MAX_VALUE);
+		closePatientSource();
+		
+		//Write out any buffered events
+		eventLog.close();
+	}
+	
+	/**
+	 * Simulate the imported hospital day by day until all patients are cured, or until <i>maxDays</i> days have passed.
+	 * <p>Like {@link #go(HospitalAdministrator, File)} at least one day is simulated.
+	 * @param maxDays	The most days to simulate.
+	 * @return	The outcome of the run, null if no hospital was imported.
+	 */
+	public SimulationResult simulate(int maxDays){
+		if(hospital == null){
+			eventLog.error("No hospital imported! ERROR");
+			return null;
+		}
+		
+		int daysSimulated = 0;
 		do{
 			try {
-				aDayPasses(hA);
+				aDayPasses(this);
 				//Slow a day passes by 0.5 seconds
 				/*try{
 					Thread.sleep(500);
 				}catch (InterruptedException e){}*/
 			} catch (Exception e) {
-				System.err.println(e);
+				eventLog.error("{}", e);
 			}
-		}while(hospital.size() > 0);
+			daysSimulated++;
+		}while((hospital.size() > 0 || hasPatientsToCome()) && daysSimulated < maxDays);
 		
+		return new SimulationResult(daysSinceStarted, hospital, hospital.size() == 0 && !hasPatientsToCome());
+	}
+	
+	/**
+	 * Run the simulation like {@link #simulate(int)}, but jump over the days on which nothing happens.
+	 * <p>
+	 * The hospital keeps a priority queue of the recoveries and theatre changes due, see {@link SimulationEvent}.
+	 * A day is stepped through as usual when an event is due, when a patient can be admitted, when a free doctor can take a waiting patient,
+	 * or when a doctor finishes a treatment. The days in between only count down recoveries, and are applied in one sweep by {@link #advanceDays(int)}.
+	 * <p>The end state is the same as day by day, but nothing is reported for the days jumped over.
+	 * @param maxDays	The maximum number of days to simulate.
+	 * @return		The result, null if no hospital was imported.
+	 */
+	public SimulationResult simulateEventDriven(int maxDays){
+		if(hospital == null){
+			eventLog.error("No hospital imported! ERROR");
+			return null;
+		}
+		hospital.trackEvents();
+		
+		int daysSimulated = 0;
+		do{
+			//Days before the next event only count down recoveries. With nothing ever due, the day is stepped through as usual.
+			int nextEventDay = getNextEventDay();
+			long idleDays = (nextEventDay == Integer.MAX_VALUE) ? 0 : Math.min((long)nextEventDay - daysSinceStarted, maxDays - daysSimulated);
+			if(idleDays > 0){
+				advanceDays((int)idleDays);
+				daysSimulated += idleDays;
+				if(daysSimulated >= maxDays)
+					break;
+			}
+			
+			try {
+				aDayPasses(this);
+			} catch (Exception e) {
+				eventLog.error("{}", e);
+			}
+			daysSimulated++;
+		}while((hospital.size() > 0 || hasPatientsToCome()) && daysSimulated < maxDays);
+		
+		return new SimulationResult(daysSinceStarted, hospital, hospital.size() == 0 && !hasPatientsToCome());
+	}
+	
+	/**
+	 * Get the next day on which something happens besides the recovery countdown.
+	 * @return	The day, Integer.MAX_VALUE if nothing will ever happen.
+	 */
+	private int getNextEventDay(){
+		int today = daysSinceStarted;
+		
+		int nextEventDay = hospital.getNextEventDay();
+		
+		//Admission
+		if(hospital.getNumOfFreeBeds() > 0){
+			if(!incomingPatients.isEmpty())
+				return today;
+			if(patientSource != null)
+				nextEventDay = Math.min(nextEventDay, Math.max(today, patientSource.getNextArrivalDay()));
+		}
+		
+		//A free doctor for a waiting patient
+		for(int specialism=0;specialism<availableDoctors.length;specialism++){
+			if(!availableDoctors[specialism].isEmpty() && hospital.hasUntreatedPatients(capabilities.getIllnesses(specialism)))
+				return today;
+		}
+		
+		//Treatment done, or a doctor who tries again every day
+		for(int i=busyDoctors.nextSetBit(0);i>=0;i=busyDoctors.nextSetBit(i+1)){
+			int daysLeft = doctorList.get(i).getTreatmentDaysLeft();
+			if(daysLeft == 0)
+				return today;
+			nextEventDay = Math.min(nextEventDay, today + daysLeft - 1);
+		}
+		return nextEventDay;
+	}
+	
+	/**
+	 * Let days pass on which nothing happens but the recovery countdown and treatments under way, see {@link #simulateEventDriven(int)}.
+	 * @param days	The number of days.
+	 */
+	public void advanceDays(int days){
+		hospital.advanceDays(days);
+		for(int i=busyDoctors.nextSetBit(0);i>=0;i=busyDoctors.nextSetBit(i+1))
+			doctorList.get(i).continueTreatment(days);
+		daysSinceStarted += days;
 	}
 
+	/**
+	 * Write the whole state of the simulation to a snapshot, see {@link HospitalSnapshot}.
+	 * <p>Patients the patient source has already let arrive are moved into the admission queue first, so they are saved with it.
+	 * The source itself is not saved: for a configuration file that is every patient still to come.
+	 * The arrival generator is saved whole, with the patients waiting in it, so the arrivals go on after a resume as they would have.
+	 * @param out	The snapshot.
+	 * @throws IOException	If the snapshot cannot be written, or no hospital was imported.
+	 */
+	void writeTo(SnapshotOutput out) throws IOException{
+		if(hospital == null)
+			throw new IOException("No hospital imported! ERROR");
+		
+		//The generator is left alone, drawing its patients now would change the run
+		PatientSource arrived = patientSource;
+		PatientArrivalGenerator generator = null;
+		if(arrivalGenerator != null && patientSource == arrivalGenerator){
+			arrived = null;
+			generator = arrivalGenerator;
+		}else if(arrivalGenerator != null && patientSource instanceof ChainedPatientSource
+				&& ((ChainedPatientSource)patientSource).getSecond() == arrivalGenerator){
+			arrived = ((ChainedPatientSource)patientSource).getFirst();
+			generator = arrivalGenerator;
+		}
+		if(arrived != null){
+			while(arrived.getNextArrivalDay() <= daysSinceStarted){
+				Patient patient = arrived.nextPatient(daysSinceStarted);
+				if(patient == null)
+					break;
+				addIncomingPatient(patient);
+			}
+		}
+		
+		out.writeInt(daysSinceStarted);
+		out.writeBoolean(hospitalUnderPressure);
+		recoveryTimeSampler.writeTo(out);
+		capabilities.writeTo(out);
+		out.writeIntArray(operationDays);
+		out.writeIntArray(treatmentDays);
+		hospital.writeTo(out);
+		
+		//In the order they will be admitted, a heap does not iterate in order
+		ArrayList<Patient> waiting = new ArrayList<Patient>(incomingPatients);
+		if(!triagePolicy.isFirstCome())
+			Collections.sort(waiting, triagePolicy);
+		out.writeInt(waiting.size());
+		for(Patient patient : waiting){
+			out.writeChar(patient.getGender());
+			out.writeInt(patient.getAge());
+			out.writeInt(patient.getHealthState());
+			out.writeInt(patient.getIllness());
+			out.writeInt(patient.getRecoveryTime());
+		}
+		
+		//Doctors with the bed of their patient, -1 for none
+		Map<Patient, Integer> bedOf = hospital.indexBeds();
+		out.writeInt(doctorList.size());
+		for(Doctors doctor : doctorList){
+			out.writeInt(doctor.getID());
+			out.writeChar(doctor.getGender());
+			out.writeInt(doctor.getAge());
+			out.writeInt(doctor.getSpecialism());
+			Patient patient = doctor.getAssignedPatient();
+			out.writeInt(patient == null ? -1 : bedOf.get(patient));
+			out.writeInt(doctor.getDaysTreating());
+		}
+		
+		out.writeBoolean(generator != null);
+		if(generator != null)
+			generator.writeTo(out);
+	}
+	
+	/**
+	 * Replace the whole state of the simulation with one read from a snapshot written by {@link #writeTo(SnapshotOutput)}.
+	 * <p>The event log, the tick parallelism and the triage policy of this administrator are kept, the hospital gets its columnar beds from the snapshot.
+	 * A saved arrival generator becomes the patient source.
+	 * @param in	The snapshot.
+	 * @throws IOException	If the snapshot cannot be read or is corrupt.
+	 */
+	void readFrom(SnapshotInput in) throws IOException{
+		closePatientSource();
+		arrivalGenerator = null;
+		daysSinceStarted = in.readInt();
+		hospitalUnderPressure = in.readBoolean();
+		recoveryTimeSampler.readFrom(in);
+		capabilities.readFrom(in);
+		operationDays = in.readIntArray();
+		treatmentDays = in.readIntArray();
+		if(operationDays.length != CapabilityTable.MAX_ILLNESS + 1 || treatmentDays.length != CapabilityTable.MAX_ILLNESS + 1)
+			throw new IOException("Snapshot is corrupt: illness table size. ERROR");
+		
+		hospital = Hospital.readFrom(in);
+		columnarBeds = hospital.isColumnar();
+		hospital.setEventLog(eventLog);
+		hospital.setRecoveryTimeSampler(recoveryTimeSampler);
+		hospital.setCapabilityTable(capabilities);
+		hospital.setOperationDays(operationDays);
+		hospital.setTreatmentDays(treatmentDays);
+		hospital.setTickParallelism(tickParallelism);
+		hospital.setMetrics(metrics);
+		hospital.setTriagePolicy(triagePolicy);
+		
+		try{
+			incomingPatients.clear();
+			for(int count=in.readLength();count>0;count--)
+				addIncomingPatient(new Patient(in.readChar(), in.readInt(), in.readInt(), in.readInt(), in.readInt()));
+			
+			doctorList.clear();
+			busyDoctors.clear();
+			for(int specialism=0;specialism<availableDoctors.length;specialism++)
+				availableDoctors[specialism].clear();
+			for(int count=in.readLength();count>0;count--){
+				int iD = in.readInt();
+				char gender = in.readChar();
+				int age = in.readInt();
+				int specialism = in.readInt();
+				if(specialism < 1 || specialism >= SPECIALISMS.length)
+					throw new IOException("Snapshot is corrupt: specialism "+specialism+". ERROR");
+				addDoctor(iD, gender, age, SPECIALISMS[specialism], hospital);
+				
+				int bed = in.readInt();
+				int daysTreating = in.readInt();
+				if(bed != -1){
+					Patient patient = hospital.getPatient(bed);
+					if(patient == null)
+						throw new IOException("Snapshot is corrupt: no patient in bed "+bed+". ERROR");
+					int index = doctorList.size() - 1;
+					doctorList.get(index).restoreAssignment(patient, daysTreating);
+					availableDoctors[specialism].clear(index);
+					busyDoctors.set(index);
+				}
+			}
+			
+			if(in.readBoolean()){
+				arrivalGenerator = PatientArrivalGenerator.readFrom(in);
+				setPatientSource(arrivalGenerator);
+			}
+		}catch (IOException e){
+			throw e;
+		}catch (Exception e){
+			throw new IOException("Snapshot is corrupt: "+e.getMessage());
+		}
+	}
+	
 	/**
 	 * Starts the program by calling go().
 	 * This import the configuration file.
+	 * <p>Options after the configuration file:
+	 * <p>--log=LEVEL: only report events from LEVEL up (DEBUG, INFO, WARN, ERROR or OFF).
+	 * <p>--logfile=FILE: write the events to FILE from a background thread instead of the console.
+	 * <p>--batch: run without any event output (unless --log is given) and print a one line summary of the run, see {@link SimulationResult}.
+	 * <p>--days=N: stop after N days even if patients are left.
+	 * <p>--seed=N: seed the recovery times, so that the run can be repeated.
+	 * <p>--columnar: keep the patients' state in a columnar {@link BedStore}, for very large hospitals.
+	 * <p>--parallel=N: split the daily recovery sweep over N threads, see {@link Hospital#setTickParallelism(int)}.
+	 * <p>--events: jump over the days on which nothing happens, see {@link #simulateEventDriven(int)}.
+	 * <p>--save=FILE: save the state of the simulation to FILE when it stops, see {@link HospitalSnapshot}. Use with --days.
+	 * <p>--resume: the file given is a snapshot saved with --save, the simulation goes on from where it stopped.
+	 * <p>--metrics=FILE: time the phases of each day and write a row every --metrics-every=N days (1 by default) to FILE,
+	 * CSV or JSON lines if FILE ends with ".json", see {@link DayTickMetrics}. The totals are printed at the end.
+	 * <p>--jmx: time the phases of each day and publish the figures through JMX while the simulation runs.
+	 * <p>--matching=optimal: plan the doctors' assignments of each day for the most patients, keeping surgeons for surgical cases, see {@link #setOptimalAssignment(boolean)}.
+	 * <p>--triage=POLICY: pick the next patient for a bed and for a doctor by "first-come" (the default), "age" or "severity", see {@link TriagePolicy}.
 	 * 
 	 * @param args
 	 */
@@ -294,7 +1182,128 @@ public class HospitalAdministrator implements Customizable{
 		    configurationFile = new File(filename);
 		  }
 		
-		hA.go(hA,configurationFile);
+		String logLevel = null;
+		String logFile = null;
+		boolean batch = false;
+		boolean eventDriven = false;
+		boolean resume = false;
+		String saveFile = null;
+		String metricsFile = null;
+		int metricsEvery = 1;
+		boolean jmx = false;
+		String triage = null;
+		int maxDays = Integer.MAX_VALUE;
+		for(int i=1;i<args.length;i++){
+			if(args[i].startsWith("--log="))
+				logLevel = args[i].substring("--log=".length());
+			else if(args[i].startsWith("--logfile="))
+				logFile = args[i].substring("--logfile=".length());
+			else if(args[i].equals("--batch"))
+				batch = true;
+			else if(args[i].equals("--events"))
+				eventDriven = true;
+			else if(args[i].equals("--resume"))
+				resume = true;
+			else if(args[i].startsWith("--save="))
+				saveFile = args[i].substring("--save=".length());
+			else if(args[i].startsWith("--metrics="))
+				metricsFile = args[i].substring("--metrics=".length());
+			else if(args[i].equals("--jmx"))
+				jmx = true;
+			else if(args[i].equals("--matching=optimal"))
+				hA.setOptimalAssignment(true);
+			else if(args[i].equals("--matching=first-fit"))
+				hA.setOptimalAssignment(false);
+			else if(args[i].startsWith("--triage="))
+				triage = args[i].substring("--triage=".length());
+			else if(args[i].startsWith("--metrics-every=")){
+				try{
+					metricsEvery = Integer.parseInt(args[i].substring("--metrics-every=".length()));
+				}catch (NumberFormatException e){
+					System.err.println("Invalid metrics interval "+args[i]+" ignored.");
+				}
+			}
+			else if(args[i].equals("--columnar"))
+				hA.setColumnarBeds(true);
+			else if(args[i].startsWith("--parallel=")){
+				try{
+					hA.setTickParallelism(Integer.parseInt(args[i].substring("--parallel=".length())));
+				}catch (NumberFormatException e){
+					System.err.println("Invalid thread count "+args[i]+" ignored.");
+				}
+			}
+			else if(args[i].startsWith("--days=")){
+				try{
+					maxDays = Integer.parseInt(args[i].substring("--days=".length()));
+				}catch (NumberFormatException e){
+					System.err.println("Invalid day limit "+args[i]+" ignored.");
+				}
+			}else if(args[i].startsWith("--seed=")){
+				try{
+					hA.getRecoveryTimeSampler().setSeed(Long.parseLong(args[i].substring("--seed=".length())));
+				}catch (NumberFormatException e){
+					System.err.println("Invalid seed "+args[i]+" ignored.");
+				}
+			}else
+				System.err.println("Unknown option "+args[i]+" ignored.");
+		}
+		if(batch && logLevel == null)
+			logLevel = "OFF";
+		try{
+			hA.setEventLog(EventLog.create(logLevel, logFile));
+		}catch (Exception e){
+			System.err.println(e);
+		}
+		
+		if(metricsFile != null || jmx){
+			DayTickMetrics metrics = new DayTickMetrics();
+			try{
+				if(metricsFile != null)
+					metrics.dumpTo(metricsFile, metricsEvery);
+				if(jmx)
+					metrics.register(configurationFile == null ? "simulation" : configurationFile.getName());
+			}catch (Exception e){
+				System.err.println("Cannot publish metrics: "+e);
+			}
+			hA.setMetrics(metrics);
+		}
+		
+		if(batch || eventDriven || resume || saveFile != null || triage != null || maxDays != Integer.MAX_VALUE){
+			if(resume){
+				try{
+					HospitalSnapshot.restore(hA, configurationFile);
+				}catch (IOException e){
+					System.err.println("Cannot resume from "+configurationFile+": "+e.getMessage());
+				}
+			}else
+				hA.readConfigurationFile(configurationFile);
+			if(triage != null){
+				try{
+					hA.setTriagePolicy(TriagePolicy.forName(triage, hA.getRecoveryTimeSampler()));
+				}catch (Exception e){
+					System.err.println(e.getMessage());
+				}
+			}
+			SimulationResult result = eventDriven ? hA.simulateEventDriven(maxDays) : hA.simulate(maxDays);
+			if(saveFile != null && result != null){
+				try{
+					HospitalSnapshot.save(hA, new File(saveFile));
+				}catch (IOException e){
+					System.err.println("Cannot save to "+saveFile+": "+e.getMessage());
+				}
+			}
+			hA.closePatientSource();
+			hA.getEventLog().close();
+			if(result != null)
+				System.out.println(result);
+		}else
+			hA.go(hA,configurationFile);
+		
+		if(hA.getMetrics() != null){
+			hA.getMetrics().closeDump();
+			hA.getMetrics().unregister();
+			System.out.println(hA.getMetrics());
+		}
 	}
 	
 	/**
@@ -304,69 +1313,122 @@ public class HospitalAdministrator implements Customizable{
 	 */
 	public void aDayPasses(HospitalAdministrator hA) throws Exception{
 		
-		System.out.println("=========================");
-		System.out.println("Day "+daysSinceStarted);
-		System.out.println("=========================");
+		eventLog.info("=========================");
+		if(eventLog.isEnabled(EventLog.Level.INFO))
+			eventLog.info("Day {}", daysSinceStarted);
+		eventLog.info("=========================");
 		
 		/**
 		 * admitPatients will try to admit patients whenever there is a free bed available.
 		 * This code is run once every day.
 		 * @see admitPatients
 		 */
+		long time = (metrics != null) ? System.nanoTime() : 0;
 		hA.admitPatients(hospital);
+		if(metrics != null)
+			time = metrics.phaseEnded(DayTickMetrics.Phase.ADMISSION, time);
 		
-		System.out.println(">>>>>>>>>>>>>>>>>");
-		for(int i= 0;i<10;i++){
-			if(hospital.getPatient(i) ==null)
-				System.out.println(i+": Empty");
-			else
-				System.out.println(i+": Health "+hospital.getPatient(i).getHealthState());
-		}
-		System.out.println(">>>>>>>>>>>>>>>>>");
-		
-		Iterator<Doctors> it = doctorList.iterator();
-		//Looping through all the doctors
-		while(it.hasNext()){
-			Doctors doctor = it.next();
-			/**
-			 * If Doctor is occupied. 
-			 * <p>
-			 * Currently a doctor only takes a day to treat a patient, so a doctor is always free at the start of the day.
-			 * This would come in handy if treatment or operation takes longer than a day.
-			 */
-			if(doctor.getAssignedPatient() == null){
-				for(int i=0;i<hospital.size();i++){
-					//Check if there is a patient at bed "i"
-					if(hospital.getPatient(i) != null){
-						//Check if the patient is already assigned with a doctor
-						if(hospital.getPatient(i).takenCareOf() == false && hospital.getPatient(i).getHealthState() ==1){
-							/*
-							 * assignPatient outputs a boolean depending if the assignment is successful.
-							 * If the assignment is successful, it would break the for loop and move on to the next doctor waiting for assignment.
-							 * If however the assignment is unsuccessful, the for loop will continue to find the next suitable patient for the doctor.
-							 */
-							if(doctor.tryAssignPatient(hospital.getPatient(i)))
-								break;
-						}
-					}
-				}
+		//Bed status table, only built when somebody reads it.
+		if(eventLog.isEnabled(EventLog.Level.DEBUG)){
+			eventLog.debug(">>>>>>>>>>>>>>>>>");
+			for(int i= 0;i<Math.min(10, hospital.getNumOfBeds());i++){
+				if(hospital.getPatient(i) ==null)
+					eventLog.debug("{}: Empty", i);
+				else
+					eventLog.debug("{}: Health {}", i, hospital.getPatient(i).getHealthState());
 			}
+			eventLog.debug(">>>>>>>>>>>>>>>>>");
+		}
+		
+		if(assignmentSolver != null)
+			assignByPlan(hospital);
+		
+		/*
+		 * Only doctors in the availability pool of a specialism with waiting patients are visited, in doctor order.
+		 * Each takes the patient who goes first among those with an illness it can treat, if there is one.
+		 */
+		candidateDoctors.clear();
+		for(int specialism=0;specialism<availableDoctors.length;specialism++){
+			if(hospital.hasUntreatedPatients(capabilities.getIllnesses(specialism)))
+				candidateDoctors.or(availableDoctors[specialism]);
+		}
+		for(int i=candidateDoctors.nextSetBit(0);i>=0;i=candidateDoctors.nextSetBit(i+1)){
+			//Stop looking once every waiting patient has a doctor.
+			if(!hospital.hasUntreatedPatients())
+				break;
+			
+			Doctors doctor = doctorList.get(i);
+			Patient patient = hospital.nextUntreatedPatient(doctor.getTreatableIllnesses());
+			boolean assigned = patient != null && doctor.tryAssignPatient(patient);
+			if(assigned){
+				availableDoctors[doctor.getSpecialism()].clear(i);
+				busyDoctors.set(i);
+			}else if(patient != null)
+				hospital.returnUntreatedPatient(patient);
+			if(metrics != null)
+				metrics.assignmentAttempted(assigned);
 		}
+		if(metrics != null)
+			time = metrics.phaseEnded(DayTickMetrics.Phase.MATCHING, time);
 		
-		//Call aDayPasses on Doctors
-		Iterator<Doctors> doctorADayPasses = doctorList.iterator();
-		while(doctorADayPasses.hasNext()){
-			doctorADayPasses.next().aDayPasses();
+		//Call aDayPasses on the busy Doctors, those who finish go back to the pool
+		for(int i=busyDoctors.nextSetBit(0);i>=0;i=busyDoctors.nextSetBit(i+1)){
+			Doctors doctor = doctorList.get(i);
+			doctor.aDayPasses();
+			if(doctor.getAssignedPatient() == null){
+				busyDoctors.clear(i);
+				availableDoctors[doctor.getSpecialism()].set(i);
+			}
 		}
+		if(metrics != null)
+			metrics.phaseEnded(DayTickMetrics.Phase.TREATMENT, time);
 		
 		//Remove all patients from theatres & Call aDayPasses for all patients
 		hospital.aDayPasses();
+		if(metrics != null)
+			metrics.dayEnded(daysSinceStarted, incomingPatients.size(), hospital.getNumOfUntreatedPatients(), hospital.getTheatreScheduler().getNumOfWaitingPatients());
 		
 		//Increment daysSinceStarted
 		incrementDays();
 		
 	}
 	
+	/**
+	 * Assign free doctors to waiting patients as planned by the assignment solver.
+	 * Within a specialism the doctors go in doctor order, and within an illness the patients in triage order.
+	 */
+	private void assignByPlan(Hospital hospital){
+		if(!hospital.hasUntreatedPatients())
+			return;
+		for(int specialism=0;specialism<availableDoctors.length;specialism++)
+			freeDoctors[specialism] = availableDoctors[specialism].cardinality();
+		for(int illness=0;illness<waitingPatients.length;illness++)
+			waitingPatients[illness] = hospital.getNumOfUntreatedPatients(illness);
+		int[][] plan = assignmentSolver.solve(freeDoctors, waitingPatients, capabilities);
+		
+		for(int specialism=0;specialism<plan.length;specialism++){
+			int i = availableDoctors[specialism].nextSetBit(0);
+			for(int illness=0;illness<plan[specialism].length && i>=0;illness++){
+				for(int count=plan[specialism][illness];count>0 && i>=0;count--){
+					Patient patient = hospital.nextUntreatedPatient(illness);
+					if(patient == null)
+						break;
+					Doctors doctor = doctorList.get(i);
+					int next = availableDoctors[specialism].nextSetBit(i + 1);
+					boolean assigned = doctor.tryAssignPatient(patient);
+					if(assigned){
+						availableDoctors[specialism].clear(i);
+						busyDoctors.set(i);
+					}else
+						hospital.returnUntreatedPatient(patient);
+					if(metrics != null)
+						metrics.assignmentAttempted(assigned);
+					i = next;
+				}
+			}
+		}
+	}
+	
 	/**
 	 * increment the daysSinceStarted
 	 */
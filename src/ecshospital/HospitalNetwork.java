@@ -0,0 +1,502 @@
+package ecshospital;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * <b>HospitalNetwork</b> runs several hospitals of a region side by side, each with its own {@link HospitalAdministrator}, doctors and theatres.
+ * <p>
+ * Patients arriving in the region are routed to the least loaded site: the one with the fewest patients, in beds or queued, for its beds.
+ * They are only routed while some site has a bed for them, the others wait in the region's patient source.
+ * A site's own "patient:" lines are its walk-ins and stay there. The illnesses of the region's "newIllness:" lines are added to every site
+ * that does not have them, with the region's "capability:", "operation:" and "treatment:" lines for them, so the sites can take care of
+ * the patients routed to them.
+ * <p>
+ * Surgical cases are transferred: when a site has a free theatre and a free bed, the patient whose operation is booked last at another site
+ * moves there and is operated on at once, provided that is sooner than the booking.
+ * <p>
+ * Every site runs its day on its own thread. The threads meet at a {@link CyclicBarrier} at the end of the day, where the transfers are made
+ * and the next day's arrivals routed, while no site is running. The sites share no state but the network's {@link EventLog}: while they run,
+ * each site writes to a log of its own, and at the barrier these are passed on to the network's log site by site, so the output does not interleave.
+ * @author Man-Leong Chan
+ */
+public class HospitalNetwork {
+	
+	private static final byte[] SITE = "site".getBytes(StandardCharsets.US_ASCII);
+	
+	private ArrayList<HospitalAdministrator> sites;
+	
+	/**
+	 * @param arrivals  The patients arriving in the region, null for none.
+	 */
+	private PatientSource arrivals;
+	
+	private EventLog eventLog;
+	
+	/*
+	 * The events of each site's day, by site index, while the sites run. Null when the network's log is off.
+	 */
+	private SiteEventSink[] siteEventSinks;
+	
+	/*
+	 * The current day of every site, the days simulated in this run and the most to simulate.
+	 * finished is set at the barrier and read by every site's thread after it.
+	 */
+	private int day;
+	private int daysSimulated;
+	private int maxDays;
+	private volatile boolean finished;
+	
+	private long numOfRouted;
+	private long numOfTransfers;
+	
+	/**
+	 * <b>SiteEventSink</b> keeps the events of a site's day until they are passed on to the network's log at the barrier.
+	 */
+	private static class SiteEventSink implements EventSink {
+		
+		private List<EventLog.Level> levels = new ArrayList<EventLog.Level>();
+		private List<String> formats = new ArrayList<String>();
+		private List<Object[]> arguments = new ArrayList<Object[]>();
+		
+		/**
+		 * Keep one event.
+		 * @param level		The level of the event.
+		 * @param format	The message with a "{}" for each argument.
+		 * @param args		The arguments of the message.
+		 */
+		public void write(EventLog.Level level, String format, Object[] args){
+			levels.add(level);
+			formats.add(format);
+			arguments.add(args);
+		}
+		
+		/**
+		 * Pass the events kept so far on to a log, in order, and forget them.
+		 * @param eventLog	The log.
+		 */
+		void drainTo(EventLog eventLog){
+			for(int i=0;i<levels.size();i++){
+				switch(levels.get(i)){
+				case DEBUG:
+					eventLog.debug(formats.get(i), arguments.get(i));
+					break;
+				case INFO:
+					eventLog.info(formats.get(i), arguments.get(i));
+					break;
+				case WARN:
+					eventLog.warn(formats.get(i), arguments.get(i));
+					break;
+				default:
+					eventLog.error(formats.get(i), arguments.get(i));
+				}
+			}
+			levels.clear();
+			formats.clear();
+			arguments.clear();
+		}
+		
+		/**
+		 * Nothing to release, the events are drained at the barrier.
+		 */
+		public void close(){
+		}
+	}
+	
+	/**
+	 * Constructor for a network without sites.
+	 */
+	HospitalNetwork(){
+		sites = new ArrayList<HospitalAdministrator>();
+		eventLog = EventLog.CONSOLE;
+	}
+	
+	/**
+	 * Add a site, whose configuration has been read.
+	 * @param site	The administrator of the site.
+	 * @throws Exception	If the site has no hospital.
+	 */
+	public void addSite(HospitalAdministrator site) throws Exception{
+		if(site.getHospital() == null)
+			throw new Exception("Site without a hospital! ERROR");
+		sites.add(site);
+	}
+	
+	/**
+	 * Get a site.
+	 * @param index		The site index, from 0.
+	 * @return	The administrator of the site.
+	 */
+	public HospitalAdministrator getSite(int index){
+		return sites.get(index);
+	}
+	
+	/**
+	 * Get the number of sites.
+	 * @return	The count.
+	 */
+	public int getNumOfSites(){
+		return sites.size();
+	}
+	
+	/**
+	 * Set the patients arriving in the region. A source set before is closed.
+	 * @param arrivals	The source, null for none.
+	 */
+	public void setArrivals(PatientSource arrivals){
+		if(this.arrivals != null && this.arrivals != arrivals)
+			this.arrivals.close();
+		this.arrivals = arrivals;
+	}
+	
+	/**
+	 * Set the event log of the network and of every site.
+	 * @param eventLog	The event log.
+	 */
+	public void setEventLog(EventLog eventLog){
+		this.eventLog = eventLog;
+		for(HospitalAdministrator site : sites)
+			site.setEventLog(eventLog);
+	}
+	
+	/**
+	 * Get the number of patients routed to a site so far.
+	 * @return	The count.
+	 */
+	public long getNumOfRouted(){
+		return numOfRouted;
+	}
+	
+	/**
+	 * Get the number of surgical cases transferred so far.
+	 * @return	The count.
+	 */
+	public long getNumOfTransfers(){
+		return numOfTransfers;
+	}
+	
+	/**
+	 * Read a network configuration: a "site:FILE" line for each site, with FILE a configuration like "myHospital.txt" relative to the network's,
+	 * and "patient:" and "arrival" lines for the patients arriving in the region, with the "newIllness:" lines they need.
+	 * The region's illnesses are added to the sites that do not have them, a site keeps its own settings for those it has.
+	 * @param configurationFile		The network configuration.
+	 * @param seed					The seed of the region's arrivals, the sites get the seeds after it. Null for unseeded.
+	 * @throws IOException	If a file cannot be read.
+	 */
+	public void readConfigurationFile(File configurationFile, Long seed) throws IOException{
+		File directory = configurationFile.getAbsoluteFile().getParentFile();
+		ConfigurationScanner scanner = new ConfigurationScanner(new FileInputStream(configurationFile).getChannel());
+		try{
+			while(scanner.nextLine()){
+				if(!scanner.prefixIs(SITE))
+					continue;
+				File siteFile = new File(scanner.getSuffix());
+				if(!siteFile.isAbsolute())
+					siteFile = new File(directory, scanner.getSuffix());
+				HospitalAdministrator site = new HospitalAdministrator();
+				site.setEventLog(eventLog);
+				if(seed != null)
+					site.getRecoveryTimeSampler().setSeed(seed + sites.size() + 1);
+				site.readConfigurationFile(siteFile);
+				try{
+					addSite(site);
+					eventLog.info("Site {}: {}. IMPORTED.", sites.size() - 1, siteFile);
+				}catch (Exception e){
+					eventLog.error("Line {}: {} has no hospital. Site skipped.", scanner.getLineNumber(), siteFile);
+				}
+			}
+		}finally{
+			scanner.close();
+		}
+		
+		//The other lines are read by an administrator without a hospital, for its patient source
+		HospitalAdministrator region = new HospitalAdministrator();
+		region.setEventLog(eventLog);
+		if(seed != null)
+			region.getRecoveryTimeSampler().setSeed(seed);
+		region.readConfigurationFile(configurationFile);
+		setArrivals(region.getPatientSource());
+		
+		RecoveryTimeSampler illnesses = region.getRecoveryTimeSampler();
+		for(int i=0;i<sites.size();i++){
+			HospitalAdministrator site = sites.get(i);
+			for(int illness=0;illness<=CapabilityTable.MAX_ILLNESS;illness++){
+				if(!illnesses.hasIllness(illness) || site.getRecoveryTimeSampler().hasIllness(illness))
+					continue;
+				try{
+					site.addIllness(region, illness);
+					eventLog.info("Site {}: new illness {} of the region IMPORTED.", i, illness);
+				}catch (Exception e){
+					eventLog.error("Site {}: illness {} of the region not added: {}", i, illness, e);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Simulate every site until all patients in the region are cured, or until <i>maxDays</i> days have passed. At least one day is simulated.
+	 * @param maxDays	The most days to simulate.
+	 * @return	The outcome of the run of each site, by site index.
+	 * @throws InterruptedException	If the calling thread is interrupted while the sites run.
+	 */
+	public SimulationResult[] simulate(int maxDays) throws InterruptedException{
+		this.maxDays = maxDays;
+		daysSimulated = 0;
+		finished = sites.isEmpty();
+		if(!sites.isEmpty())
+			day = sites.get(0).getHospital().getDay();
+		routeArrivals();
+		startSiteLogs();
+		
+		final CyclicBarrier endOfDay = new CyclicBarrier(Math.max(1, sites.size()), new Runnable(){
+			public void run(){
+				dayEnded();
+			}
+		});
+		Thread[] threads = new Thread[sites.size()];
+		for(int i=0;i<threads.length;i++){
+			final HospitalAdministrator site = sites.get(i);
+			threads[i] = new Thread(new Runnable(){
+				public void run(){
+					runSite(site, endOfDay);
+				}
+			}, "site-"+i);
+			threads[i].start();
+		}
+		try{
+			for(Thread thread : threads)
+				thread.join();
+		}catch (InterruptedException e){
+			//Let the sites stop at the barrier
+			endOfDay.reset();
+			for(Thread thread : threads)
+				thread.join();
+			throw e;
+		}finally{
+			stopSiteLogs();
+		}
+		
+		SimulationResult[] results = new SimulationResult[sites.size()];
+		boolean regionCleared = !hasArrivalsToCome();
+		for(int i=0;i<results.length;i++){
+			Hospital hospital = sites.get(i).getHospital();
+			results[i] = new SimulationResult(daysSimulated, hospital, regionCleared && isSiteCleared(sites.get(i)));
+		}
+		return results;
+	}
+	
+	/**
+	 * The loop of a site's thread: a day, then wait at the barrier for the other sites.
+	 */
+	private void runSite(HospitalAdministrator site, CyclicBarrier endOfDay){
+		while(!finished){
+			try{
+				site.aDayPasses(site);
+			}catch (Exception e){
+				site.getEventLog().error("{}", e);
+			}
+			try{
+				endOfDay.await();
+			}catch (InterruptedException e){
+				return;
+			}catch (BrokenBarrierException e){
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * The end of a day, run by the last site to arrive at the barrier: transfer surgical cases, route the next day's arrivals and check if the run is over.
+	 */
+	private void dayEnded(){
+		drainSiteLogs();
+		day++;
+		daysSimulated++;
+		transferSurgicalCases();
+		routeArrivals();
+		drainSiteLogs();
+		
+		boolean cleared = !hasArrivalsToCome();
+		for(HospitalAdministrator site : sites)
+			cleared = cleared && isSiteCleared(site);
+		finished = cleared || daysSimulated >= maxDays;
+	}
+	
+	/**
+	 * Give every site a log of its own for the run, see {@link SiteEventSink}.
+	 */
+	private void startSiteLogs(){
+		if(eventLog.getLevel() == EventLog.Level.OFF)
+			return;
+		siteEventSinks = new SiteEventSink[sites.size()];
+		for(int i=0;i<sites.size();i++){
+			siteEventSinks[i] = new SiteEventSink();
+			sites.get(i).setEventLog(new EventLog(eventLog.getLevel(), siteEventSinks[i]));
+		}
+	}
+	
+	/**
+	 * Pass the events of every site on to the network's log, site by site.
+	 */
+	private void drainSiteLogs(){
+		if(siteEventSinks == null)
+			return;
+		for(SiteEventSink sink : siteEventSinks)
+			sink.drainTo(eventLog);
+	}
+	
+	/**
+	 * Pass on the last events of the sites and give them the network's log back.
+	 */
+	private void stopSiteLogs(){
+		if(siteEventSinks == null)
+			return;
+		drainSiteLogs();
+		siteEventSinks = null;
+		for(HospitalAdministrator site : sites)
+			site.setEventLog(eventLog);
+	}
+	
+	/**
+	 * Route the patients who have arrived in the region to the least loaded sites, as long as a site has a bed for them.
+	 */
+	void routeArrivals(){
+		if(arrivals == null)
+			return;
+		while(arrivals.getNextArrivalDay() <= day){
+			HospitalAdministrator site = leastLoadedSite();
+			if(site == null)
+				break;
+			Patient patient = arrivals.nextPatient(day);
+			if(patient == null)
+				break;
+			site.addIncomingPatient(patient);
+			numOfRouted++;
+		}
+	}
+	
+	/**
+	 * Find the site with the fewest patients, in beds or queued, for its beds, among those with a bed not yet promised to a queued patient.
+	 * @return	The site, null if every site is full.
+	 */
+	private HospitalAdministrator leastLoadedSite(){
+		HospitalAdministrator leastLoaded = null;
+		double lowestLoad = Double.MAX_VALUE;
+		for(HospitalAdministrator site : sites){
+			Hospital hospital = site.getHospital();
+			int queued = site.getNumOfWaitingPatients();
+			if(hospital.getNumOfFreeBeds() <= queued)
+				continue;
+			double load = (double)(hospital.size() + queued) / hospital.getNumOfBeds();
+			if(load < lowestLoad){
+				lowestLoad = load;
+				leastLoaded = site;
+			}
+		}
+		return leastLoaded;
+	}
+	
+	/**
+	 * Move the patients whose operations are booked furthest ahead to sites with a free theatre and a free bed.
+	 */
+	void transferSurgicalCases(){
+		for(HospitalAdministrator to : sites){
+			Hospital toHospital = to.getHospital();
+			while(toHospital.getNumOfFreeBeds() > to.getNumOfWaitingPatients() && toHospital.findFreeTheatre() != -1){
+				//The site with the booking furthest ahead, if it is later than today
+				HospitalAdministrator from = null;
+				int lastBookedDay = day;
+				for(HospitalAdministrator site : sites){
+					int siteLastBookedDay = site.getHospital().getTheatreScheduler().getLastBookedDay();
+					if(site != to && siteLastBookedDay > lastBookedDay){
+						lastBookedDay = siteLastBookedDay;
+						from = site;
+					}
+				}
+				if(from == null)
+					break;
+				
+				//The booking is only cancelled once the patient is in the other site, else the patient goes back to its bed
+				Hospital fromHospital = from.getHospital();
+				Patient patient = fromHospital.getTheatreScheduler().getLastBookedPatient();
+				if(!fromHospital.transferOut(patient)){
+					eventLog.error("Booked patient not in a bed of its site: aged {}, {}. ERROR", patient.getAge(), patient.getGender());
+					break;
+				}
+				if(!toHospital.transferInForOperation(patient)){
+					if(!fromHospital.transferBack(patient))
+						eventLog.error("Transferred patient lost its bed: aged {}, {}. ERROR", patient.getAge(), patient.getGender());
+					break;
+				}
+				fromHospital.getTheatreScheduler().cancelLastBooking();
+				numOfTransfers++;
+			}
+		}
+	}
+	
+	private boolean isSiteCleared(HospitalAdministrator site){
+		return site.getHospital().size() == 0 && !site.hasPatientsToCome();
+	}
+	
+	private boolean hasArrivalsToCome(){
+		return arrivals != null && arrivals.getNextArrivalDay() != Integer.MAX_VALUE;
+	}
+	
+	/**
+	 * Close the region's patient source and those of the sites.
+	 */
+	public void close(){
+		setArrivals(null);
+		for(HospitalAdministrator site : sites)
+			site.closePatientSource();
+	}
+	
+	/**
+	 * Run a network from the command line: the network configuration, then --days=N, --seed=N and --log=LEVEL.
+	 * Prints the outcome of every site and the number of patients routed and transferred.
+	 * @param args	The network configuration and the options.
+	 */
+	public static void main(String[] args){
+		if(args.length < 1){
+			System.err.println("Usage: HospitalNetwork <network configuration> [--days=N] [--seed=N] [--log=LEVEL]");
+			return;
+		}
+		int maxDays = Integer.MAX_VALUE;
+		Long seed = null;
+		String logLevel = "OFF";
+		for(int i=1;i<args.length;i++){
+			try{
+				if(args[i].startsWith("--days="))
+					maxDays = Integer.parseInt(args[i].substring("--days=".length()));
+				else if(args[i].startsWith("--seed="))
+					seed = Long.parseLong(args[i].substring("--seed=".length()));
+				else if(args[i].startsWith("--log="))
+					logLevel = args[i].substring("--log=".length());
+				else
+					System.err.println("Unknown option "+args[i]+" ignored.");
+			}catch (NumberFormatException e){
+				System.err.println("Invalid option "+args[i]+" ignored.");
+			}
+		}
+		
+		HospitalNetwork network = new HospitalNetwork();
+		try{
+			network.setEventLog(EventLog.create(logLevel, null));
+			network.readConfigurationFile(new File(args[0]), seed);
+			SimulationResult[] results = network.simulate(maxDays);
+			for(int i=0;i<results.length;i++)
+				System.out.println("site "+i+": "+results[i]);
+			System.out.println("routed="+network.getNumOfRouted()+" transfers="+network.getNumOfTransfers());
+		}catch (Exception e){
+			System.err.println(e);
+		}finally{
+			network.close();
+			network.eventLog.close();
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package ecshospital;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <b>HospitalSnapshot</b> saves the whole state of a simulation to a compact binary file and restores it, so a long run can be stopped and resumed.
+ * <p>
+ * A snapshot holds the beds with their patients, the theatres with their waiting list and bookings, the treatment queue, the statistics,
+ * the admission queue, the doctors with the patients assigned to them, the day, the illness and capability tables, the arrival generator
+ * and the state of the random number generators. A resumed run goes on exactly like the run that was saved.
+ * <p>
+ * Patients are written field by field as primitives, and references to a patient as its bed. The file starts with a magic number and a version.
+ * Everything goes through a {@link FileChannel} and one buffer, see {@link SnapshotOutput} and {@link SnapshotInput}.
+ * @author Man-Leong Chan
+ */
+public class HospitalSnapshot {
+
+	/*
+	 * "ECSH", then the version of the layout.
+	 */
+	private static final int MAGIC = 0x45435348;
+	private static final int VERSION = 2;
+
+	private HospitalSnapshot(){
+	}
+
+	/**
+	 * Save the state of a simulation to a file, replacing it if it exists.
+	 * @param administrator		The administrator of the simulation.
+	 * @param file				The snapshot file.
+	 * @throws IOException		If the file cannot be written, or no hospital was imported.
+	 */
+	public static void save(HospitalAdministrator administrator, File file) throws IOException{
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		try{
+			save(administrator, channel);
+		}finally{
+			channel.close();
+		}
+	}
+
+	/**
+	 * Save the state of a simulation to a channel.
+	 * @param administrator		The administrator of the simulation.
+	 * @param channel			The channel, it is not closed.
+	 * @throws IOException		If the channel cannot be written, or no hospital was imported.
+	 */
+	public static void save(HospitalAdministrator administrator, WritableByteChannel channel) throws IOException{
+		SnapshotOutput out = new SnapshotOutput(channel);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		administrator.writeTo(out);
+		out.flush();
+	}
+
+	/**
+	 * Restore the state of a simulation from a file into an administrator, replacing its hospital, doctors and patients.
+	 * @param administrator		The administrator, its event log and tick parallelism are kept.
+	 * @param file				The snapshot file.
+	 * @throws IOException		If the file cannot be read or is not a valid snapshot.
+	 */
+	public static void restore(HospitalAdministrator administrator, File file) throws IOException{
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try{
+			restore(administrator, channel);
+		}finally{
+			channel.close();
+		}
+	}
+
+	/**
+	 * Restore the state of a simulation from a channel into an administrator.
+	 * @param administrator		The administrator, its event log and tick parallelism are kept.
+	 * @param channel			The channel, it is not closed.
+	 * @throws IOException		If the channel cannot be read or does not hold a valid snapshot.
+	 */
+	public static void restore(HospitalAdministrator administrator, ReadableByteChannel channel) throws IOException{
+		SnapshotInput in = new SnapshotInput(channel);
+		if(in.readInt() != MAGIC)
+			throw new IOException("Not a hospital snapshot. ERROR");
+		int version = in.readInt();
+		if(version != VERSION)
+			throw new IOException("Unsupported snapshot version "+version+". ERROR");
+		administrator.readFrom(in);
+	}
+}
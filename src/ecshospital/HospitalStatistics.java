@@ -0,0 +1,190 @@
+package ecshospital;
+import java.io.IOException;
+
+/**
+ * <b>HospitalStatistics</b> counts the outcomes of a {@link Hospital} since it was built: treatments, operations, discharges, length of stay and occupancy.
+ * <p>The hospital updates the counts as things happen, reading them never walks the beds.
+ * @author Man-Leong Chan
+ */
+public class HospitalStatistics {
+	
+	private int numOfTreatments;
+	private int numOfOperations;
+	private int numOfDischarges;
+	private int peakOccupancy;
+	private long theatreDaysUsed;
+	private long theatreWaitDays;
+	
+	/*
+	 * Both indexed by illness code: the days spent in hospital by discharged patients, and how many were discharged.
+	 */
+	private long[] daysInHospital;
+	private int[] dischargesByIllness;
+	
+	/**
+	 * Constructor with all counts at zero.
+	 */
+	HospitalStatistics(){
+		daysInHospital = new long[CapabilityTable.MAX_ILLNESS + 1];
+		dischargesByIllness = new int[CapabilityTable.MAX_ILLNESS + 1];
+	}
+	
+	/**
+	 * Count a patient treated on the ward.
+	 */
+	void recordTreatment(){
+		numOfTreatments++;
+	}
+	
+	/**
+	 * Count a patient operated on.
+	 * @param daysWaited	The number of days the patient waited for a theatre, 0 if one was free.
+	 */
+	void recordOperation(int daysWaited){
+		numOfOperations++;
+		theatreWaitDays += daysWaited;
+	}
+	
+	/**
+	 * Count a day that a theatre was in use.
+	 */
+	void recordTheatreDay(){
+		theatreDaysUsed++;
+	}
+	
+	/**
+	 * Count a number of theatre days at once.
+	 * @param theatreDays	The number of theatre days.
+	 */
+	void recordTheatreDays(long theatreDays){
+		theatreDaysUsed += theatreDays;
+	}
+	
+	/**
+	 * Keep track of the highest number of patients in beds.
+	 * @param occupancy		The number of patients in beds now.
+	 */
+	void recordOccupancy(int occupancy){
+		if(occupancy > peakOccupancy)
+			peakOccupancy = occupancy;
+	}
+	
+	/**
+	 * Count a discharged patient.
+	 * @param illness		The illness the patient was admitted with.
+	 * @param daysStayed	The number of days the patient spent in hospital.
+	 */
+	void recordDischarge(int illness, int daysStayed){
+		numOfDischarges++;
+		if(illness >= 0 && illness < dischargesByIllness.length){
+			daysInHospital[illness] += daysStayed;
+			dischargesByIllness[illness]++;
+		}
+	}
+	
+	/**
+	 * Get the number of patients treated on the ward.
+	 * @return	The count.
+	 */
+	public int getNumOfTreatments(){
+		return numOfTreatments;
+	}
+	
+	/**
+	 * Get the number of operations performed.
+	 * @return	The count.
+	 */
+	public int getNumOfOperations(){
+		return numOfOperations;
+	}
+	
+	/**
+	 * Get the number of patients discharged.
+	 * @return	The count.
+	 */
+	public int getNumOfDischarges(){
+		return numOfDischarges;
+	}
+	
+	/**
+	 * Get the highest number of patients that were in beds at once.
+	 * @return	The count.
+	 */
+	public int getPeakOccupancy(){
+		return peakOccupancy;
+	}
+	
+	/**
+	 * Get the number of theatre days used, one theatre busy for one day is one theatre day.
+	 * @return	The count.
+	 */
+	public long getTheatreDaysUsed(){
+		return theatreDaysUsed;
+	}
+	
+	/**
+	 * Get the mean number of days that operated patients waited for a theatre.
+	 * @return	The mean in days, NaN if no operation was performed.
+	 */
+	public double getMeanTheatreWait(){
+		if(numOfOperations == 0)
+			return Double.NaN;
+		return (double)theatreWaitDays / numOfOperations;
+	}
+	
+	/**
+	 * Get the mean length of stay of discharged patients with an illness.
+	 * @param illness	The illness code.
+	 * @return	The mean in days, NaN if no such patient was discharged.
+	 */
+	public double getMeanLengthOfStay(int illness){
+		if(illness < 0 || illness >= dischargesByIllness.length || dischargesByIllness[illness] == 0)
+			return Double.NaN;
+		return (double)daysInHospital[illness] / dischargesByIllness[illness];
+	}
+	
+	/**
+	 * Get the number of discharged patients with an illness.
+	 * @param illness	The illness code.
+	 * @return	The count.
+	 */
+	public int getNumOfDischarges(int illness){
+		if(illness < 0 || illness >= dischargesByIllness.length)
+			return 0;
+		return dischargesByIllness[illness];
+	}
+	
+	/**
+	 * Write the counts to a snapshot, see {@link HospitalSnapshot}.
+	 * @param out	The snapshot.
+	 * @throws IOException	If the snapshot cannot be written.
+	 */
+	void writeTo(SnapshotOutput out) throws IOException{
+		out.writeInt(numOfTreatments);
+		out.writeInt(numOfOperations);
+		out.writeInt(numOfDischarges);
+		out.writeInt(peakOccupancy);
+		out.writeLong(theatreDaysUsed);
+		out.writeLong(theatreWaitDays);
+		out.writeLongArray(daysInHospital);
+		out.writeIntArray(dischargesByIllness);
+	}
+	
+	/**
+	 * Replace the counts with those read from a snapshot.
+	 * @param in	The snapshot.
+	 * @throws IOException	If the snapshot cannot be read or is corrupt.
+	 */
+	void readFrom(SnapshotInput in) throws IOException{
+		numOfTreatments = in.readInt();
+		numOfOperations = in.readInt();
+		numOfDischarges = in.readInt();
+		peakOccupancy = in.readInt();
+		theatreDaysUsed = in.readLong();
+		theatreWaitDays = in.readLong();
+		daysInHospital = in.readLongArray();
+		dischargesByIllness = in.readIntArray();
+		if(daysInHospital.length != CapabilityTable.MAX_ILLNESS + 1 || dischargesByIllness.length != CapabilityTable.MAX_ILLNESS + 1)
+			throw new IOException("Snapshot is corrupt: statistics size. ERROR");
+	}
+}
@@ -0,0 +1,170 @@
+package ecshospital;
+import java.io.IOException;
+
+/**
+ * <b>IllnessCatalogue</b> holds the illnesses of a simulation and the range of recovery time of each, in primitive tables indexed by illness code.
+ * <p>A catalogue never changes once built, so any number of simulations and threads can share it. Changes, like the "newIllness:" and "illness:"
+ * lines of the configuration, go through a {@link Builder}, which makes a new catalogue.
+ * <p>{@link #DEFAULT} holds the illnesses of the default ECS hospital, see {@link Customizable#illnessCatalogue}.
+ * @author Man-Leong Chan
+ */
+public final class IllnessCatalogue {
+
+	/**
+	 * The illnesses of the default ECS hospital: illness 1-8.
+	 */
+	public static final IllnessCatalogue DEFAULT = new Builder()
+			.setRecoveryTimeRange(1, 5, 5)
+			.setRecoveryTimeRange(2, 3, 3)
+			.setRecoveryTimeRange(3, 1, 1)
+			.setRecoveryTimeRange(4, 2, 4)
+			.setRecoveryTimeRange(5, 5, 8)
+			.setRecoveryTimeRange(6, 6, 8)
+			.setRecoveryTimeRange(7, 4, 6)
+			.setRecoveryTimeRange(8, 2, 3)
+			.build();
+
+	/*
+	 * Bit i of illnessMask is set if illness i exists, its recovery time then ranges from minRecoveryTime[i] to maxRecoveryTime[i].
+	 */
+	private final long illnessMask;
+	private final int[] minRecoveryTime;
+	private final int[] maxRecoveryTime;
+
+	/**
+	 * <b>Builder</b> collects the illnesses of a new catalogue.
+	 */
+	public static final class Builder {
+
+		private long illnessMask;
+		private int[] minRecoveryTime;
+		private int[] maxRecoveryTime;
+
+		/**
+		 * Constructor for a builder without illnesses.
+		 */
+		public Builder(){
+			minRecoveryTime = new int[CapabilityTable.MAX_ILLNESS + 1];
+			maxRecoveryTime = new int[CapabilityTable.MAX_ILLNESS + 1];
+		}
+
+		/**
+		 * Constructor for a builder starting from the illnesses of a catalogue.
+		 * @param catalogue		The catalogue to start from, which is left alone.
+		 */
+		public Builder(IllnessCatalogue catalogue){
+			illnessMask = catalogue.illnessMask;
+			minRecoveryTime = catalogue.minRecoveryTime.clone();
+			maxRecoveryTime = catalogue.maxRecoveryTime.clone();
+		}
+
+		/**
+		 * Whether the illness has been added.
+		 * @param illness	The illness code.
+		 * @return	True if the illness exists.
+		 */
+		public boolean hasIllness(int illness){
+			return illness >= 0 && illness <= CapabilityTable.MAX_ILLNESS && ((illnessMask >>> illness) & 1L) != 0;
+		}
+
+		/**
+		 * Set the recovery time range of an illness, adding the illness if it is new.
+		 * @param illness			The illness code, up to {@link CapabilityTable#MAX_ILLNESS}.
+		 * @param minRecoveryTime	The minimum recovery time in days.
+		 * @param maxRecoveryTime	The maximum recovery time in days.
+		 * @return	This builder.
+		 */
+		public Builder setRecoveryTimeRange(int illness, int minRecoveryTime, int maxRecoveryTime){
+			if(illness < 0 || illness > CapabilityTable.MAX_ILLNESS)
+				throw new IllegalArgumentException("Illness code "+illness+" out of range! ERROR");
+			if(minRecoveryTime < 0 || maxRecoveryTime < minRecoveryTime)
+				throw new IllegalArgumentException("Invalid recovery time range "+minRecoveryTime+","+maxRecoveryTime+"! ERROR");
+			illnessMask |= 1L << illness;
+			this.minRecoveryTime[illness] = minRecoveryTime;
+			this.maxRecoveryTime[illness] = maxRecoveryTime;
+			return this;
+		}
+
+		/**
+		 * Make the catalogue. The builder can go on being used, without changing the catalogue.
+		 * @return	The catalogue.
+		 */
+		public IllnessCatalogue build(){
+			return new IllnessCatalogue(illnessMask, minRecoveryTime.clone(), maxRecoveryTime.clone());
+		}
+	}
+
+	/**
+	 * Constructor for a catalogue taking over the tables, which nobody else may hold.
+	 */
+	private IllnessCatalogue(long illnessMask, int[] minRecoveryTime, int[] maxRecoveryTime){
+		this.illnessMask = illnessMask;
+		this.minRecoveryTime = minRecoveryTime;
+		this.maxRecoveryTime = maxRecoveryTime;
+	}
+
+	/**
+	 * Whether the illness exists.
+	 * @param illness	The illness code.
+	 * @return	True if the illness has a recovery time range.
+	 */
+	public boolean hasIllness(int illness){
+		return illness >= 0 && illness <= CapabilityTable.MAX_ILLNESS && ((illnessMask >>> illness) & 1L) != 0;
+	}
+
+	/**
+	 * Get the shortest recovery time of an illness.
+	 * @param illness	The illness code.
+	 * @return	The minimum recovery time in days, -1 if the illness does not exist.
+	 */
+	public int getMinRecoveryTime(int illness){
+		return hasIllness(illness) ? minRecoveryTime[illness] : -1;
+	}
+
+	/**
+	 * Get the longest recovery time of an illness.
+	 * @param illness	The illness code.
+	 * @return	The maximum recovery time in days, -1 if the illness does not exist.
+	 */
+	public int getMaxRecoveryTime(int illness){
+		return hasIllness(illness) ? maxRecoveryTime[illness] : -1;
+	}
+
+	/**
+	 * Write the catalogue to a snapshot, see {@link HospitalSnapshot}.
+	 * @param out	The snapshot.
+	 * @throws IOException	If the snapshot cannot be written.
+	 */
+	void writeTo(SnapshotOutput out) throws IOException{
+		out.writeInt(minRecoveryTime.length);
+		for(int illness=0;illness<minRecoveryTime.length;illness++){
+			out.writeBoolean(hasIllness(illness));
+			if(hasIllness(illness)){
+				out.writeInt(minRecoveryTime[illness]);
+				out.writeInt(maxRecoveryTime[illness]);
+			}
+		}
+	}
+
+	/**
+	 * Read a catalogue written by {@link #writeTo(SnapshotOutput)}.
+	 * @param in	The snapshot.
+	 * @return	The catalogue.
+	 * @throws IOException	If the snapshot cannot be read or is corrupt.
+	 */
+	static IllnessCatalogue readFrom(SnapshotInput in) throws IOException{
+		if(in.readLength() != CapabilityTable.MAX_ILLNESS + 1)
+			throw new IOException("Snapshot is corrupt: illness table size. ERROR");
+		Builder builder = new Builder();
+		for(int illness=0;illness<=CapabilityTable.MAX_ILLNESS;illness++){
+			if(in.readBoolean()){
+				try{
+					builder.setRecoveryTimeRange(illness, in.readInt(), in.readInt());
+				}catch (IllegalArgumentException e){
+					throw new IOException("Snapshot is corrupt: "+e.getMessage());
+				}
+			}
+		}
+		return builder.build();
+	}
+}
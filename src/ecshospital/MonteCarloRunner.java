@@ -0,0 +1,111 @@
+package ecshospital;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * <b>MonteCarloRunner</b> runs the same configuration many times with different random recovery times and aggregates the outcomes.
+ * <p>Every run has its own {@link HospitalAdministrator}, {@link Hospital} and {@link RecoveryTimeSampler}, so the runs share nothing and are spread over a ForkJoinPool.
+ * Run <i>i</i> is seeded with <i>seed + i</i>, so a whole batch can be repeated.
+ * @author Man-Leong Chan
+ */
+public class MonteCarloRunner {
+	
+	private byte[] configuration;
+	private int numOfRuns;
+	private int maxDays;
+	private long seed;
+	
+	/**
+	 * Constructor for a batch of runs. The configuration file is read once, up front.
+	 * @param configurationFile		The configuration file, in the format of "myHospital.txt".
+	 * @param numOfRuns				The number of runs.
+	 * @param maxDays				The most days simulated by each run.
+	 * @param seed					The seed of the first run.
+	 * @throws IOException			If the configuration file cannot be read.
+	 */
+	MonteCarloRunner(File configurationFile, int numOfRuns, int maxDays, long seed) throws IOException{
+		this.configuration = Files.readAllBytes(configurationFile.toPath());
+		this.numOfRuns = numOfRuns;
+		this.maxDays = maxDays;
+		this.seed = seed;
+	}
+	
+	/**
+	 * Carry out one run.
+	 * @param runSeed	The seed of the run's random number generator.
+	 * @return	The outcome, null if the configuration has no hospital.
+	 */
+	public SimulationResult runOnce(long runSeed){
+		HospitalAdministrator hA = new HospitalAdministrator();
+		hA.setEventLog(EventLog.NONE);
+		hA.getRecoveryTimeSampler().setSeed(runSeed);
+		hA.readConfiguration(new ConfigurationScanner(configuration));
+		SimulationResult result = hA.simulate(maxDays);
+		hA.closePatientSource();
+		return result;
+	}
+	
+	/**
+	 * Carry out every run on a pool of threads.
+	 * @param numOfThreads	The number of threads to use.
+	 * @return	The aggregated outcomes.
+	 * @throws Exception	If a run failed.
+	 */
+	public MonteCarloSummary run(int numOfThreads) throws Exception{
+		List<Callable<SimulationResult>> runs = new ArrayList<Callable<SimulationResult>>(numOfRuns);
+		for(int i=0;i<numOfRuns;i++){
+			final long runSeed = seed + i;
+			runs.add(new Callable<SimulationResult>(){
+				public SimulationResult call(){
+					return runOnce(runSeed);
+				}
+			});
+		}
+		
+		ForkJoinPool pool = new ForkJoinPool(numOfThreads);
+		try{
+			List<SimulationResult> results = new ArrayList<SimulationResult>(numOfRuns);
+			for(Future<SimulationResult> future : pool.invokeAll(runs)){
+				SimulationResult result = future.get();
+				if(result != null)
+					results.add(result);
+			}
+			return new MonteCarloSummary(results);
+		}finally{
+			pool.shutdown();
+		}
+	}
+	
+	/**
+	 * Run a configuration many times and print the summary.
+	 * <p>Arguments: configuration file, number of runs, then optionally the day limit per run, the number of threads and the seed.
+	 * @param args
+	 */
+	public static void main(String[] args){
+		if(args.length < 2){
+			System.err.println("Usage: MonteCarloRunner <configuration file> <runs> [maxDays] [threads] [seed]");
+			return;
+		}
+		try{
+			int numOfRuns = Integer.parseInt(args[1]);
+			int maxDays = (args.length > 2) ? Integer.parseInt(args[2]) : 10000;
+			int numOfThreads = (args.length > 3) ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+			long seed = (args.length > 4) ? Long.parseLong(args[4]) : System.nanoTime();
+			
+			MonteCarloRunner runner = new MonteCarloRunner(new File(args[0]), numOfRuns, maxDays, seed);
+			long start = System.nanoTime();
+			MonteCarloSummary summary = runner.run(numOfThreads);
+			long elapsed = System.nanoTime() - start;
+			System.out.println(summary);
+			System.out.println(String.format("%d runs in %.1f ms on %d threads, seed %d", numOfRuns, elapsed / 1e6, numOfThreads, seed));
+		}catch (Exception e){
+			System.err.println(e);
+		}
+	}
+}
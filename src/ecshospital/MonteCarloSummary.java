@@ -0,0 +1,125 @@
+package ecshospital;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <b>MonteCarloSummary</b> aggregates the {@link SimulationResult}s of many runs of the same configuration.
+ * @author Man-Leong Chan
+ */
+public class MonteCarloSummary {
+	
+	private final int numOfRuns;
+	private final int numOfRunsCleared;
+	
+	/*
+	 * Sorted ascending. daysToClear only holds the runs that cleared the hospital within the day limit.
+	 */
+	private final int[] daysToClear;
+	private final double[] theatreUtilisation;
+	
+	/**
+	 * Aggregate the results of a set of runs.
+	 * @param results	The result of every run.
+	 */
+	MonteCarloSummary(List<SimulationResult> results){
+		numOfRuns = results.size();
+		theatreUtilisation = new double[numOfRuns];
+		int[] cleared = new int[numOfRuns];
+		int counter = 0;
+		for(int i=0;i<numOfRuns;i++){
+			SimulationResult result = results.get(i);
+			theatreUtilisation[i] = result.getTheatreUtilisation();
+			if(result.allPatientsCured())
+				cleared[counter++] = result.getDaysElapsed();
+		}
+		numOfRunsCleared = counter;
+		daysToClear = Arrays.copyOf(cleared, counter);
+		Arrays.sort(daysToClear);
+		Arrays.sort(theatreUtilisation);
+	}
+	
+	/**
+	 * Get the number of runs.
+	 * @return	The count.
+	 */
+	public int getNumOfRuns(){
+		return numOfRuns;
+	}
+	
+	/**
+	 * Get the number of runs that cleared the hospital within the day limit.
+	 * @return	The count.
+	 */
+	public int getNumOfRunsCleared(){
+		return numOfRunsCleared;
+	}
+	
+	/**
+	 * Get the mean number of days to clear the hospital, over the runs that cleared it.
+	 * @return	The mean, NaN if no run cleared the hospital.
+	 */
+	public double getMeanDaysToClear(){
+		if(daysToClear.length == 0)
+			return Double.NaN;
+		long total = 0;
+		for(int i=0;i<daysToClear.length;i++)
+			total += daysToClear[i];
+		return (double)total / daysToClear.length;
+	}
+	
+	/**
+	 * Get a percentile of the number of days to clear the hospital, over the runs that cleared it.
+	 * @param percentile	Between 0 and 100.
+	 * @return	The days, -1 if no run cleared the hospital.
+	 */
+	public int getDaysToClearPercentile(double percentile){
+		if(daysToClear.length == 0)
+			return -1;
+		return daysToClear[percentileIndex(percentile, daysToClear.length)];
+	}
+	
+	/**
+	 * Get the mean theatre utilisation over all runs.
+	 * @return	The mean, between 0 and 1.
+	 */
+	public double getMeanTheatreUtilisation(){
+		if(theatreUtilisation.length == 0)
+			return Double.NaN;
+		double total = 0;
+		for(int i=0;i<theatreUtilisation.length;i++)
+			total += theatreUtilisation[i];
+		return total / theatreUtilisation.length;
+	}
+	
+	/**
+	 * Get a percentile of the theatre utilisation over all runs.
+	 * @param percentile	Between 0 and 100.
+	 * @return	The utilisation, NaN if there were no runs.
+	 */
+	public double getTheatreUtilisationPercentile(double percentile){
+		if(theatreUtilisation.length == 0)
+			return Double.NaN;
+		return theatreUtilisation[percentileIndex(percentile, theatreUtilisation.length)];
+	}
+	
+	/**
+	 * The nearest-rank index of a percentile in a sorted array.
+	 */
+	private static int percentileIndex(double percentile, int length){
+		int rank = (int)Math.ceil(percentile / 100.0 * length);
+		return Math.min(length - 1, Math.max(0, rank - 1));
+	}
+	
+	/**
+	 * A few lines of summary.
+	 * @return	The summary.
+	 */
+	public String toString(){
+		return String.format("runs=%d cleared=%d%n"
+				+ "days to clear: mean=%.2f p50=%d p90=%d p99=%d max=%d%n"
+				+ "theatre utilisation: mean=%.3f p50=%.3f p90=%.3f p99=%.3f",
+				numOfRuns, numOfRunsCleared,
+				getMeanDaysToClear(), getDaysToClearPercentile(50), getDaysToClearPercentile(90), getDaysToClearPercentile(99), getDaysToClearPercentile(100),
+				getMeanTheatreUtilisation(), getTheatreUtilisationPercentile(50), getTheatreUtilisationPercentile(90), getTheatreUtilisationPercentile(99));
+	}
+}
@@ -11,6 +11,28 @@ public class Patient extends Person{
 	 */
 	private boolean takenCareOf;
 	
+	/**
+	 * @param hospital	The hospital the patient is admitted to, null if not admitted.
+	 */
+	private Hospital hospital;
+	
+	/**
+	 * @param queueTicket	The patient's place in the {@link TreatmentQueue}.
+	 */
+	private long queueTicket;
+	
+	/**
+	 * @param admittedDay	The hospital day the patient was admitted on.
+	 */
+	private int admittedDay;
+	
+	/**
+	 * @param bedStore	The columnar store holding the patient's state while in a bed, null otherwise. See {@link BedStore}.
+	 * @param bed		The patient's bed while admitted, -1 otherwise. It is also the patient's slot in the bedStore.
+	 */
+	private BedStore bedStore;
+	private int bed;
+	
 	/**
 	 * This is a default constructor for patients with no specified illness and recoveryTime. 
 	 * <p>This constructor passes the parameters to the second constructor {@link #Patient(char, int, int, int, int)}.
@@ -41,6 +63,7 @@ public class Patient extends Person{
 	Patient(char gender, int age,int healthState,int illness, int recoveryTime) throws Exception{
 		super(gender,age,healthState,illness,recoveryTime);
 		takenCareOf = false;
+		bed = -1;
 	}
 	
 	/**
@@ -48,6 +71,8 @@ public class Patient extends Person{
 	 * @return	A boolean.
 	 */
 	public boolean takenCareOf(){
+		if(bedStore != null)
+			return bedStore.takenCareOf(bed);
 		return takenCareOf;
 	}
 	
@@ -56,7 +81,221 @@ public class Patient extends Person{
 	 * @param takenCareOf	A new boolean value to be set.
 	 */
 	public void setTakenCareOf(boolean takenCareOf){
-		this.takenCareOf = takenCareOf;
+		if(bedStore != null)
+			bedStore.setTakenCareOf(bed, takenCareOf);
+		else
+			this.takenCareOf = takenCareOf;
+	}
+	
+	/**
+	 * Set the health status, keeping the admitting hospital's counters up to date.
+	 * @param healthState	healthStatus to be set.
+	 */
+	public void setHealthState(int healthState){
+		int previousState = getHealthState();
+		if(bedStore != null)
+			bedStore.setHealthState(bed, healthState);
+		else
+			super.setHealthState(healthState);
+		if(hospital != null)
+			hospital.healthStateChanged(previousState, healthState);
+	}
+	
+	/**
+	 * Get health status.
+	 * @return	Person's health status.
+	 */
+	public int getHealthState(){
+		if(bedStore != null)
+			return bedStore.getHealthState(bed);
+		return super.getHealthState();
+	}
+	
+	/**
+	 * Set illness status.
+	 * @param illness	The illness status to be set.
+	 */
+	public void setIllness(int illness){
+		if(bedStore != null)
+			bedStore.setIllness(bed, illness);
+		else
+			super.setIllness(illness);
+	}
+	
+	/**
+	 * Get person's illness status.
+	 * @return	Person's illness status.
+	 */
+	public int getIllness(){
+		if(bedStore != null)
+			return bedStore.getIllness(bed);
+		return super.getIllness();
+	}
+	
+	/**
+	 * Set person's recovery time.
+	 * @param recoveryTime	person's recovery time to be set.
+	 */
+	public void setRecoveryTime(int recoveryTime){
+		if(bedStore != null)
+			bedStore.setRecoveryTime(bed, recoveryTime);
+		else
+			super.setRecoveryTime(recoveryTime);
+	}
+	
+	/**
+	 * Get recovery time.
+	 * @return	recovery time in days.
+	 */
+	public int getRecoveryTime(){
+		if(bedStore != null)
+			return bedStore.getRecoveryTime(bed);
+		return super.getRecoveryTime();
+	}
+	
+	/**
+	 * Set person's age.
+	 * @param age	The person's age in int.
+	 */
+	public void setAge(int age){
+		if(bedStore != null)
+			bedStore.setAge(bed, age);
+		else
+			super.setAge(age);
+	}
+	
+	/**
+	 * Get person's age.
+	 * @return The person's age in int.
+	 */
+	public int getAge(){
+		if(bedStore != null)
+			return bedStore.getAge(bed);
+		return super.getAge();
+	}
+	
+	/**
+	 * The recovery tick of {@link #aDayPasses()} without any output and without telling the hospital about the change of health state.
+	 * <p>Used by the parallel tick of {@link Hospital}, which corrects its counters once all beds are done.
+	 * @return	Whether the patient is healthy after the tick.
+	 */
+	boolean recoverQuietly(){
+		if(getHealthState() == 2){
+			int remaining = getRecoveryTime() - 1;
+			setRecoveryTime(remaining);
+			if(remaining <= 0){
+				if(bedStore != null)
+					bedStore.setHealthState(bed, 0);
+				else
+					super.setHealthState(0);
+			}
+		}
+		return getHealthState() == 0;
+	}
+	
+	/**
+	 * Get the bed the patient is in.
+	 * @return	The bed index, -1 if the patient is not admitted.
+	 */
+	int getBed(){
+		return bed;
+	}
+	
+	/**
+	 * Set by {@link Hospital} on admission and discharge.
+	 * @param bed	The bed index, -1 on discharge.
+	 */
+	void setBed(int bed){
+		this.bed = bed;
+	}
+	
+	/**
+	 * Move the patient's state into a bed's slot of a {@link BedStore}, the patient becomes a view of that slot.
+	 * Called by {@link Hospital} on admission.
+	 * @param bedStore	The store.
+	 * @param bed		The bed index.
+	 */
+	void attachToBedStore(BedStore bedStore, int bed){
+		bedStore.store(bed, this);
+		this.bedStore = bedStore;
+		this.bed = bed;
+	}
+	
+	/**
+	 * Copy the patient's state back out of its {@link BedStore} slot. Called by {@link Hospital} on discharge.
+	 */
+	void detachFromBedStore(){
+		if(bedStore == null)
+			return;
+		BedStore store = bedStore;
+		bedStore = null;
+		super.setHealthState(store.getHealthState(bed));
+		super.setIllness(store.getIllness(bed));
+		super.setRecoveryTime(store.getRecoveryTime(bed));
+		super.setAge(store.getAge(bed));
+		takenCareOf = store.takenCareOf(bed);
+		store.clear(bed);
+	}
+	
+	/**
+	 * Draw the recovery time for an illness from the admitting hospital's {@link RecoveryTimeSampler}.
+	 * <p>A patient who is not admitted falls back to the shared {@link Customizable#illnessCatalogue}.
+	 * @param illness	The illness that the patient suffers.
+	 * @return			The recovery time in days.
+	 * @throws Exception	If illegal illness entered.
+	 */
+	public int getIllnessRecoveryTime(int illness) throws Exception{
+		if(hospital != null)
+			return hospital.getRecoveryTimeSampler().randomizeRecoveryTime(illness);
+		return super.getIllnessRecoveryTime(illness);
+	}
+	
+	/**
+	 * Get the hospital the patient is admitted to.
+	 * @return	The hospital, null if the patient is not admitted.
+	 */
+	public Hospital getHospital(){
+		return hospital;
+	}
+	
+	/**
+	 * Set by {@link Hospital} on admission and discharge.
+	 * @param hospital	The admitting hospital, null on discharge.
+	 */
+	void setHospital(Hospital hospital){
+		this.hospital = hospital;
+	}
+	
+	/**
+	 * Get the hospital day the patient was admitted on.
+	 * @return	The day, counted by the hospital from 0.
+	 */
+	public int getAdmittedDay(){
+		return admittedDay;
+	}
+	
+	/**
+	 * Set by {@link Hospital} on admission.
+	 * @param admittedDay	The day.
+	 */
+	void setAdmittedDay(int admittedDay){
+		this.admittedDay = admittedDay;
+	}
+	
+	/**
+	 * Get the patient's place in the {@link TreatmentQueue}, lower tickets joined earlier.
+	 * @return	The ticket.
+	 */
+	long getQueueTicket(){
+		return queueTicket;
+	}
+	
+	/**
+	 * Set by {@link TreatmentQueue} when the patient joins it.
+	 * @param queueTicket	The ticket.
+	 */
+	void setQueueTicket(long queueTicket){
+		this.queueTicket = queueTicket;
 	}
 	
 	/**
@@ -68,17 +307,20 @@ public class Patient extends Person{
 	 * @return	A boolean of whether the workflow was successful.
 	 */
 	public boolean aDayPasses(){
+		EventLog eventLog = (hospital == null) ? EventLog.NONE : hospital.getEventLog();
+		
 		if(getHealthState() == 2){
 			setRecoveryTime(getRecoveryTime()-1);
-			System.out.println("Patient (Age "+getAge()+", "+getGender()+") Recovery Time Remaining: "+getRecoveryTime()+" days.");
+			if(eventLog.isEnabled(EventLog.Level.DEBUG))
+				eventLog.debug("Patient (Age {}, {}) Recovery Time Remaining: {} days.", getAge(), getGender(), getRecoveryTime());
 		}
 		if(getRecoveryTime() <= 0 && getHealthState() == 2){
 			setHealthState(0);
-			System.out.println("Patient now Healthy.");
+			eventLog.info("Patient now Healthy.");
 		}
 			
 		if(getRecoveryTime() < 0 && getHealthState() == 2)
-			System.out.println("ERROR: This patient has not been discharged!");
+			eventLog.error("ERROR: This patient has not been discharged!");
 		
 		return true;
 	}
@@ -0,0 +1,399 @@
+package ecshospital;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * <b>PatientArrivalGenerator</b> is a {@link PatientSource} that makes up patients as the days go by, for load and capacity testing.
+ * <p>
+ * Every illness has its own mean number of arrivals per day, and the number arriving on a day is Poisson distributed.
+ * An illness can be bursty: each calm day a burst starts with some probability, each day of a burst it ends with another,
+ * and during a burst the illness arrives at a multiple of its rate. Arriving patients are sick and need a doctor.
+ * Their gender and age are drawn from the configured mix: a share of men, and age bands with weights.
+ * <p>
+ * Only the number of patients waiting per illness and the next day anybody arrives are kept. A patient is only made when taken,
+ * so the generator uses the same memory for a million days as for one, however long the queue for a bed grows.
+ * The generator is seeded, so a run can be repeated. Without a last day it never runs out of patients.
+ * @author Man-Leong Chan
+ */
+public class PatientArrivalGenerator implements PatientSource {
+	
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	
+	/*
+	 * Above this mean the Poisson count is drawn from the normal approximation instead of by multiplying uniforms.
+	 */
+	private static final double NORMAL_APPROXIMATION_MEAN = 30;
+	
+	/*
+	 * Per illness: the mean arrivals per day, the burst factor, and the daily chances of a burst starting and ending.
+	 */
+	private double[] arrivalRate;
+	private double[] burstFactor;
+	private double[] burstStart;
+	private double[] burstEnd;
+	private boolean[] inBurst;
+	
+	/*
+	 * The mix of the patients: the share of men, and age bands {minAge, maxAge} with their weights.
+	 */
+	private double maleShare;
+	private ArrayList<int[]> ageBands;
+	private ArrayList<Double> ageBandWeights;
+	private double totalAgeBandWeight;
+	
+	/*
+	 * Patients who have arrived and are not taken yet, per illness.
+	 * nextArrivals holds the patients of nextArrivalDay, the next day anybody arrives, already drawn. nextDay is the first day not drawn yet.
+	 * No patient arrives after lastDay.
+	 */
+	private long[] waiting;
+	private long numOfWaiting;
+	private int firstWaitingDay;
+	private int[] nextArrivals;
+	private int nextArrivalDay;
+	private int nextDay;
+	private int lastDay;
+	
+	private long state;
+	
+	/**
+	 * Constructor, with no arrivals until rates are set, half men and ages from 0 to 90.
+	 * @param seed	The seed of the generator.
+	 */
+	PatientArrivalGenerator(long seed){
+		arrivalRate = new double[CapabilityTable.MAX_ILLNESS + 1];
+		burstFactor = new double[CapabilityTable.MAX_ILLNESS + 1];
+		burstStart = new double[CapabilityTable.MAX_ILLNESS + 1];
+		burstEnd = new double[CapabilityTable.MAX_ILLNESS + 1];
+		inBurst = new boolean[CapabilityTable.MAX_ILLNESS + 1];
+		waiting = new long[CapabilityTable.MAX_ILLNESS + 1];
+		nextArrivals = new int[CapabilityTable.MAX_ILLNESS + 1];
+		maleShare = 0.5;
+		ageBands = new ArrayList<int[]>();
+		ageBandWeights = new ArrayList<Double>();
+		nextArrivalDay = -1;
+		lastDay = Integer.MAX_VALUE - 1;
+		state = seed;
+	}
+	
+	/**
+	 * Constructor for a generator configured like another, with its own seed and no patients drawn yet.
+	 * The bursts and the age bands are shared with the other generator, which must not be configured any further.
+	 * @param generator		The generator to copy the configuration from.
+	 * @param seed			The seed of the generator.
+	 * @param loadFactor	The factor applied to every arrival rate, 1 for the same load.
+	 */
+	PatientArrivalGenerator(PatientArrivalGenerator generator, long seed, double loadFactor){
+		this(seed);
+		for(int illness=0;illness<arrivalRate.length;illness++)
+			arrivalRate[illness] = generator.arrivalRate[illness] * loadFactor;
+		burstFactor = generator.burstFactor;
+		burstStart = generator.burstStart;
+		burstEnd = generator.burstEnd;
+		maleShare = generator.maleShare;
+		ageBands = generator.ageBands;
+		ageBandWeights = generator.ageBandWeights;
+		totalAgeBandWeight = generator.totalAgeBandWeight;
+		lastDay = generator.lastDay;
+	}
+
+	/**
+	 * Set the mean number of patients with an illness arriving per day.
+	 * @param illness	The illness code, from 1.
+	 * @param rate		The mean arrivals per day, 0 for none.
+	 * @throws Exception	If the illness code or the rate is invalid.
+	 */
+	public void setArrivalRate(int illness, double rate) throws Exception{
+		checkIllness(illness);
+		if(!(rate >= 0) || Double.isInfinite(rate))
+			throw new Exception("Invalid arrival rate "+rate+"! ERROR");
+		arrivalRate[illness] = rate;
+	}
+	
+	/**
+	 * Make the arrivals of an illness bursty.
+	 * @param illness		The illness code, from 1.
+	 * @param factor		How many times the rate the illness arrives at during a burst.
+	 * @param startChance	The chance that a burst starts on a calm day, from 0 to 1.
+	 * @param endChance		The chance that a burst ends on a day of the burst, from 0 to 1.
+	 * @throws Exception	If the illness code or a parameter is invalid.
+	 */
+	public void setBurst(int illness, double factor, double startChance, double endChance) throws Exception{
+		checkIllness(illness);
+		if(!(factor >= 0) || Double.isInfinite(factor) || !(startChance >= 0 && startChance <= 1) || !(endChance > 0 && endChance <= 1))
+			throw new Exception("Invalid burst "+factor+","+startChance+","+endChance+"! ERROR");
+		burstFactor[illness] = factor;
+		burstStart[illness] = startChance;
+		burstEnd[illness] = endChance;
+	}
+	
+	/**
+	 * Set the share of men among the arriving patients.
+	 * @param maleShare		From 0 to 1.
+	 * @throws Exception	If the share is invalid.
+	 */
+	public void setMaleShare(double maleShare) throws Exception{
+		if(!(maleShare >= 0 && maleShare <= 1))
+			throw new Exception("Invalid share of men "+maleShare+"! ERROR");
+		this.maleShare = maleShare;
+	}
+	
+	/**
+	 * Add an age band. Once there is a band, the ages are drawn from the bands only: first a band by weight, then an age within it.
+	 * @param minAge	The lowest age of the band.
+	 * @param maxAge	The highest age of the band.
+	 * @param weight	The weight of the band.
+	 * @throws Exception	If the band is invalid.
+	 */
+	public void addAgeBand(int minAge, int maxAge, double weight) throws Exception{
+		if(minAge < 0 || maxAge < minAge || !(weight > 0) || Double.isInfinite(weight))
+			throw new Exception("Invalid age band "+minAge+","+maxAge+","+weight+"! ERROR");
+		ageBands.add(new int[] {minAge,maxAge});
+		ageBandWeights.add(weight);
+		totalAgeBandWeight += weight;
+	}
+	
+	/**
+	 * Set the last day on which patients arrive. After it the generator runs out once every patient is taken.
+	 * @param lastDay	The day, from 0.
+	 * @throws Exception	If the day is negative.
+	 */
+	public void setLastDay(int lastDay) throws Exception{
+		if(lastDay < 0)
+			throw new Exception("Invalid last arrival day "+lastDay+"! ERROR");
+		this.lastDay = Math.min(lastDay, Integer.MAX_VALUE - 1);
+	}
+	
+	/**
+	 * Get the number of patients who have arrived and are not taken yet.
+	 * @return	The number.
+	 */
+	public long getNumOfWaitingPatients(){
+		return numOfWaiting;
+	}
+	
+	/**
+	 * Take a patient who has arrived by a day, with an illness picked at random among those waiting.
+	 * @param day	The current day of the simulation.
+	 * @return	The patient, null if nobody is waiting.
+	 */
+	public Patient nextPatient(int day){
+		//Patients arriving by today join the waiting
+		while(lookAhead() <= day){
+			if(numOfWaiting == 0)
+				firstWaitingDay = nextArrivalDay;
+			for(int illness=0;illness<waiting.length;illness++){
+				waiting[illness] += nextArrivals[illness];
+				numOfWaiting += nextArrivals[illness];
+			}
+			nextArrivalDay = -1;
+		}
+		if(numOfWaiting == 0)
+			return null;
+		
+		long pick = nextLong(numOfWaiting);
+		int illness = 0;
+		while(pick >= waiting[illness]){
+			pick -= waiting[illness];
+			illness++;
+		}
+		waiting[illness]--;
+		numOfWaiting--;
+		
+		try{
+			return new Patient(nextDouble() < maleShare ? 'M' : 'F', nextAge(), 1, illness, -1);
+		}catch (Exception e){
+			//The gender and age are always valid
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Get the day the next patient arrives.
+	 * @return	A day by which a patient still waiting had arrived, else the next day anybody arrives. Integer.MAX_VALUE if nobody will.
+	 */
+	public int getNextArrivalDay(){
+		if(numOfWaiting > 0)
+			return firstWaitingDay;
+		return lookAhead();
+	}
+	
+	/**
+	 * Nothing to release.
+	 */
+	public void close(){
+	}
+	
+	/**
+	 * Write the configuration and the state of the generator to a snapshot, see {@link HospitalSnapshot}: the patients waiting,
+	 * the next arrivals already drawn, the bursts under way and the state of the random number generator.
+	 * @param out	The snapshot.
+	 * @throws IOException	If the snapshot cannot be written.
+	 */
+	void writeTo(SnapshotOutput out) throws IOException{
+		out.writeInt(arrivalRate.length);
+		for(int illness=0;illness<arrivalRate.length;illness++){
+			out.writeDouble(arrivalRate[illness]);
+			out.writeDouble(burstFactor[illness]);
+			out.writeDouble(burstStart[illness]);
+			out.writeDouble(burstEnd[illness]);
+			out.writeBoolean(inBurst[illness]);
+			out.writeLong(waiting[illness]);
+			out.writeInt(nextArrivals[illness]);
+		}
+		out.writeDouble(maleShare);
+		out.writeInt(ageBands.size());
+		for(int band=0;band<ageBands.size();band++){
+			out.writeInt(ageBands.get(band)[0]);
+			out.writeInt(ageBands.get(band)[1]);
+			out.writeDouble(ageBandWeights.get(band));
+		}
+		out.writeInt(firstWaitingDay);
+		out.writeInt(nextArrivalDay);
+		out.writeInt(nextDay);
+		out.writeInt(lastDay);
+		out.writeLong(state);
+	}
+	
+	/**
+	 * Read a generator written by {@link #writeTo(SnapshotOutput)}.
+	 * @param in	The snapshot.
+	 * @return	The generator, going on from where the saved one stopped.
+	 * @throws IOException	If the snapshot cannot be read or is corrupt.
+	 */
+	static PatientArrivalGenerator readFrom(SnapshotInput in) throws IOException{
+		PatientArrivalGenerator generator = new PatientArrivalGenerator(0);
+		if(in.readLength() != CapabilityTable.MAX_ILLNESS + 1)
+			throw new IOException("Snapshot is corrupt: illness table size. ERROR");
+		try{
+			for(int illness=0;illness<=CapabilityTable.MAX_ILLNESS;illness++){
+				double rate = in.readDouble();
+				double factor = in.readDouble();
+				double startChance = in.readDouble();
+				double endChance = in.readDouble();
+				if(illness > 0){
+					generator.setArrivalRate(illness, rate);
+					if(factor > 0)
+						generator.setBurst(illness, factor, startChance, endChance);
+				}
+				generator.inBurst[illness] = in.readBoolean();
+				generator.waiting[illness] = in.readLong();
+				generator.nextArrivals[illness] = in.readInt();
+				if(generator.waiting[illness] < 0 || generator.nextArrivals[illness] < 0)
+					throw new IOException("Snapshot is corrupt: arrivals of illness "+illness+". ERROR");
+				generator.numOfWaiting += generator.waiting[illness];
+			}
+			generator.setMaleShare(in.readDouble());
+			for(int count=in.readLength();count>0;count--)
+				generator.addAgeBand(in.readInt(), in.readInt(), in.readDouble());
+		}catch (IOException e){
+			throw e;
+		}catch (Exception e){
+			throw new IOException("Snapshot is corrupt: "+e.getMessage());
+		}
+		generator.firstWaitingDay = in.readInt();
+		generator.nextArrivalDay = in.readInt();
+		generator.nextDay = in.readInt();
+		generator.lastDay = in.readInt();
+		generator.state = in.readLong();
+		return generator;
+	}
+	
+	/**
+	 * Draw the days after the last one drawn up to the next day anybody arrives.
+	 * @return	That day, Integer.MAX_VALUE if nobody will arrive any more.
+	 */
+	private int lookAhead(){
+		if(nextArrivalDay != -1)
+			return nextArrivalDay;
+		double totalRate = 0;
+		for(int illness=0;illness<arrivalRate.length;illness++)
+			totalRate += arrivalRate[illness] * Math.max(1, burstFactor[illness]);
+		if(totalRate == 0){
+			nextArrivalDay = Integer.MAX_VALUE;
+			return nextArrivalDay;
+		}
+		
+		while(nextDay <= lastDay){
+			int day = nextDay++;
+			int arrivals = 0;
+			for(int illness=0;illness<arrivalRate.length;illness++){
+				double rate = arrivalRate[illness];
+				if(burstFactor[illness] > 0){
+					inBurst[illness] = (nextDouble() < (inBurst[illness] ? 1 - burstEnd[illness] : burstStart[illness]));
+					if(inBurst[illness])
+						rate *= burstFactor[illness];
+				}
+				nextArrivals[illness] = (rate > 0) ? nextPoisson(rate) : 0;
+				arrivals += nextArrivals[illness];
+			}
+			if(arrivals > 0){
+				nextArrivalDay = day;
+				return nextArrivalDay;
+			}
+		}
+		nextArrivalDay = Integer.MAX_VALUE;
+		return nextArrivalDay;
+	}
+	
+	private int nextAge(){
+		if(ageBands.isEmpty())
+			return (int)nextLong(91);
+		double pick = nextDouble() * totalAgeBandWeight;
+		int band = 0;
+		while(band < ageBands.size() - 1 && pick >= ageBandWeights.get(band)){
+			pick -= ageBandWeights.get(band);
+			band++;
+		}
+		int[] ages = ageBands.get(band);
+		return ages[0] + (int)nextLong(ages[1] - ages[0] + 1);
+	}
+	
+	/**
+	 * A Poisson distributed count: by multiplying uniforms for small means, from the normal approximation for large ones.
+	 */
+	private int nextPoisson(double mean){
+		if(mean < NORMAL_APPROXIMATION_MEAN){
+			double limit = Math.exp(-mean);
+			double product = nextDouble();
+			int count = 0;
+			while(product > limit){
+				product *= nextDouble();
+				count++;
+			}
+			return count;
+		}
+		//Box-Muller
+		double gaussian = Math.sqrt(-2 * Math.log(1 - nextDouble())) * Math.cos(2 * Math.PI * nextDouble());
+		return (int)Math.max(0, Math.min(Integer.MAX_VALUE / 2, Math.round(mean + Math.sqrt(mean) * gaussian)));
+	}
+	
+	private void checkIllness(int illness) throws Exception{
+		if(illness < 1 || illness > CapabilityTable.MAX_ILLNESS)
+			throw new Exception("Illness code "+illness+" out of range! ERROR");
+	}
+	
+	/**
+	 * A number from 0 to bound - 1, bound being below 2^32.
+	 */
+	private long nextLong(long bound){
+		return ((nextLong() >>> 33) * bound) >>> 31;
+	}
+	
+	/**
+	 * A number from 0 up to but not including 1.
+	 */
+	private double nextDouble(){
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+	
+	/**
+	 * The next number of the SplitMix64 sequence, see {@link RecoveryTimeSampler}.
+	 */
+	private long nextLong(){
+		long z = (state += GOLDEN_GAMMA);
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,27 @@
+package ecshospital;
+
+/**
+ * A <b>PatientSource</b> hands patients to a {@link HospitalAdministrator} as they arrive, one at a time.
+ * <p>The administrator only asks for a patient when it has a bed for it, so a source never needs to hold the whole future population.
+ * @author Man-Leong Chan
+ */
+public interface PatientSource {
+	
+	/**
+	 * Take the next patient who has arrived by a day.
+	 * @param day	The current day of the simulation.
+	 * @return	The patient, null if nobody else has arrived by that day.
+	 */
+	Patient nextPatient(int day);
+	
+	/**
+	 * Get the day the next patient arrives.
+	 * @return	The day, Integer.MAX_VALUE if no more patients will arrive.
+	 */
+	int getNextArrivalDay();
+	
+	/**
+	 * Release whatever the source reads from.
+	 */
+	void close();
+}
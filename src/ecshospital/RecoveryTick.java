@@ -0,0 +1,71 @@
+package ecshospital;
+import java.util.ArrayList;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <b>RecoveryTick</b> is the part of a {@link Hospital}'s parallel day tick that covers one chunk of beds.
+ * <p>It decrements the recovery time of every recovering patient in the chunk, marks those whose time is up healthy,
+ * and lists the chunk's healthy beds in its own region of a shared array. Nothing else is written, so chunks never touch the same data.
+ * The hospital then merges the chunks in bed order and discharges the listed beds, which gives exactly the sequential result.
+ * @author Man-Leong Chan
+ */
+public class RecoveryTick extends RecursiveAction {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final ArrayList<Patient> beds;
+	private final BedStore bedStore;
+	private final int from;
+	private final int to;
+	private final int[] healthyBeds;
+	private int numOfHealthy;
+	
+	/**
+	 * Constructor for the tick of one chunk.
+	 * @param beds			The hospital's beds.
+	 * @param bedStore		The hospital's columnar store, null if it has none.
+	 * @param from			The first bed of the chunk.
+	 * @param to			One past the last bed of the chunk.
+	 * @param healthyBeds	The shared list, the chunk writes to positions <i>from</i> to <i>to</i> - 1 only.
+	 */
+	RecoveryTick(ArrayList<Patient> beds, BedStore bedStore, int from, int to, int[] healthyBeds){
+		this.beds = beds;
+		this.bedStore = bedStore;
+		this.from = from;
+		this.to = to;
+		this.healthyBeds = healthyBeds;
+	}
+	
+	/**
+	 * Tick the chunk.
+	 */
+	protected void compute(){
+		if(bedStore != null){
+			numOfHealthy = bedStore.recoverOneDay(from, to, healthyBeds, from);
+			return;
+		}
+		int counter = from;
+		for(int bed=from;bed<to;bed++){
+			Patient patient = beds.get(bed);
+			if(patient != null && patient.recoverQuietly())
+				healthyBeds[counter++] = bed;
+		}
+		numOfHealthy = counter - from;
+	}
+	
+	/**
+	 * Get the first bed of the chunk, where its list of healthy beds starts.
+	 * @return	The bed index.
+	 */
+	public int getFrom(){
+		return from;
+	}
+	
+	/**
+	 * Get the number of healthy beds listed by the chunk.
+	 * @return	The count.
+	 */
+	public int getNumOfHealthy(){
+		return numOfHealthy;
+	}
+}
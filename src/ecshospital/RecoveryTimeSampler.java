@@ -0,0 +1,182 @@
+package ecshospital;
+import java.io.IOException;
+
+/**
+ * <b>RecoveryTimeSampler</b> draws the random recovery time of a treated patient from the range configured for its illness.
+ * <p>Every simulation has its own sampler with its own random number generator, so simulations running side by side neither share state nor contend on it.
+ * The illness ranges come from an {@link IllnessCatalogue}, which never changes and can be shared.
+ * <p>The ranges are kept in primitive tables indexed by illness code, and a draw takes a single random number straight from the range.
+ * The generator is SplitMix64, the algorithm behind java.util.SplittableRandom: the same seed always gives the same recovery times.
+ * @author Man-Leong Chan
+ */
+public class RecoveryTimeSampler {
+	
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	
+	/*
+	 * Seeds of unseeded samplers are spread out from this, so two samplers built in the same nanosecond still differ.
+	 */
+	private static long seedUniquifier = System.nanoTime();
+	
+	private IllnessCatalogue illnesses;
+	private long state;
+	
+	/**
+	 * Constructor with the given illnesses and an unseeded generator.
+	 * @param illnesses		The illnesses and their ranges, see {@link Customizable#illnessCatalogue} for the defaults.
+	 */
+	RecoveryTimeSampler(IllnessCatalogue illnesses){
+		this.illnesses = illnesses;
+		setSeed(nextSeedUniquifier());
+	}
+	
+	/**
+	 * Constructor with another sampler's illnesses and a seeded generator.
+	 * @param sampler	The sampler to share the illnesses of.
+	 * @param seed		The seed.
+	 */
+	RecoveryTimeSampler(RecoveryTimeSampler sampler, long seed){
+		this.illnesses = sampler.illnesses;
+		setSeed(seed);
+	}
+	
+	/**
+	 * Get the illnesses the recovery times are drawn for.
+	 * @return	The illness catalogue.
+	 */
+	public IllnessCatalogue getIllnessCatalogue(){
+		return illnesses;
+	}
+	
+	/**
+	 * Replace the illnesses the recovery times are drawn for, keeping the generator's state.
+	 * @param illnesses		The illness catalogue.
+	 */
+	void setIllnessCatalogue(IllnessCatalogue illnesses){
+		this.illnesses = illnesses;
+	}
+	
+	/**
+	 * Restart the generator from a seed, so that a run can be repeated.
+	 * @param seed	The seed.
+	 */
+	public void setSeed(long seed){
+		state = seed;
+	}
+	
+	/**
+	 * Get the state of the generator, which {@link #setSeed(long)} restores.
+	 * @return	The state.
+	 */
+	public long getState(){
+		return state;
+	}
+	
+	/**
+	 * Whether the illness has a recovery time range.
+	 * @param illness	The illness code.
+	 * @return	True if the illness exists.
+	 */
+	public boolean hasIllness(int illness){
+		return illnesses.hasIllness(illness);
+	}
+	
+	/**
+	 * Get the minimum recovery time of an illness.
+	 * @param illness	The illness code.
+	 * @return	The minimum recovery time in days, -1 if the illness does not exist.
+	 */
+	public int getMinRecoveryTime(int illness){
+		return illnesses.getMinRecoveryTime(illness);
+	}
+	
+	/**
+	 * Get the maximum recovery time of an illness.
+	 * @param illness	The illness code.
+	 * @return	The maximum recovery time in days, -1 if the illness does not exist.
+	 */
+	public int getMaxRecoveryTime(int illness){
+		return illnesses.getMaxRecoveryTime(illness);
+	}
+	
+	/**
+	 * Draw a random recovery time for an illness, every value in its range being equally likely.
+	 * @param illness	The illness that the patient suffers.
+	 * @return		The randomized recovery time.
+	 * @throws Exception	If the illness does not exist.
+	 */
+	public int randomizeRecoveryTime(int illness) throws Exception{
+		int recoveryTime = nextRecoveryTime(illness);
+		if(recoveryTime < 0)
+			throw new Exception("This illness does not exist!");
+		return recoveryTime;
+	}
+	
+	/**
+	 * Draw a random recovery time for an illness, like {@link #randomizeRecoveryTime(int)} but without an Exception.
+	 * @param illness	The illness that the patient suffers.
+	 * @return		The randomized recovery time, -1 if the illness does not exist.
+	 */
+	public int nextRecoveryTime(int illness){
+		IllnessCatalogue illnesses = this.illnesses;
+		if(!illnesses.hasIllness(illness))
+			return -1;
+		
+		int minRecoveryTime = illnesses.getMinRecoveryTime(illness);
+		int maxRecoveryTime = illnesses.getMaxRecoveryTime(illness);
+		if(minRecoveryTime == maxRecoveryTime)
+			return minRecoveryTime;
+		return minRecoveryTime + nextInt(maxRecoveryTime - minRecoveryTime + 1);
+	}
+	
+	/**
+	 * Draw a number from 0 to bound - 1 without bias, by multiplying and rejecting the few draws that would favour low numbers.
+	 */
+	private int nextInt(int bound){
+		long product = (nextLong() >>> 32) * bound;
+		long low = product & 0xFFFFFFFFL;
+		if(low < bound){
+			long threshold = (0x100000000L - bound) % bound;
+			while(low < threshold){
+				product = (nextLong() >>> 32) * bound;
+				low = product & 0xFFFFFFFFL;
+			}
+		}
+		return (int)(product >>> 32);
+	}
+	
+	/**
+	 * The next number of the SplitMix64 sequence.
+	 */
+	private long nextLong(){
+		long z = (state += GOLDEN_GAMMA);
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+	
+	private static synchronized long nextSeedUniquifier(){
+		seedUniquifier += GOLDEN_GAMMA;
+		return seedUniquifier ^ System.nanoTime();
+	}
+	
+	/**
+	 * Write the illness ranges and the state of the generator to a snapshot, see {@link HospitalSnapshot}.
+	 * @param out	The snapshot.
+	 * @throws IOException	If the snapshot cannot be written.
+	 */
+	void writeTo(SnapshotOutput out) throws IOException{
+		illnesses.writeTo(out);
+		out.writeLong(state);
+	}
+	
+	/**
+	 * Replace the illness ranges and the state of the generator with those read from a snapshot.
+	 * @param in	The snapshot.
+	 * @throws IOException	If the snapshot cannot be read or is corrupt.
+	 */
+	void readFrom(SnapshotInput in) throws IOException{
+		illnesses = IllnessCatalogue.readFrom(in);
+		state = in.readLong();
+	}
+}
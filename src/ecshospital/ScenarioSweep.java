@@ -0,0 +1,389 @@
+package ecshospital;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * <b>ScenarioSweep</b> answers what-if questions by simulating every combination of a grid of beds, theatres, doctors of each class and loads.
+ * <p>
+ * The workload comes from a configuration in the format of "myHospital.txt": its patients, arrivals, illnesses, capabilities, operations
+ * and treatments. It is read once, into a template {@link HospitalAdministrator}, and every scenario shares its tables read only.
+ * The hospital and the doctors of a scenario are built in code from the grid, see {@link HospitalAdministrator#createHospital(int, int)}.
+ * The hospital and doctors of the configuration are only the defaults of the grid.
+ * <p>
+ * The scenarios share nothing else, so they are spread over a ForkJoinPool. All of them use the same seed, so they differ by their
+ * parameters only, and a sweep can be repeated. The outcome is one CSV row per scenario, in grid order.
+ * @author Man-Leong Chan
+ */
+public class ScenarioSweep {
+
+	private static final String[] DOCTOR_CLASSES = {"doctor","surgeon","limbSurgeon","organSurgeon"};
+	private static final String CSV_HEADER = "beds,theatres,doctors,surgeons,limbSurgeons,organSurgeons,load,"
+			+ "days,cleared,treated,operations,discharged,dischargesPerDay,peakBedOccupancy,theatreUtilisation,meanTheatreWait";
+
+	private byte[] configuration;
+	private HospitalAdministrator template;
+
+	/*
+	 * The values of each parameter, the grid being every combination of them.
+	 * doctorCounts holds the values for each doctor class, in the order of DOCTOR_CLASSES.
+	 */
+	private int[] beds;
+	private int[] theatres;
+	private int[][] doctorCounts;
+	private double[] loads;
+
+	private int maxDays;
+	private long seed;
+
+	/**
+	 * One point of the grid and its outcome.
+	 */
+	public static class Scenario {
+
+		private int numOfBeds;
+		private int numOfTheatres;
+		private int[] numOfDoctors;
+		private double load;
+		private SimulationResult result;
+
+		/**
+		 * Constructor for a scenario not run yet.
+		 */
+		Scenario(int numOfBeds, int numOfTheatres, int[] numOfDoctors, double load){
+			this.numOfBeds = numOfBeds;
+			this.numOfTheatres = numOfTheatres;
+			this.numOfDoctors = numOfDoctors;
+			this.load = load;
+		}
+
+		/**
+		 * Get the outcome of the scenario.
+		 * @return	The outcome, null if it was not run.
+		 */
+		public SimulationResult getResult(){
+			return result;
+		}
+
+		/**
+		 * Get the parameters and the outcome as a row of the CSV.
+		 * @return	The row, without a line end.
+		 */
+		public String toCsv(){
+			StringBuilder row = new StringBuilder();
+			row.append(numOfBeds).append(',').append(numOfTheatres);
+			for(int count : numOfDoctors)
+				row.append(',').append(count);
+			row.append(',').append(String.format(Locale.ROOT, "%.3f", load));
+			if(result == null)
+				return row.append(",,,,,,,,,").toString();
+			row.append(',').append(result.getDaysElapsed())
+				.append(',').append(result.allPatientsCured())
+				.append(',').append(result.getPatientsTreated())
+				.append(',').append(result.getOperationsPerformed())
+				.append(',').append(result.getPatientsDischarged())
+				.append(',').append(String.format(Locale.ROOT, "%.3f", (double)result.getPatientsDischarged() / Math.max(1, result.getDaysElapsed())))
+				.append(',').append(String.format(Locale.ROOT, "%.3f", numOfBeds == 0 ? 0.0 : (double)result.getPeakOccupancy() / numOfBeds))
+				.append(',').append(String.format(Locale.ROOT, "%.3f", result.getTheatreUtilisation()))
+				.append(',').append(String.format(Locale.ROOT, "%.2f", result.getMeanTheatreWait()));
+			return row.toString();
+		}
+	}
+
+	/**
+	 * Constructor for a sweep of a workload. The configuration file is read once, up front, and its hospital and doctors become the
+	 * default of each parameter.
+	 * @param configurationFile		The configuration file, in the format of "myHospital.txt".
+	 * @param maxDays				The most days simulated by each scenario.
+	 * @param seed					The seed of every scenario.
+	 * @throws IOException			If the configuration file cannot be read.
+	 */
+	ScenarioSweep(File configurationFile, int maxDays, long seed) throws IOException{
+		this.configuration = Files.readAllBytes(configurationFile.toPath());
+		this.maxDays = maxDays;
+		this.seed = seed;
+
+		template = new HospitalAdministrator();
+		template.setEventLog(EventLog.NONE);
+		template.getRecoveryTimeSampler().setSeed(seed);
+		Hospital hospital = template.readConfiguration(new ConfigurationScanner(configuration));
+		template.closePatientSource();
+
+		beds = new int[] {hospital == null ? 0 : hospital.getNumOfBeds()};
+		theatres = new int[] {hospital == null ? 0 : hospital.getNumOfTheatres()};
+		doctorCounts = new int[DOCTOR_CLASSES.length][];
+		for(int kind=0;kind<DOCTOR_CLASSES.length;kind++){
+			try{
+				doctorCounts[kind] = new int[] {template.getNumOfAvailableDoctors(template.specialismCode(DOCTOR_CLASSES[kind]))};
+			}catch (Exception e){
+				//The doctor classes are all known
+				throw new IllegalStateException(e);
+			}
+		}
+		loads = new double[] {1};
+	}
+
+	/**
+	 * Set the numbers of beds to try.
+	 * @param beds	The numbers of beds.
+	 */
+	public void setBeds(int[] beds){
+		this.beds = beds;
+	}
+
+	/**
+	 * Set the numbers of theatres to try.
+	 * @param theatres	The numbers of theatres.
+	 */
+	public void setTheatres(int[] theatres){
+		this.theatres = theatres;
+	}
+
+	/**
+	 * Set the numbers of doctors of a class to try.
+	 * @param doctorClass	"doctor", "surgeon", "limbSurgeon" or "organSurgeon".
+	 * @param counts		The numbers of doctors.
+	 * @throws Exception	If the doctor class is unknown.
+	 */
+	public void setDoctors(String doctorClass, int[] counts) throws Exception{
+		for(int kind=0;kind<DOCTOR_CLASSES.length;kind++){
+			if(DOCTOR_CLASSES[kind].equals(doctorClass)){
+				doctorCounts[kind] = counts;
+				return;
+			}
+		}
+		throw new Exception("Unknown doctor class "+doctorClass+". ERROR");
+	}
+
+	/**
+	 * Set the loads to try, as factors of the configured arrival rates.
+	 * @param loads		The load factors, 1 for the configured load.
+	 */
+	public void setLoads(double[] loads){
+		this.loads = loads;
+	}
+
+	/**
+	 * Make every scenario of the grid, in grid order: beds, then theatres, then each doctor class, then load, the last varying fastest.
+	 * @return	The scenarios, not run yet.
+	 */
+	public List<Scenario> scenarios(){
+		List<Scenario> scenarios = new ArrayList<Scenario>();
+		int[] index = new int[2 + DOCTOR_CLASSES.length];
+		int[] sizes = new int[index.length];
+		sizes[0] = beds.length;
+		sizes[1] = theatres.length;
+		for(int kind=0;kind<DOCTOR_CLASSES.length;kind++)
+			sizes[2 + kind] = doctorCounts[kind].length;
+		for(int size : sizes){
+			if(size == 0)
+				return scenarios;
+		}
+
+		while(true){
+			int[] numOfDoctors = new int[DOCTOR_CLASSES.length];
+			for(int kind=0;kind<numOfDoctors.length;kind++)
+				numOfDoctors[kind] = doctorCounts[kind][index[2 + kind]];
+			for(double load : loads)
+				scenarios.add(new Scenario(beds[index[0]], theatres[index[1]], numOfDoctors, load));
+
+			//Next combination, like an odometer
+			int digit = index.length - 1;
+			while(digit >= 0 && ++index[digit] == sizes[digit]){
+				index[digit] = 0;
+				digit--;
+			}
+			if(digit < 0)
+				return scenarios;
+		}
+	}
+
+	/**
+	 * Run one scenario.
+	 * @param scenario	The scenario, its outcome is set.
+	 * @return	The scenario.
+	 */
+	public Scenario runOnce(Scenario scenario){
+		HospitalAdministrator hA = new HospitalAdministrator(template, seed, scenario.load);
+		hA.setEventLog(EventLog.NONE);
+		Hospital hospital = hA.createHospital(scenario.numOfBeds, scenario.numOfTheatres);
+		int iD = 1;
+		try{
+			for(int kind=0;kind<DOCTOR_CLASSES.length;kind++){
+				for(int i=0;i<scenario.numOfDoctors[kind];i++,iD++)
+					hA.addDoctor(iD, iD % 2 == 0 ? 'F' : 'M', 30 + iD % 30, DOCTOR_CLASSES[kind], hospital);
+			}
+		}catch (Exception e){
+			//The doctor classes are all known
+			throw new IllegalStateException(e);
+		}
+		hA.readPatients(configuration);
+		scenario.result = hA.simulate(maxDays);
+		hA.closePatientSource();
+		return scenario;
+	}
+
+	/**
+	 * Run every scenario of the grid on a pool of threads.
+	 * @param numOfThreads	The number of threads to use.
+	 * @return	The scenarios with their outcomes, in grid order.
+	 * @throws Exception	If a scenario failed.
+	 */
+	public List<Scenario> run(int numOfThreads) throws Exception{
+		List<Scenario> scenarios = scenarios();
+		List<Callable<Scenario>> runs = new ArrayList<Callable<Scenario>>(scenarios.size());
+		for(final Scenario scenario : scenarios){
+			runs.add(new Callable<Scenario>(){
+				public Scenario call(){
+					return runOnce(scenario);
+				}
+			});
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(numOfThreads);
+		try{
+			for(Future<Scenario> future : pool.invokeAll(runs))
+				future.get();
+			return scenarios;
+		}finally{
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Write scenarios as CSV, with a header row.
+	 * @param scenarios		The scenarios.
+	 * @param out			Where to write, it is flushed but not closed.
+	 */
+	public static void writeCsv(List<Scenario> scenarios, PrintWriter out){
+		out.println(CSV_HEADER);
+		for(Scenario scenario : scenarios)
+			out.println(scenario.toCsv());
+		out.flush();
+	}
+
+	/**
+	 * Parse the values of an integer parameter: a number, a list "A,B,C" or a range "MIN:MAX" or "MIN:MAX:STEP".
+	 * @param values	The values.
+	 * @return	The values, in the order given.
+	 * @throws NumberFormatException	If the values are invalid.
+	 */
+	static int[] parseInts(String values){
+		if(values.indexOf(':') >= 0){
+			String[] parts = values.split(":");
+			if(parts.length < 2 || parts.length > 3)
+				throw new NumberFormatException("Invalid range "+values);
+			int min = Integer.parseInt(parts[0].trim());
+			int max = Integer.parseInt(parts[1].trim());
+			int step = (parts.length == 3) ? Integer.parseInt(parts[2].trim()) : 1;
+			if(step <= 0 || max < min)
+				throw new NumberFormatException("Invalid range "+values);
+			int[] range = new int[(max - min) / step + 1];
+			for(int i=0;i<range.length;i++)
+				range[i] = min + i * step;
+			return range;
+		}
+		String[] parts = values.split(",");
+		int[] list = new int[parts.length];
+		for(int i=0;i<parts.length;i++)
+			list[i] = Integer.parseInt(parts[i].trim());
+		return list;
+	}
+
+	/**
+	 * Parse the values of a decimal parameter: a number or a list "A,B,C".
+	 * @param values	The values.
+	 * @return	The values, in the order given.
+	 * @throws NumberFormatException	If the values are invalid.
+	 */
+	static double[] parseDoubles(String values){
+		String[] parts = values.split(",");
+		double[] list = new double[parts.length];
+		for(int i=0;i<parts.length;i++)
+			list[i] = Double.parseDouble(parts[i].trim());
+		return list;
+	}
+
+	/**
+	 * Run a sweep from the command line and write the CSV.
+	 * <p>Arguments: the configuration file, then --beds=, --theatres=, --doctors=, --surgeons=, --limbSurgeons= and --organSurgeons=
+	 * each with a number, a list "A,B,C" or a range "MIN:MAX[:STEP]", --load= with a list of factors of the arrival rates,
+	 * --days=N (10000 by default), --seed=N, --threads=N and --out=FILE (the console by default).
+	 * @param args	The configuration file and the options.
+	 */
+	public static void main(String[] args){
+		if(args.length < 1){
+			System.err.println("Usage: ScenarioSweep <configuration file> [--beds=R] [--theatres=R] [--doctors=R] [--surgeons=R] [--limbSurgeons=R] [--organSurgeons=R] [--load=L] [--days=N] [--seed=N] [--threads=N] [--out=FILE]");
+			return;
+		}
+		int maxDays = 10000;
+		long seed = System.nanoTime();
+		int numOfThreads = Runtime.getRuntime().availableProcessors();
+		String outFile = null;
+		ArrayList<String> gridOptions = new ArrayList<String>();
+		try{
+			for(int i=1;i<args.length;i++){
+				if(args[i].startsWith("--days="))
+					maxDays = Integer.parseInt(args[i].substring("--days=".length()));
+				else if(args[i].startsWith("--seed="))
+					seed = Long.parseLong(args[i].substring("--seed=".length()));
+				else if(args[i].startsWith("--threads="))
+					numOfThreads = Integer.parseInt(args[i].substring("--threads=".length()));
+				else if(args[i].startsWith("--out="))
+					outFile = args[i].substring("--out=".length());
+				else
+					gridOptions.add(args[i]);
+			}
+
+			ScenarioSweep sweep = new ScenarioSweep(new File(args[0]), maxDays, seed);
+			for(String option : gridOptions){
+				int equals = option.indexOf('=');
+				String name = (option.startsWith("--") && equals > 2) ? option.substring(2, equals) : option;
+				String values = (equals > 0) ? option.substring(equals + 1) : "";
+				if(name.equals("beds"))
+					sweep.setBeds(parseInts(values));
+				else if(name.equals("theatres"))
+					sweep.setTheatres(parseInts(values));
+				else if(name.equals("load"))
+					sweep.setLoads(parseDoubles(values));
+				else if(name.equals("doctors"))
+					sweep.setDoctors("doctor", parseInts(values));
+				else if(name.equals("surgeons"))
+					sweep.setDoctors("surgeon", parseInts(values));
+				else if(name.equals("limbSurgeons"))
+					sweep.setDoctors("limbSurgeon", parseInts(values));
+				else if(name.equals("organSurgeons"))
+					sweep.setDoctors("organSurgeon", parseInts(values));
+				else
+					System.err.println("Unknown option "+option+" ignored.");
+			}
+
+			long start = System.nanoTime();
+			List<Scenario> scenarios = sweep.run(numOfThreads);
+			long elapsed = System.nanoTime() - start;
+			PrintWriter out = (outFile == null) ? new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII))
+					: new PrintWriter(new OutputStreamWriter(new FileOutputStream(outFile), StandardCharsets.US_ASCII));
+			try{
+				writeCsv(scenarios, out);
+			}finally{
+				if(outFile != null)
+					out.close();
+			}
+			System.err.println(String.format("%d scenarios in %.1f ms on %d threads, seed %d", scenarios.size(), elapsed / 1e6, numOfThreads, seed));
+		}catch (NumberFormatException e){
+			System.err.println("Invalid option: "+e.getMessage());
+		}catch (Exception e){
+			System.err.println(e);
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package ecshospital;
+
+/**
+ * <b>SimulationEvent</b> is something due to happen in a {@link Hospital} on a given day, see {@link HospitalAdministrator#simulateEventDriven(int)}.
+ * <p>Events are ordered by day, so they can be kept in a priority queue.
+ * @author Man-Leong Chan
+ */
+public class SimulationEvent implements Comparable<SimulationEvent> {
+	
+	/**
+	 * The kinds of event the hospital keeps track of.
+	 */
+	public enum Type {
+		/**
+		 * A recovering patient becomes healthy and is discharged.
+		 */
+		RECOVERY_COMPLETE,
+		/**
+		 * An operation is over, its theatre is emptied at the end of the day.
+		 */
+		THEATRE_FREE,
+		/**
+		 * A booked operation starts.
+		 */
+		OPERATION_START
+	}
+	
+	private final Type type;
+	private final int day;
+	
+	/**
+	 * Constructor.
+	 * @param type	The kind of event.
+	 * @param day	The day it happens on.
+	 */
+	SimulationEvent(Type type, int day){
+		this.type = type;
+		this.day = day;
+	}
+	
+	/**
+	 * Get the kind of event.
+	 * @return	The type.
+	 */
+	public Type getType(){
+		return type;
+	}
+	
+	/**
+	 * Get the day the event happens on.
+	 * @return	The day.
+	 */
+	public int getDay(){
+		return day;
+	}
+	
+	/**
+	 * Order events by day.
+	 * @param other		The other event.
+	 * @return	Negative, zero or positive as this event is earlier, on the same day or later.
+	 */
+	public int compareTo(SimulationEvent other){
+		return Integer.compare(day, other.day);
+	}
+}
@@ -0,0 +1,154 @@
+package ecshospital;
+
+/**
+ * <b>SimulationResult</b> is the outcome of one simulation run, see {@link HospitalAdministrator#simulate(int)}.
+ * <p>It is a snapshot: it does not change when the simulation carries on.
+ * @author Man-Leong Chan
+ */
+public class SimulationResult {
+	
+	private final int daysElapsed;
+	private final int patientsTreated;
+	private final int operationsPerformed;
+	private final int patientsDischarged;
+	private final int peakOccupancy;
+	private final int numOfTheatres;
+	private final long theatreDaysUsed;
+	private final double meanTheatreWait;
+	private final boolean allPatientsCured;
+	
+	/*
+	 * Indexed by illness code, NaN where no patient with the illness was discharged.
+	 */
+	private final double[] meanLengthOfStay;
+	
+	/**
+	 * Take a snapshot of a hospital's statistics.
+	 * @param daysElapsed			The number of days simulated.
+	 * @param hospital				The hospital simulated.
+	 * @param allPatientsCured		Whether the run ended because every patient left, rather than at the day limit.
+	 */
+	SimulationResult(int daysElapsed, Hospital hospital, boolean allPatientsCured){
+		HospitalStatistics statistics = hospital.getStatistics();
+		this.daysElapsed = daysElapsed;
+		this.patientsTreated = statistics.getNumOfTreatments() + statistics.getNumOfOperations();
+		this.operationsPerformed = statistics.getNumOfOperations();
+		this.patientsDischarged = statistics.getNumOfDischarges();
+		this.peakOccupancy = statistics.getPeakOccupancy();
+		this.numOfTheatres = hospital.getNumOfTheatres();
+		this.theatreDaysUsed = statistics.getTheatreDaysUsed();
+		this.meanTheatreWait = statistics.getMeanTheatreWait();
+		this.allPatientsCured = allPatientsCured;
+		
+		meanLengthOfStay = new double[CapabilityTable.MAX_ILLNESS + 1];
+		for(int illness=0;illness<meanLengthOfStay.length;illness++)
+			meanLengthOfStay[illness] = statistics.getMeanLengthOfStay(illness);
+	}
+	
+	/**
+	 * Get the number of days simulated.
+	 * @return	The number of days.
+	 */
+	public int getDaysElapsed(){
+		return daysElapsed;
+	}
+	
+	/**
+	 * Get the number of patients treated, on the ward or in a theatre.
+	 * @return	The count.
+	 */
+	public int getPatientsTreated(){
+		return patientsTreated;
+	}
+	
+	/**
+	 * Get the number of operations performed.
+	 * @return	The count.
+	 */
+	public int getOperationsPerformed(){
+		return operationsPerformed;
+	}
+	
+	/**
+	 * Get the number of patients discharged.
+	 * @return	The count.
+	 */
+	public int getPatientsDischarged(){
+		return patientsDischarged;
+	}
+	
+	/**
+	 * Get the highest number of patients in beds at once.
+	 * @return	The count.
+	 */
+	public int getPeakOccupancy(){
+		return peakOccupancy;
+	}
+	
+	/**
+	 * Get the number of theatre days used.
+	 * @return	The count.
+	 */
+	public long getTheatreDaysUsed(){
+		return theatreDaysUsed;
+	}
+	
+	/**
+	 * Get the share of theatre days that were used.
+	 * @return	A number between 0 and 1, 0 for a hospital without theatres.
+	 */
+	public double getTheatreUtilisation(){
+		if(numOfTheatres == 0 || daysElapsed == 0)
+			return 0;
+		return (double)theatreDaysUsed / ((long)numOfTheatres * daysElapsed);
+	}
+	
+	/**
+	 * Get the mean number of days that operated patients waited for a theatre.
+	 * @return	The mean in days, NaN if no operation was performed.
+	 */
+	public double getMeanTheatreWait(){
+		return meanTheatreWait;
+	}
+	
+	/**
+	 * Whether the run ended because every patient left, rather than at the day limit.
+	 * @return	True if the hospital was cleared.
+	 */
+	public boolean allPatientsCured(){
+		return allPatientsCured;
+	}
+	
+	/**
+	 * Get the mean length of stay of discharged patients with an illness.
+	 * @param illness	The illness code.
+	 * @return	The mean in days, NaN if no such patient was discharged.
+	 */
+	public double getMeanLengthOfStay(int illness){
+		if(illness < 0 || illness >= meanLengthOfStay.length)
+			return Double.NaN;
+		return meanLengthOfStay[illness];
+	}
+	
+	/**
+	 * A one line summary followed by the mean length of stay of every illness seen.
+	 * @return	The summary.
+	 */
+	public String toString(){
+		StringBuilder summary = new StringBuilder();
+		summary.append("days=").append(daysElapsed)
+			.append(" cleared=").append(allPatientsCured)
+			.append(" treated=").append(patientsTreated)
+			.append(" operations=").append(operationsPerformed)
+			.append(" discharged=").append(patientsDischarged)
+			.append(" peakOccupancy=").append(peakOccupancy)
+			.append(" theatreUtilisation=").append(String.format("%.3f", getTheatreUtilisation()));
+		if(!Double.isNaN(meanTheatreWait))
+			summary.append(" meanTheatreWait=").append(String.format("%.2f", meanTheatreWait));
+		for(int illness=0;illness<meanLengthOfStay.length;illness++){
+			if(!Double.isNaN(meanLengthOfStay[illness]))
+				summary.append(String.format("%nillness %d: mean length of stay %.2f days", illness, meanLengthOfStay[illness]));
+		}
+		return summary.toString();
+	}
+}
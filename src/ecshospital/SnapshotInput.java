@@ -0,0 +1,131 @@
+package ecshospital;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * <b>SnapshotInput</b> reads the primitive values of a snapshot from a channel through a 64 KiB buffer, see {@link HospitalSnapshot}.
+ * @author Man-Leong Chan
+ */
+public class SnapshotInput {
+	
+	private static final int BUFFER_SIZE = 1 << 16;
+	
+	/*
+	 * The longest array a snapshot may hold, anything longer means the snapshot is corrupt.
+	 */
+	private static final int MAX_ARRAY_LENGTH = 1 << 28;
+	
+	private ReadableByteChannel channel;
+	private ByteBuffer buffer;
+	
+	/**
+	 * Constructor.
+	 * @param channel	The channel read from, it is not closed.
+	 */
+	SnapshotInput(ReadableByteChannel channel){
+		this.channel = channel;
+		buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		buffer.limit(0);
+	}
+	
+	/**
+	 * Read an int.
+	 * @return	The value.
+	 * @throws IOException	If the channel cannot be read or the snapshot ends early.
+	 */
+	public int readInt() throws IOException{
+		require(4);
+		return buffer.getInt();
+	}
+	
+	/**
+	 * Read a long.
+	 * @return	The value.
+	 * @throws IOException	If the channel cannot be read or the snapshot ends early.
+	 */
+	public long readLong() throws IOException{
+		require(8);
+		return buffer.getLong();
+	}
+	
+	/**
+	 * Read a double written by {@link SnapshotOutput#writeDouble(double)}.
+	 * @return	The value.
+	 * @throws IOException	If the channel cannot be read or the snapshot ends early.
+	 */
+	public double readDouble() throws IOException{
+		return Double.longBitsToDouble(readLong());
+	}
+	
+	/**
+	 * Read a boolean.
+	 * @return	The value.
+	 * @throws IOException	If the channel cannot be read or the snapshot ends early.
+	 */
+	public boolean readBoolean() throws IOException{
+		require(1);
+		return buffer.get() != 0;
+	}
+	
+	/**
+	 * Read a char.
+	 * @return	The value.
+	 * @throws IOException	If the channel cannot be read or the snapshot ends early.
+	 */
+	public char readChar() throws IOException{
+		require(2);
+		return buffer.getChar();
+	}
+	
+	/**
+	 * Read a count or array length, which cannot be negative.
+	 * @return	The value.
+	 * @throws IOException	If the channel cannot be read, or the length is impossible.
+	 */
+	public int readLength() throws IOException{
+		int length = readInt();
+		if(length < 0 || length > MAX_ARRAY_LENGTH)
+			throw new IOException("Snapshot is corrupt: length "+length+". ERROR");
+		return length;
+	}
+	
+	/**
+	 * Read an int array written by {@link SnapshotOutput#writeIntArray(int[])}.
+	 * @return	The array.
+	 * @throws IOException	If the channel cannot be read or the snapshot is corrupt.
+	 */
+	public int[] readIntArray() throws IOException{
+		int[] values = new int[readLength()];
+		for(int i=0;i<values.length;i++)
+			values[i] = readInt();
+		return values;
+	}
+	
+	/**
+	 * Read a long array written by {@link SnapshotOutput#writeLongArray(long[])}.
+	 * @return	The array.
+	 * @throws IOException	If the channel cannot be read or the snapshot is corrupt.
+	 */
+	public long[] readLongArray() throws IOException{
+		long[] values = new long[readLength()];
+		for(int i=0;i<values.length;i++)
+			values[i] = readLong();
+		return values;
+	}
+	
+	/**
+	 * Make sure that the buffer holds at least some bytes, reading more from the channel when needed.
+	 */
+	private void require(int bytes) throws IOException{
+		if(buffer.remaining() >= bytes)
+			return;
+		buffer.compact();
+		while(buffer.position() < bytes){
+			if(channel.read(buffer) == -1)
+				throw new EOFException("Snapshot is truncated. ERROR");
+		}
+		buffer.flip();
+	}
+}
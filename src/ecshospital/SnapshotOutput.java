@@ -0,0 +1,113 @@
+package ecshospital;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * <b>SnapshotOutput</b> writes the primitive values of a snapshot through a 64 KiB buffer to a channel, see {@link HospitalSnapshot}.
+ * <p>Values are written big-endian, in the order the matching {@link SnapshotInput} reads them.
+ * @author Man-Leong Chan
+ */
+public class SnapshotOutput {
+	
+	private static final int BUFFER_SIZE = 1 << 16;
+	
+	private WritableByteChannel channel;
+	private ByteBuffer buffer;
+	
+	/**
+	 * Constructor.
+	 * @param channel	The channel written to, it is not closed.
+	 */
+	SnapshotOutput(WritableByteChannel channel){
+		this.channel = channel;
+		buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	}
+	
+	/**
+	 * Write an int.
+	 * @param value		The value.
+	 * @throws IOException	If the channel cannot be written.
+	 */
+	public void writeInt(int value) throws IOException{
+		ensureRoom(4);
+		buffer.putInt(value);
+	}
+	
+	/**
+	 * Write a long.
+	 * @param value		The value.
+	 * @throws IOException	If the channel cannot be written.
+	 */
+	public void writeLong(long value) throws IOException{
+		ensureRoom(8);
+		buffer.putLong(value);
+	}
+	
+	/**
+	 * Write a double, as the bits of its long representation.
+	 * @param value		The value.
+	 * @throws IOException	If the channel cannot be written.
+	 */
+	public void writeDouble(double value) throws IOException{
+		writeLong(Double.doubleToRawLongBits(value));
+	}
+	
+	/**
+	 * Write a boolean as one byte.
+	 * @param value		The value.
+	 * @throws IOException	If the channel cannot be written.
+	 */
+	public void writeBoolean(boolean value) throws IOException{
+		ensureRoom(1);
+		buffer.put(value ? (byte)1 : (byte)0);
+	}
+	
+	/**
+	 * Write a char.
+	 * @param value		The value.
+	 * @throws IOException	If the channel cannot be written.
+	 */
+	public void writeChar(char value) throws IOException{
+		ensureRoom(2);
+		buffer.putChar(value);
+	}
+	
+	/**
+	 * Write an int array, its length first.
+	 * @param values	The array.
+	 * @throws IOException	If the channel cannot be written.
+	 */
+	public void writeIntArray(int[] values) throws IOException{
+		writeInt(values.length);
+		for(int i=0;i<values.length;i++)
+			writeInt(values[i]);
+	}
+	
+	/**
+	 * Write a long array, its length first.
+	 * @param values	The array.
+	 * @throws IOException	If the channel cannot be written.
+	 */
+	public void writeLongArray(long[] values) throws IOException{
+		writeInt(values.length);
+		for(int i=0;i<values.length;i++)
+			writeLong(values[i]);
+	}
+	
+	/**
+	 * Write out the buffered bytes.
+	 * @throws IOException	If the channel cannot be written.
+	 */
+	public void flush() throws IOException{
+		buffer.flip();
+		while(buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+	
+	private void ensureRoom(int bytes) throws IOException{
+		if(buffer.remaining() < bytes)
+			flush();
+	}
+}
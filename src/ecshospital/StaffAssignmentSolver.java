@@ -0,0 +1,201 @@
+package ecshospital;
+import java.util.Arrays;
+
+/**
+ * <b>StaffAssignmentSolver</b> plans which free doctors take which waiting patients for the day, as a minimum cost maximum flow.
+ * <p>
+ * Doctors of the same specialism are alike, and so are patients with the same illness, so the flow runs over counts: from a source to each
+ * specialism up to its free doctors, from a specialism to each illness it can take care of, see {@link CapabilityTable}, and from each illness
+ * to a sink up to its waiting patients. The graph has at most 5 specialisms and 64 illnesses whatever the number of doctors and beds,
+ * so solving it costs the same for a handful of doctors as for thousands.
+ * <p>
+ * The flow assigns as many patients as can be assigned. Among those assignments it prefers patients whose illness few of the free
+ * specialisms can take care of, and then doctors of the narrowest specialism: a surgeon is kept for the patients only a surgeon can help
+ * while a doctor can treat the others.
+ * <p>
+ * The flow is found by successive shortest paths, each augmenting path carrying as much as it can.
+ * @author Man-Leong Chan
+ */
+public class StaffAssignmentSolver {
+
+	private static final int SOURCE = 0;
+	private static final int UNLIMITED = Integer.MAX_VALUE;
+
+	/*
+	 * The nodes: the source, one per specialism, one per illness and the sink.
+	 * Edges are kept in arrays, each edge followed by its reverse, so edge e ^ 1 is the reverse of edge e.
+	 */
+	private int numOfSpecialisms;
+	private int numOfIllnesses;
+	private int sink;
+	private int[] firstEdge;
+	private int[] nextEdge;
+	private int[] target;
+	private int[] capacity;
+	private int[] cost;
+	private int numOfEdges;
+
+	/*
+	 * The state of the shortest path search, kept between days.
+	 */
+	private long[] distance;
+	private int[] arrivingEdge;
+	private boolean[] queued;
+	private int[] queue;
+
+	/*
+	 * plan[specialism][illness] is the number of doctors of the specialism to assign to patients with the illness.
+	 */
+	private int[][] plan;
+
+	/**
+	 * Constructor for a solver of the given number of specialisms and illnesses.
+	 * @param numOfSpecialisms	The number of specialism codes, from 0.
+	 * @param numOfIllnesses	The number of illness codes, from 0.
+	 */
+	StaffAssignmentSolver(int numOfSpecialisms, int numOfIllnesses){
+		this.numOfSpecialisms = numOfSpecialisms;
+		this.numOfIllnesses = numOfIllnesses;
+		int numOfNodes = numOfSpecialisms + numOfIllnesses + 2;
+		sink = numOfNodes - 1;
+		int maxEdges = 2 * (numOfSpecialisms + numOfSpecialisms * numOfIllnesses + numOfIllnesses);
+		firstEdge = new int[numOfNodes];
+		nextEdge = new int[maxEdges];
+		target = new int[maxEdges];
+		capacity = new int[maxEdges];
+		cost = new int[maxEdges];
+		distance = new long[numOfNodes];
+		arrivingEdge = new int[numOfNodes];
+		queued = new boolean[numOfNodes];
+		queue = new int[numOfNodes];
+		plan = new int[numOfSpecialisms][numOfIllnesses];
+	}
+
+	/**
+	 * Plan the assignments of the day.
+	 * @param doctors		The number of free doctors of each specialism, indexed by specialism code.
+	 * @param patients		The number of waiting patients with each illness, indexed by illness code.
+	 * @param capabilities	What each specialism can take care of.
+	 * @return	The number of doctors of each specialism to assign to patients with each illness, indexed [specialism][illness].
+	 * The array is reused by the next call.
+	 */
+	public int[][] solve(int[] doctors, int[] patients, CapabilityTable capabilities){
+		for(int specialism=0;specialism<numOfSpecialisms;specialism++)
+			Arrays.fill(plan[specialism], 0);
+		Arrays.fill(firstEdge, -1);
+		numOfEdges = 0;
+
+		/*
+		 * Cost of assigning a doctor: first the number of free specialisms that could take the patient, so rare cases go first,
+		 * then the number of illnesses the doctor's specialism can take, so narrow doctors go first.
+		 */
+		int breadthRange = numOfIllnesses + 1;
+		for(int illness=0;illness<numOfIllnesses;illness++){
+			if(patients[illness] <= 0)
+				continue;
+			int alternatives = 0;
+			for(int specialism=0;specialism<numOfSpecialisms;specialism++){
+				if(doctors[specialism] > 0 && capabilities.canBeAssigned(specialism, illness))
+					alternatives++;
+			}
+			if(alternatives == 0)
+				continue;
+			for(int specialism=0;specialism<numOfSpecialisms;specialism++){
+				if(doctors[specialism] > 0 && capabilities.canBeAssigned(specialism, illness))
+					addEdge(specialismNode(specialism), illnessNode(illness), UNLIMITED,
+							alternatives * breadthRange + capabilities.getIllnesses(specialism).length);
+			}
+			addEdge(illnessNode(illness), sink, patients[illness], 0);
+		}
+		for(int specialism=0;specialism<numOfSpecialisms;specialism++){
+			if(doctors[specialism] > 0 && firstEdge[specialismNode(specialism)] != -1)
+				addEdge(SOURCE, specialismNode(specialism), doctors[specialism], 0);
+		}
+
+		while(findShortestPath()){
+			//Push as much as the path can carry
+			int amount = UNLIMITED;
+			for(int node=sink;node!=SOURCE;node=target[arrivingEdge[node] ^ 1])
+				amount = Math.min(amount, capacity[arrivingEdge[node]]);
+			for(int node=sink;node!=SOURCE;node=target[arrivingEdge[node] ^ 1]){
+				int edge = arrivingEdge[node];
+				if(capacity[edge] != UNLIMITED)
+					capacity[edge] -= amount;
+				if(capacity[edge ^ 1] != UNLIMITED)
+					capacity[edge ^ 1] += amount;
+			}
+		}
+
+		//The flow on a specialism to illness edge is the capacity of its reverse
+		for(int specialism=0;specialism<numOfSpecialisms;specialism++){
+			for(int edge=firstEdge[specialismNode(specialism)];edge!=-1;edge=nextEdge[edge]){
+				int node = target[edge];
+				if(node != SOURCE)
+					plan[specialism][node - numOfSpecialisms - 1] = capacity[edge ^ 1];
+			}
+		}
+		return plan;
+	}
+
+	/**
+	 * Find the cheapest path with spare capacity from the source to the sink, by Bellman-Ford with a queue, as reverse edges have negative costs.
+	 * @return	True if there is a path, it is left in arrivingEdge.
+	 */
+	private boolean findShortestPath(){
+		Arrays.fill(distance, Long.MAX_VALUE);
+		Arrays.fill(arrivingEdge, -1);
+		distance[SOURCE] = 0;
+		int head = 0;
+		int count = 0;
+		queue[0] = SOURCE;
+		queued[SOURCE] = true;
+		count++;
+		while(count > 0){
+			int node = queue[head];
+			head = (head + 1) % queue.length;
+			count--;
+			queued[node] = false;
+			for(int edge=firstEdge[node];edge!=-1;edge=nextEdge[edge]){
+				if(capacity[edge] == 0)
+					continue;
+				int next = target[edge];
+				long nextDistance = distance[node] + cost[edge];
+				if(nextDistance < distance[next]){
+					distance[next] = nextDistance;
+					arrivingEdge[next] = edge;
+					if(!queued[next]){
+						queue[(head + count) % queue.length] = next;
+						queued[next] = true;
+						count++;
+					}
+				}
+			}
+		}
+		return distance[sink] != Long.MAX_VALUE;
+	}
+
+	/**
+	 * Add an edge and its reverse, which starts without capacity.
+	 */
+	private void addEdge(int from, int to, int edgeCapacity, int edgeCost){
+		target[numOfEdges] = to;
+		capacity[numOfEdges] = edgeCapacity;
+		cost[numOfEdges] = edgeCost;
+		nextEdge[numOfEdges] = firstEdge[from];
+		firstEdge[from] = numOfEdges++;
+
+		target[numOfEdges] = from;
+		capacity[numOfEdges] = 0;
+		cost[numOfEdges] = -edgeCost;
+		nextEdge[numOfEdges] = firstEdge[to];
+		firstEdge[to] = numOfEdges++;
+	}
+
+	private int specialismNode(int specialism){
+		return 1 + specialism;
+	}
+
+	private int illnessNode(int illness){
+		return 1 + numOfSpecialisms + illness;
+	}
+}
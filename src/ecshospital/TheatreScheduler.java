@@ -0,0 +1,427 @@
+package ecshospital;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * <b>TheatreScheduler</b> runs the operation theatres of a {@link Hospital}.
+ * <p>
+ * A surgeon who finds a theatre free today operates straight away, see {@link #claimFreeTheatre(Patient, int)}.
+ * Otherwise the patient joins a waiting list. At the end of each day the waiting list is booked, longest waiting patient first,
+ * into the theatre that frees up soonest, and the operation starts on the booked day.
+ * <p>
+ * An operation keeps its theatre for a number of days that depends on the illness, 1 unless configured otherwise.
+ * @author Man-Leong Chan
+ */
+public class TheatreScheduler {
+	
+	/**
+	 * A patient waiting for a theatre, and the slot booked for it once there is one.
+	 */
+	private static class Booking {
+		final Patient patient;
+		final int requestDay;
+		int theatre;
+		int startDay;
+	
+		Booking(Patient patient, int requestDay){
+			this.patient = patient;
+			this.requestDay = requestDay;
+		}
+	}
+	
+	/*
+	 * Per theatre: the patient in it, the first day after the current operation, and the first day after all operations booked into it.
+	 * freeTheatres has a bit set for every theatre with nobody in it and nothing booked, which is free to claim today.
+	 */
+	private Patient[] occupant;
+	private int[] operationEnds;
+	private int[] freeFromDay;
+	private BitSet freeTheatres;
+	private int numOfFreeTheatres;
+	
+	/*
+	 * Patients waiting for a slot, by queue ticket, and the slots booked, by start day.
+	 */
+	private PriorityQueue<Booking> waitingList;
+	private PriorityQueue<Booking> bookings;
+	
+	/*
+	 * The number of days an operation takes, indexed by illness code.
+	 */
+	private int[] operationDays;
+	
+	private HospitalStatistics statistics;
+	
+	/**
+	 * Constructor for a set of free theatres.
+	 * @param numOfTheatres		The number of theatres.
+	 * @param statistics		The statistics of the hospital the theatres belong to.
+	 */
+	TheatreScheduler(int numOfTheatres, HospitalStatistics statistics){
+		occupant = new Patient[numOfTheatres];
+		operationEnds = new int[numOfTheatres];
+		freeFromDay = new int[numOfTheatres];
+		freeTheatres = new BitSet(numOfTheatres);
+		freeTheatres.set(0, numOfTheatres);
+		numOfFreeTheatres = numOfTheatres;
+	
+		waitingList = new PriorityQueue<Booking>(11, new Comparator<Booking>(){
+			public int compare(Booking a, Booking b){
+				return Long.compare(a.patient.getQueueTicket(), b.patient.getQueueTicket());
+			}
+		});
+		bookings = new PriorityQueue<Booking>(11, new Comparator<Booking>(){
+			public int compare(Booking a, Booking b){
+				if(a.startDay != b.startDay)
+					return Integer.compare(a.startDay, b.startDay);
+				return Integer.compare(a.theatre, b.theatre);
+			}
+		});
+	
+		operationDays = defaultOperationDays();
+		this.statistics = statistics;
+	}
+	
+	/**
+	 * Get a table of operation days with every operation taking 1 day.
+	 * @return	The table, indexed by illness code.
+	 */
+	static int[] defaultOperationDays(){
+		int[] operationDays = new int[CapabilityTable.MAX_ILLNESS + 1];
+		for(int illness=0;illness<operationDays.length;illness++)
+			operationDays[illness] = 1;
+		return operationDays;
+	}
+	
+	/**
+	 * Set the table of operation days. The table is shared, not copied, so later changes to it are seen.
+	 * @param operationDays		The number of days an operation takes, indexed by illness code.
+	 */
+	void setOperationDays(int[] operationDays){
+		this.operationDays = operationDays;
+	}
+	
+	/**
+	 * Get the number of days an operation for an illness takes.
+	 * @param illness	The illness code.
+	 * @return	The number of days, at least 1.
+	 */
+	public int getOperationDays(int illness){
+		if(illness < 0 || illness >= operationDays.length)
+			return 1;
+		return operationDays[illness];
+	}
+	
+	/**
+	 * Get the number of theatres.
+	 * @return	The count.
+	 */
+	public int size(){
+		return occupant.length;
+	}
+	
+	/**
+	 * Get the number of theatres with nobody in them.
+	 * @return	The count.
+	 */
+	public int getNumOfFreeTheatres(){
+		return numOfFreeTheatres;
+	}
+	
+	/**
+	 * Get the number of patients waiting for a slot to be booked.
+	 * @return	The count.
+	 */
+	public int getNumOfWaitingPatients(){
+		return waitingList.size();
+	}
+	
+	/**
+	 * Get the number of operations booked that have not started yet.
+	 * @return	The count.
+	 */
+	public int getNumOfBookings(){
+		return bookings.size();
+	}
+	
+	/**
+	 * Get the day the next booked operation starts.
+	 * @return	The day, Integer.MAX_VALUE if nothing is booked.
+	 */
+	public int getNextBookedDay(){
+		if(bookings.isEmpty())
+			return Integer.MAX_VALUE;
+		return bookings.peek().startDay;
+	}
+	
+	/**
+	 * Get the day the last booked operation starts.
+	 * @return	The day, Integer.MIN_VALUE if nothing is booked.
+	 */
+	public int getLastBookedDay(){
+		int lastDay = Integer.MIN_VALUE;
+		for(Booking booking : bookings){
+			if(booking.startDay > lastDay)
+				lastDay = booking.startDay;
+		}
+		return lastDay;
+	}
+	
+	/**
+	 * Get the patient of the booked operation that starts last, the one {@link #cancelLastBooking()} cancels.
+	 * @return	The patient, null if nothing is booked.
+	 */
+	Patient getLastBookedPatient(){
+		Booking last = lastBooking();
+		return (last == null) ? null : last.patient;
+	}
+	
+	/**
+	 * Cancel the booked operation that starts last, e.g. to operate on the patient elsewhere.
+	 * <p>If it was the last operation booked into its theatre, the theatre is free from its start day again.
+	 * An operation booked earlier leaves a gap behind, which later bookings do not fill.
+	 * @return	The patient of the booking, null if nothing is booked.
+	 */
+	Patient cancelLastBooking(){
+		Booking last = lastBooking();
+		if(last == null)
+			return null;
+		bookings.remove(last);
+		if(freeFromDay[last.theatre] == last.startDay + getOperationDays(last.patient.getIllness()))
+			freeFromDay[last.theatre] = last.startDay;
+		return last.patient;
+	}
+	
+	/**
+	 * The booking that starts last, of the highest theatre among those starting that day.
+	 */
+	private Booking lastBooking(){
+		Booking last = null;
+		for(Booking booking : bookings){
+			if(last == null || booking.startDay > last.startDay || (booking.startDay == last.startDay && booking.theatre > last.theatre))
+				last = booking;
+		}
+		return last;
+	}
+	
+	/**
+	 * Get the first day after the operation in a theatre.
+	 * @param theatreIndex	The theatre index.
+	 * @return	The day, only meaningful while the theatre has a patient.
+	 */
+	public int getOperationEnd(int theatreIndex){
+		return operationEnds[theatreIndex];
+	}
+	
+	/**
+	 * Check if a theatre is free to claim today, with nobody in it and nothing booked.
+	 * @param theatreIndex	The theatre index.
+	 * @return	Whether the theatre is free.
+	 */
+	public boolean isTheatreFree(int theatreIndex){
+		return freeTheatres.get(theatreIndex);
+	}
+	
+	/**
+	 * Find a theatre that is free to claim today.
+	 * @return	The theatre index, -1 if none is free.
+	 */
+	public int findFreeTheatre(){
+		return freeTheatres.nextSetBit(0);
+	}
+	
+	/**
+	 * Get the patient in a theatre.
+	 * @param theatreIndex	The theatre index.
+	 * @return	The patient, null if the theatre is empty.
+	 */
+	public Patient getOccupant(int theatreIndex){
+		return occupant[theatreIndex];
+	}
+	
+	/**
+	 * Put a patient into a theatre for today's operation, the theatre is kept for the operation's days.
+	 * @param theatreIndex	The theatre index, which must be free.
+	 * @param patient		The patient.
+	 * @param today			The current day.
+	 */
+	void claim(int theatreIndex, Patient patient, int today){
+		int days = getOperationDays(patient.getIllness());
+		occupant[theatreIndex] = patient;
+		operationEnds[theatreIndex] = today + days;
+		freeFromDay[theatreIndex] = today + days;
+		freeTheatres.clear(theatreIndex);
+		numOfFreeTheatres--;
+		statistics.recordOperation(0);
+	}
+	
+	/**
+	 * Claim the lowest numbered theatre free today for a patient.
+	 * @param patient	The patient.
+	 * @param today		The current day.
+	 * @return	The theatre index, -1 if none is free.
+	 */
+	int claimFreeTheatre(Patient patient, int today){
+		int theatreIndex = findFreeTheatre();
+		if(theatreIndex != -1)
+			claim(theatreIndex, patient, today);
+		return theatreIndex;
+	}
+	
+	/**
+	 * Put a patient on the waiting list, a slot is booked for it at the end of the day.
+	 * @param patient	The patient.
+	 * @param today		The current day.
+	 */
+	void addToWaitingList(Patient patient, int today){
+		waitingList.add(new Booking(patient, today));
+	}
+	
+	/**
+	 * Take the patient out of a theatre, and free the theatre unless it has bookings.
+	 * @param theatreIndex	The theatre index.
+	 * @param today			The current day.
+	 */
+	void release(int theatreIndex, int today){
+		if(occupant[theatreIndex] == null)
+			return;
+		occupant[theatreIndex] = null;
+		numOfFreeTheatres++;
+		//Without bookings after the current operation, the theatre is free from now on
+		if(freeFromDay[theatreIndex] <= operationEnds[theatreIndex]){
+			freeFromDay[theatreIndex] = today;
+			freeTheatres.set(theatreIndex);
+		}
+	}
+	
+	/**
+	 * Start the next operation booked for today, putting the patient into its theatre.
+	 * @param today		The current day.
+	 * @return	The patient whose operation starts, null if no more operations are booked for today.
+	 */
+	Patient startNextBookedOperation(int today){
+		if(bookings.isEmpty() || bookings.peek().startDay > today)
+			return null;
+		Booking booking = bookings.poll();
+		occupant[booking.theatre] = booking.patient;
+		operationEnds[booking.theatre] = today + getOperationDays(booking.patient.getIllness());
+		numOfFreeTheatres--;
+		statistics.recordOperation(today - booking.requestDay);
+		return booking.patient;
+	}
+	
+	/**
+	 * End the day: count the theatre days used, empty the theatres whose operation is over and book the waiting list.
+	 * @param today		The day that ends.
+	 */
+	void endOfDay(int today){
+		int tomorrow = today + 1;
+		for(int theatreIndex=0;theatreIndex<occupant.length;theatreIndex++){
+			if(occupant[theatreIndex] != null){
+				statistics.recordTheatreDay();
+				if(operationEnds[theatreIndex] <= tomorrow){
+					occupant[theatreIndex] = null;
+					numOfFreeTheatres++;
+				}
+			}
+			if(occupant[theatreIndex] == null && freeFromDay[theatreIndex] <= tomorrow)
+				freeTheatres.set(theatreIndex);
+		}
+		bookWaitingList(tomorrow);
+	}
+	
+	/**
+	 * Book every waiting patient, longest waiting first, into the theatre that frees up soonest.
+	 * @param firstDay	The first day a booking can start.
+	 */
+	private void bookWaitingList(int firstDay){
+		if(occupant.length == 0)
+			return;
+		while(!waitingList.isEmpty()){
+			Booking booking = waitingList.poll();
+	
+			int theatreIndex = 0;
+			for(int i=1;i<freeFromDay.length;i++){
+				if(freeFromDay[i] < freeFromDay[theatreIndex])
+					theatreIndex = i;
+			}
+	
+			booking.theatre = theatreIndex;
+			booking.startDay = Math.max(firstDay, freeFromDay[theatreIndex]);
+			freeFromDay[theatreIndex] = booking.startDay + getOperationDays(booking.patient.getIllness());
+			freeTheatres.clear(theatreIndex);
+			bookings.add(booking);
+		}
+	}
+	
+	/**
+	 * Write the theatres, the waiting list and the bookings to a snapshot, see {@link HospitalSnapshot}. Patients are written as their bed.
+	 * @param out		The snapshot.
+	 * @param bedOf		The bed of every patient in the hospital.
+	 * @throws IOException	If the snapshot cannot be written.
+	 */
+	void writeTo(SnapshotOutput out, Map<Patient, Integer> bedOf) throws IOException{
+		for(int theatreIndex=0;theatreIndex<occupant.length;theatreIndex++){
+			out.writeInt(occupant[theatreIndex] == null ? -1 : bedOf.get(occupant[theatreIndex]));
+			out.writeInt(operationEnds[theatreIndex]);
+			out.writeInt(freeFromDay[theatreIndex]);
+			out.writeBoolean(freeTheatres.get(theatreIndex));
+		}
+		out.writeInt(waitingList.size());
+		for(Booking booking : waitingList){
+			out.writeInt(bedOf.get(booking.patient));
+			out.writeInt(booking.requestDay);
+		}
+		out.writeInt(bookings.size());
+		for(Booking booking : bookings){
+			out.writeInt(bedOf.get(booking.patient));
+			out.writeInt(booking.requestDay);
+			out.writeInt(booking.theatre);
+			out.writeInt(booking.startDay);
+		}
+	}
+	
+	/**
+	 * Replace the theatres, the waiting list and the bookings with those read from a snapshot.
+	 * @param in		The snapshot.
+	 * @param beds		The beds of the hospital, already restored.
+	 * @throws IOException	If the snapshot cannot be read or is corrupt.
+	 */
+	void readFrom(SnapshotInput in, List<Patient> beds) throws IOException{
+		numOfFreeTheatres = 0;
+		for(int theatreIndex=0;theatreIndex<occupant.length;theatreIndex++){
+			int bed = in.readInt();
+			occupant[theatreIndex] = (bed == -1) ? null : patientInBed(beds, bed);
+			operationEnds[theatreIndex] = in.readInt();
+			freeFromDay[theatreIndex] = in.readInt();
+			freeTheatres.set(theatreIndex, in.readBoolean());
+			if(occupant[theatreIndex] == null)
+				numOfFreeTheatres++;
+		}
+		waitingList.clear();
+		for(int count=in.readLength();count>0;count--){
+			Patient patient = patientInBed(beds, in.readInt());
+			waitingList.add(new Booking(patient, in.readInt()));
+		}
+		bookings.clear();
+		for(int count=in.readLength();count>0;count--){
+			Patient patient = patientInBed(beds, in.readInt());
+			Booking booking = new Booking(patient, in.readInt());
+			booking.theatre = in.readInt();
+			booking.startDay = in.readInt();
+			if(booking.theatre < 0 || booking.theatre >= occupant.length)
+				throw new IOException("Snapshot is corrupt: theatre "+booking.theatre+". ERROR");
+			bookings.add(booking);
+		}
+	}
+	
+	private static Patient patientInBed(List<Patient> beds, int bed) throws IOException{
+		if(bed < 0 || bed >= beds.size() || beds.get(bed) == null)
+			throw new IOException("Snapshot is corrupt: no patient in bed "+bed+". ERROR");
+		return beds.get(bed);
+	}
+}
@@ -0,0 +1,49 @@
+package ecshospital;
+
+/**
+ * <b>TreatmentOutcome</b> is what came of a doctor's attempt to treat or operate on its assigned patient.
+ * <p>It is returned by {@link Doctors#tryTreatPatient()} and {@link Doctors#tryOperate()}, so that the day loop never has to throw and catch an Exception for an ordinary outcome like a busy theatre.
+ * @author Man-Leong Chan
+ */
+public enum TreatmentOutcome {
+	/**
+	 * The doctor has no assigned patient.
+	 */
+	NO_PATIENT,
+	/**
+	 * The patient was treated on the ward and is now recovering.
+	 */
+	TREATED,
+	/**
+	 * The treatment on the ward takes more days, the doctor stays with the patient.
+	 */
+	TREATING,
+	/**
+	 * The patient was operated on and is now recovering.
+	 */
+	OPERATED,
+	/**
+	 * The patient needs an operation and was put on the theatre waiting list, the doctor is free for other patients.
+	 */
+	SCHEDULED,
+	/**
+	 * The patient needs an operation but the hospital has no theatre, the doctor keeps the patient and tries again.
+	 */
+	NO_THEATRE,
+	/**
+	 * The doctor's specialism cannot take care of the patient's illness.
+	 */
+	CANNOT_TREAT,
+	/**
+	 * The patient's illness has no recovery time configured.
+	 */
+	UNKNOWN_ILLNESS;
+	
+	/**
+	 * Whether the patient is now recovering, being treated or booked for a theatre, or there was nobody to treat.
+	 * @return	True for {@link #NO_PATIENT}, {@link #TREATED}, {@link #TREATING}, {@link #OPERATED} and {@link #SCHEDULED}.
+	 */
+	public boolean isSuccessful(){
+		return this == NO_PATIENT || this == TREATED || this == TREATING || this == OPERATED || this == SCHEDULED;
+	}
+}
@@ -0,0 +1,231 @@
+package ecshospital;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+import java.util.Queue;
+
+/**
+ * <b>TreatmentQueue</b> keeps the untreated sick patients of a {@link Hospital} in one queue per illness.
+ * <p>A doctor asks for the next patient across the illnesses it can treat, so matching a doctor costs a look at a few queue heads instead of a scan over every bed.
+ * <p>Patients are served by the {@link TriagePolicy} of the queue, first come, first served unless another is set.
+ * @author Man-Leong Chan
+ */
+public class TreatmentQueue {
+	
+	/*
+	 * waitingPatients is indexed by illness code, each queue holds patients in policy order: an ArrayDeque in arrival order for first come,
+	 * first served, a heap otherwise.
+	 * Every queued patient carries a ticket from nextTicket, so the heads of different queues can be compared.
+	 */
+	private ArrayList<Queue<Patient>> waitingPatients;
+	private TriagePolicy policy;
+	private long nextTicket;
+	private int size;
+	
+	/**
+	 * Constructor for an empty first come, first served queue.
+	 */
+	TreatmentQueue(){
+		waitingPatients = new ArrayList<Queue<Patient>>();
+		policy = TriagePolicy.FIRST_COME;
+		nextTicket = 0;
+		size = 0;
+	}
+	
+	/**
+	 * Set the policy that picks the next patient, keeping the patients already queued.
+	 * @param policy	The triage policy.
+	 */
+	void setPolicy(TriagePolicy policy){
+		ArrayList<Queue<Patient>> queued = waitingPatients;
+		this.policy = policy;
+		waitingPatients = new ArrayList<Queue<Patient>>();
+		for(int illness=0;illness<queued.size();illness++){
+			Queue<Patient> queue = newQueue();
+			queue.addAll(queued.get(illness));
+			waitingPatients.add(queue);
+		}
+	}
+	
+	/**
+	 * Get the policy that picks the next patient.
+	 * @return	The triage policy.
+	 */
+	public TriagePolicy getPolicy(){
+		return policy;
+	}
+	
+	/**
+	 * Add an untreated patient to the queue of its illness.
+	 * @param patient	The patient waiting for a doctor.
+	 */
+	public void add(Patient patient){
+		int illness = patient.getIllness();
+		if(illness < 0)
+			return;
+		while(waitingPatients.size() <= illness){
+			waitingPatients.add(newQueue());
+		}
+		patient.setQueueTicket(nextTicket++);
+		waitingPatients.get(illness).add(patient);
+		size++;
+	}
+	
+	/**
+	 * Put a patient back in the queue of its illness with the ticket it already has, when restoring a snapshot.
+	 * Patients must be put back in ticket order.
+	 * @param patient	The patient waiting for a doctor.
+	 */
+	void restore(Patient patient){
+		int illness = patient.getIllness();
+		if(illness < 0)
+			return;
+		while(waitingPatients.size() <= illness){
+			waitingPatients.add(newQueue());
+		}
+		waitingPatients.get(illness).add(patient);
+		size++;
+	}
+	
+	/**
+	 * Put a patient taken by a poll back in the queue of its illness, in the place it had, when no doctor took it after all.
+	 * @param patient	The patient still waiting for a doctor.
+	 */
+	void putBack(Patient patient){
+		int illness = patient.getIllness();
+		if(illness < 0 || illness >= waitingPatients.size())
+			return;
+		Queue<Patient> queue = waitingPatients.get(illness);
+		//A first come queue is in ticket order and the patient came from its head, a heap finds the place by itself
+		if(queue instanceof ArrayDeque)
+			((ArrayDeque<Patient>)queue).addFirst(patient);
+		else
+			queue.add(patient);
+		size++;
+	}
+	
+	/**
+	 * Get the ticket the next queued patient will get.
+	 * @return	The ticket.
+	 */
+	long getNextTicket(){
+		return nextTicket;
+	}
+	
+	/**
+	 * Set the ticket the next queued patient will get, when restoring a snapshot.
+	 * @param nextTicket	The ticket.
+	 */
+	void setNextTicket(long nextTicket){
+		this.nextTicket = nextTicket;
+	}
+	
+	/**
+	 * Take the patient who goes first by the policy among those with one of the given illnesses.
+	 * @param illnesses		The illness codes a doctor can treat.
+	 * @param hospital		The hospital the patient must still be admitted to.
+	 * @return	The patient, null if no patient with those illnesses is waiting.
+	 */
+	public Patient poll(int[] illnesses, Hospital hospital){
+		int bestIllness = -1;
+		Patient best = null;
+		
+		for(int i=0;i<illnesses.length;i++){
+			int illness = illnesses[i];
+			if(illness < 0 || illness >= waitingPatients.size())
+				continue;
+			
+			Queue<Patient> queue = waitingPatients.get(illness);
+			//Drop patients who were discharged or taken care of since they joined the queue.
+			while(!queue.isEmpty() && !isWaiting(queue.peek(), hospital)){
+				queue.poll();
+				size--;
+			}
+			if(!queue.isEmpty() && (best == null || policy.compare(queue.peek(), best) < 0)){
+				bestIllness = illness;
+				best = queue.peek();
+			}
+		}
+		
+		if(bestIllness == -1)
+			return null;
+		size--;
+		return waitingPatients.get(bestIllness).poll();
+	}
+	
+	/**
+	 * Take the patient who goes first by the policy among those with the illness.
+	 * @param illness		The illness code.
+	 * @param hospital		The hospital the patient must still be admitted to.
+	 * @return	The patient, null if no patient with the illness is waiting.
+	 */
+	public Patient poll(int illness, Hospital hospital){
+		if(size(illness, hospital) == 0)
+			return null;
+		size--;
+		return waitingPatients.get(illness).poll();
+	}
+	
+	/**
+	 * Get the number of patients with the illness in the queue, after dropping those at its head who stopped waiting.
+	 * @param illness		The illness code.
+	 * @param hospital		The hospital the patients must still be admitted to.
+	 * @return	The number of patients, which may over-report like {@link #size()}.
+	 */
+	public int size(int illness, Hospital hospital){
+		if(illness < 0 || illness >= waitingPatients.size())
+			return 0;
+		Queue<Patient> queue = waitingPatients.get(illness);
+		while(!queue.isEmpty() && !isWaiting(queue.peek(), hospital)){
+			queue.poll();
+			size--;
+		}
+		return queue.size();
+	}
+	
+	/**
+	 * Whether any patient with one of the given illnesses may be waiting, without dropping anybody.
+	 * @param illnesses		The illness codes a doctor can treat.
+	 * @return	False if no patient with those illnesses is certainly waiting.
+	 */
+	public boolean hasPatients(int[] illnesses){
+		for(int i=0;i<illnesses.length;i++){
+			int illness = illnesses[i];
+			if(illness >= 0 && illness < waitingPatients.size() && !waitingPatients.get(illness).isEmpty())
+				return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Whether any patient is waiting. Patients who stopped waiting are only dropped by {@link #poll(int[], Hospital)}, so this may over-report.
+	 * @return	False if the queue is certainly empty.
+	 */
+	public boolean isEmpty(){
+		return size == 0;
+	}
+	
+	/**
+	 * Get the number of queued patients, including those not yet dropped by {@link #poll(int[], Hospital)}.
+	 * @return	An integer of the queue length.
+	 */
+	public int size(){
+		return size;
+	}
+	
+	/**
+	 * A queue for one illness, in the order of the policy.
+	 */
+	private Queue<Patient> newQueue(){
+		if(policy.isFirstCome())
+			return new ArrayDeque<Patient>();
+		return new PriorityQueue<Patient>(11, policy);
+	}
+	
+	/**
+	 * Whether the patient is still sick, untreated and in the hospital.
+	 */
+	private boolean isWaiting(Patient patient, Hospital hospital){
+		return patient.getHospital() == hospital && patient.getHealthState() == 1 && !patient.takenCareOf();
+	}
+}
@@ -0,0 +1,125 @@
+package ecshospital;
+import java.util.Comparator;
+
+/**
+ * <b>TriagePolicy</b> decides which waiting patient goes first, in the admission queue and in the queue of untreated patients.
+ * <p>
+ * A policy gives every patient a priority, and patients with a higher priority go first. Patients with the same priority go in the order they
+ * joined the queue, by their queue ticket, so the longest waiting goes first. The priority of a patient must not change while it waits.
+ * <p>
+ * {@link #FIRST_COME} gives every patient the same priority, which keeps the queues first come, first served as they always were.
+ * The queues then stay plain first-in first-out queues, the other policies put the patients in a heap.
+ * @author Man-Leong Chan
+ */
+public abstract class TriagePolicy implements Comparator<Patient> {
+
+	/**
+	 * First come, first served: the patient who has waited longest goes first.
+	 */
+	public static final TriagePolicy FIRST_COME = new TriagePolicy("first-come"){
+		int priority(Patient patient){
+			return 0;
+		}
+	};
+
+	/**
+	 * The oldest patient goes first.
+	 */
+	public static final TriagePolicy OLDEST_FIRST = new TriagePolicy("age"){
+		int priority(Patient patient){
+			return patient.getAge();
+		}
+	};
+
+	private String name;
+
+	/**
+	 * Constructor for a named policy.
+	 * @param name	The name, as given on the command line.
+	 */
+	TriagePolicy(String name){
+		this.name = name;
+	}
+
+	/**
+	 * Get the priority of a waiting patient.
+	 * @param patient	The patient.
+	 * @return	The priority, a higher priority goes first.
+	 */
+	abstract int priority(Patient patient);
+
+	/**
+	 * Compare two waiting patients, by priority and then by queue ticket.
+	 * @param a		A patient.
+	 * @param b		Another patient.
+	 * @return	A negative number if a goes first, positive if b goes first.
+	 */
+	public final int compare(Patient a, Patient b){
+		int byPriority = Integer.compare(priority(b), priority(a));
+		if(byPriority != 0)
+			return byPriority;
+		return Long.compare(a.getQueueTicket(), b.getQueueTicket());
+	}
+
+	/**
+	 * Whether the policy is first come, first served, so a plain first-in first-out queue will do.
+	 * @return	True for {@link #FIRST_COME}.
+	 */
+	public boolean isFirstCome(){
+		return this == FIRST_COME;
+	}
+
+	/**
+	 * The most severe illness goes first. Healthy patients, and patients with an illness without a severity, go last.
+	 * @param severity	The severity of each illness, indexed by illness code.
+	 * @return	The policy.
+	 */
+	public static TriagePolicy bySeverity(final int[] severity){
+		return new TriagePolicy("severity"){
+			int priority(Patient patient){
+				int illness = patient.getIllness();
+				if(patient.getHealthState() != 1 || illness < 0 || illness >= severity.length)
+					return -1;
+				return severity[illness];
+			}
+		};
+	}
+
+	/**
+	 * The illness with the longest recovery time goes first, see {@link #bySeverity(int[])}.
+	 * @param sampler	The recovery times of the illnesses.
+	 * @return	The policy.
+	 */
+	public static TriagePolicy bySeverity(RecoveryTimeSampler sampler){
+		int[] severity = new int[CapabilityTable.MAX_ILLNESS + 1];
+		for(int illness=0;illness<severity.length;illness++){
+			severity[illness] = sampler.getMaxRecoveryTime(illness);
+		}
+		return bySeverity(severity);
+	}
+
+	/**
+	 * Get a policy by name: "first-come", "age" or "severity".
+	 * @param name		The name.
+	 * @param sampler	The recovery times of the illnesses, which rank them for "severity".
+	 * @return	The policy.
+	 * @throws Exception	If there is no policy by that name.
+	 */
+	public static TriagePolicy forName(String name, RecoveryTimeSampler sampler) throws Exception{
+		if(name.equals(FIRST_COME.name))
+			return FIRST_COME;
+		if(name.equals(OLDEST_FIRST.name))
+			return OLDEST_FIRST;
+		if(name.equals("severity"))
+			return bySeverity(sampler);
+		throw new Exception("Unknown triage policy "+name+". ERROR");
+	}
+
+	/**
+	 * Get the name of the policy.
+	 * @return	The name.
+	 */
+	public String toString(){
+		return name;
+	}
+}
@@ -0,0 +1,49 @@
+package ecshospital;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Jumping over the days on which nothing happens must end the same as stepping through every day.
+ * @author Man-Leong Chan
+ */
+public class EventDrivenSimulationTest {
+
+	//Few arrivals, so most days only count down recoveries
+	private static final String ARRIVALS = SimulationFixtures.arrivals(60, 2, 2, 0.4, 300);
+
+	//The patients of "myHospital.txt", with long recoveries
+	private static final String PATIENTS =
+			"hospital:10,2\n"
+			+"patient:M,60,1,-1\npatient:M,22,3,-1\npatient:F,31,4,-1\npatient:F,58,8,-1\npatient:M,52,8,-1\n"
+			+"patient:F,47,8,-1\npatient:M,03,8,-1\npatient:F,28,8,-1\npatient:M,33,0,6\n"
+			+"doctor:M,55\ndoctor:F,45\nlimbSurgeon:M,62\nlimbSurgeon:M,61\norganSurgeon:F,48\n"
+			+"illness:1,2,2\nillness:4,6,8\nillness:8,20,40\n";
+
+	private static void assertSameOutcome(String configuration, long seed, int maxDays){
+		SimulationResult daily = SimulationFixtures.administrator(configuration, seed).simulate(maxDays);
+		SimulationResult eventDriven = SimulationFixtures.administrator(configuration, seed).simulateEventDriven(maxDays);
+		assertEquals(daily.toString(), eventDriven.toString());
+	}
+
+	@Test
+	public void arrivalsEndTheSame(){
+		for(long seed=1;seed<=5;seed++)
+			assertSameOutcome(ARRIVALS, seed, Integer.MAX_VALUE);
+		assertTrue(SimulationFixtures.administrator(ARRIVALS, 1).simulateEventDriven(Integer.MAX_VALUE).allPatientsCured());
+	}
+
+	@Test
+	public void patientsOfTheConfigurationEndTheSame(){
+		for(long seed=1;seed<=5;seed++)
+			assertSameOutcome(PATIENTS, seed, Integer.MAX_VALUE);
+	}
+
+	@Test
+	public void dayLimitIsKept(){
+		assertSameOutcome(ARRIVALS, 3, 50);
+		assertSameOutcome(PATIENTS, 3, 10);
+		assertEquals(10, SimulationFixtures.administrator(PATIENTS, 3).simulateEventDriven(10).getDaysElapsed());
+	}
+}
@@ -0,0 +1,78 @@
+package ecshospital;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+import org.junit.Test;
+
+/**
+ * A run saved part way and resumed from its snapshot must end exactly like the run that was never stopped.
+ * @author Man-Leong Chan
+ */
+public class HospitalSnapshotTest {
+
+	//More arrivals than beds, so patients wait for beds, doctors and theatres when the snapshot is taken
+	private static final String ARRIVALS = SimulationFixtures.arrivals(40, 2, 2, 2, 150);
+	private static final long SEED = 7;
+
+	/**
+	 * Save a simulation and restore it into a new administrator.
+	 * @param administrator		The administrator of the simulation.
+	 * @return	The new administrator.
+	 * @throws IOException	If the snapshot cannot be saved or restored.
+	 */
+	private static HospitalAdministrator saveAndRestore(HospitalAdministrator administrator) throws IOException{
+		ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+		HospitalSnapshot.save(administrator, Channels.newChannel(snapshot));
+		HospitalAdministrator resumed = new HospitalAdministrator();
+		resumed.setEventLog(EventLog.NONE);
+		HospitalSnapshot.restore(resumed, Channels.newChannel(new ByteArrayInputStream(snapshot.toByteArray())));
+		return resumed;
+	}
+
+	private static void assertResumeMatches(int saveDay) throws IOException{
+		SimulationResult continuous = SimulationFixtures.administrator(ARRIVALS, SEED).simulate(Integer.MAX_VALUE);
+
+		HospitalAdministrator stopped = SimulationFixtures.administrator(ARRIVALS, SEED);
+		stopped.simulate(saveDay);
+		SimulationResult resumed = saveAndRestore(stopped).simulate(Integer.MAX_VALUE);
+		assertEquals(continuous.toString(), resumed.toString());
+	}
+
+	@Test
+	public void resumeMatchesContinuousRun() throws IOException{
+		assertResumeMatches(1);
+		assertResumeMatches(60);
+		assertResumeMatches(149);
+	}
+
+	@Test
+	public void resumeAfterTheLastArrivalMatches() throws IOException{
+		assertResumeMatches(200);
+	}
+
+	@Test
+	public void snapshotIsSavedUnderPressure() throws IOException{
+		HospitalAdministrator stopped = SimulationFixtures.administrator(ARRIVALS, SEED);
+		stopped.simulate(60);
+		assertTrue(stopped.isHospitalUnderPressure());
+		HospitalAdministrator resumed = saveAndRestore(stopped);
+		assertEquals(stopped.getNumOfWaitingPatients(), resumed.getNumOfWaitingPatients());
+		assertEquals(stopped.getNumOfBusyDoctors(), resumed.getNumOfBusyDoctors());
+		assertEquals(stopped.getHospital().size(), resumed.getHospital().size());
+	}
+
+	@Test
+	public void restoreRejectsOtherFiles(){
+		try{
+			HospitalSnapshot.restore(new HospitalAdministrator(), Channels.newChannel(new ByteArrayInputStream(new byte[16])));
+			fail("Restored a snapshot without its magic number");
+		}catch (IOException e){
+		}
+	}
+}
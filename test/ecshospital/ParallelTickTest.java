@@ -0,0 +1,47 @@
+package ecshospital;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * The parallel day tick and the columnar beds must come out exactly as the sequential tick over a list of patients.
+ * @author Man-Leong Chan
+ */
+public class ParallelTickTest {
+
+	//Large enough for two chunks of beds a day, and full for most of the run
+	private static final String CONFIGURATION = SimulationFixtures.arrivals(10000, 400, 100, 250, 30);
+	private static final long SEED = 7;
+	private static final int MAX_DAYS = 2000;
+
+	/**
+	 * Run the configuration to the end.
+	 * @param columnarBeds	True for columnar beds.
+	 * @param numOfThreads	The number of threads of the day tick.
+	 * @return	The outcome.
+	 */
+	private static SimulationResult run(boolean columnarBeds, int numOfThreads){
+		HospitalAdministrator hA = SimulationFixtures.administrator(CONFIGURATION, SEED, columnarBeds);
+		hA.setTickParallelism(numOfThreads);
+		try{
+			return hA.simulate(MAX_DAYS);
+		}finally{
+			hA.setTickParallelism(1);
+		}
+	}
+
+	@Test
+	public void columnarBedsMatchSequentialTick(){
+		SimulationResult sequential = run(false, 1);
+		assertTrue(sequential.allPatientsCured());
+		assertEquals(sequential.toString(), run(true, 1).toString());
+	}
+
+	@Test
+	public void parallelTickMatchesSequentialTick(){
+		SimulationResult sequential = run(false, 1);
+		assertEquals(sequential.toString(), run(false, 4).toString());
+		assertEquals(sequential.toString(), run(true, 4).toString());
+	}
+}
@@ -0,0 +1,65 @@
+package ecshospital;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <b>SimulationFixtures</b> builds the configurations and administrators the tests run, quiet and seeded so every run can be repeated.
+ * @author Man-Leong Chan
+ */
+class SimulationFixtures {
+
+	private SimulationFixtures(){
+	}
+
+	/**
+	 * Get a configuration in the format of "myHospital.txt" with patients arriving at random on the first days.
+	 * <p>Illnesses 1 and 4 are treated, 5 and 8 operated on. Illness 5 keeps a theatre for 3 days and illness 1 keeps a doctor for 2 days.
+	 * @param numOfBeds			The number of beds.
+	 * @param numOfTheatres		The number of theatres.
+	 * @param doctorsPerSpecialism	The number of doctors of each specialism.
+	 * @param arrivalRate		The patients with each illness arriving per day, on average.
+	 * @param arrivalDays		The last day on which patients arrive.
+	 * @return	The configuration.
+	 */
+	static String arrivals(int numOfBeds, int numOfTheatres, int doctorsPerSpecialism, double arrivalRate, int arrivalDays){
+		StringBuilder configuration = new StringBuilder();
+		configuration.append("hospital:").append(numOfBeds).append(',').append(numOfTheatres).append('\n');
+		String[] specialisms = {"doctor","surgeon","limbSurgeon","organSurgeon"};
+		for(String specialism : specialisms){
+			for(int i=0;i<doctorsPerSpecialism;i++)
+				configuration.append(specialism).append(i % 2 == 0 ? ":M," : ":F,").append(30 + i % 30).append('\n');
+		}
+		configuration.append("operation:5,3\n");
+		configuration.append("treatment:1,2\n");
+		int[] illnesses = {1,4,5,8};
+		for(int illness : illnesses)
+			configuration.append("arrival:").append(illness).append(',').append(arrivalRate).append('\n');
+		configuration.append("arrivalDays:").append(arrivalDays).append('\n');
+		return configuration.toString();
+	}
+
+	/**
+	 * Get an administrator that has read a configuration, with the event log off.
+	 * @param configuration		The configuration, in the format of "myHospital.txt".
+	 * @param seed				The seed of the recovery times and the arrivals.
+	 * @return	The administrator.
+	 */
+	static HospitalAdministrator administrator(String configuration, long seed){
+		return administrator(configuration, seed, false);
+	}
+
+	/**
+	 * Get an administrator that has read a configuration, with the event log off.
+	 * @param configuration		The configuration, in the format of "myHospital.txt".
+	 * @param seed				The seed of the recovery times and the arrivals.
+	 * @param columnarBeds		True to keep the patients' state in a columnar {@link BedStore}.
+	 * @return	The administrator.
+	 */
+	static HospitalAdministrator administrator(String configuration, long seed, boolean columnarBeds){
+		HospitalAdministrator hA = new HospitalAdministrator();
+		hA.setEventLog(EventLog.NONE);
+		hA.setColumnarBeds(columnarBeds);
+		hA.getRecoveryTimeSampler().setSeed(seed);
+		hA.readConfiguration(new ConfigurationScanner(configuration.getBytes(StandardCharsets.US_ASCII)));
+		return hA;
+	}
+}
@@ -0,0 +1,177 @@
+package ecshospital;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * The solver must assign as many patients as a maximum matching of single doctors to single patients, within what each specialism can do.
+ * @author Man-Leong Chan
+ */
+public class StaffAssignmentSolverTest {
+
+	private static final int NUM_OF_SPECIALISMS = 5;
+	private static final int NUM_OF_ILLNESSES = 10;
+
+	/*
+	 * Specialism codes: 1 doctor, 2 surgeon, 3 limb surgeon, 4 organ surgeon.
+	 */
+	private static final int DOCTOR = 1;
+	private static final int SURGEON = 2;
+	private static final int LIMB_SURGEON = 3;
+	private static final int ORGAN_SURGEON = 4;
+
+	private StaffAssignmentSolver solver = new StaffAssignmentSolver(NUM_OF_SPECIALISMS, NUM_OF_ILLNESSES);
+
+	/**
+	 * Match single doctors to single patients by augmenting paths.
+	 * @return	The size of a maximum matching.
+	 */
+	private static int maximumMatching(int[] doctors, int[] patients, CapabilityTable capabilities){
+		int numOfDoctors = 0;
+		for(int count : doctors)
+			numOfDoctors += count;
+		int[] specialismOf = new int[numOfDoctors];
+		int doctor = 0;
+		for(int specialism=0;specialism<doctors.length;specialism++){
+			for(int count=0;count<doctors[specialism];count++)
+				specialismOf[doctor++] = specialism;
+		}
+		int numOfPatients = 0;
+		for(int count : patients)
+			numOfPatients += count;
+		int[] illnessOf = new int[numOfPatients];
+		int patient = 0;
+		for(int illness=0;illness<patients.length;illness++){
+			for(int count=0;count<patients[illness];count++)
+				illnessOf[patient++] = illness;
+		}
+
+		int[] doctorOf = new int[numOfPatients];
+		Arrays.fill(doctorOf, -1);
+		int matched = 0;
+		for(doctor=0;doctor<numOfDoctors;doctor++){
+			if(augment(doctor, specialismOf, illnessOf, doctorOf, new boolean[numOfPatients], capabilities))
+				matched++;
+		}
+		return matched;
+	}
+
+	private static boolean augment(int doctor, int[] specialismOf, int[] illnessOf, int[] doctorOf, boolean[] visited, CapabilityTable capabilities){
+		for(int patient=0;patient<illnessOf.length;patient++){
+			if(visited[patient] || !capabilities.canBeAssigned(specialismOf[doctor], illnessOf[patient]))
+				continue;
+			visited[patient] = true;
+			if(doctorOf[patient] == -1 || augment(doctorOf[patient], specialismOf, illnessOf, doctorOf, visited, capabilities)){
+				doctorOf[patient] = doctor;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Solve a case and check the plan is feasible and as large as a maximum matching.
+	 * @return	The plan.
+	 */
+	private int[][] assertPlanIsMaximum(int[] doctors, int[] patients, CapabilityTable capabilities){
+		int[][] plan = solver.solve(doctors, patients, capabilities);
+		int planned = 0;
+		int[] assignedPatients = new int[NUM_OF_ILLNESSES];
+		for(int specialism=0;specialism<NUM_OF_SPECIALISMS;specialism++){
+			int assignedDoctors = 0;
+			for(int illness=0;illness<NUM_OF_ILLNESSES;illness++){
+				if(plan[specialism][illness] > 0)
+					assertTrue(capabilities.canBeAssigned(specialism, illness));
+				assignedDoctors += plan[specialism][illness];
+				assignedPatients[illness] += plan[specialism][illness];
+			}
+			assertTrue(assignedDoctors <= doctors[specialism]);
+			planned += assignedDoctors;
+		}
+		for(int illness=0;illness<NUM_OF_ILLNESSES;illness++)
+			assertTrue(assignedPatients[illness] <= patients[illness]);
+		assertEquals(maximumMatching(doctors, patients, capabilities), planned);
+		return plan;
+	}
+
+	private static int[] patients(int... illnesses){
+		int[] patients = new int[NUM_OF_ILLNESSES];
+		for(int illness : illnesses)
+			patients[illness]++;
+		return patients;
+	}
+
+	@Test
+	public void limbSurgeonIsKeptForTheLimbPatient(){
+		//Illness 4 can go to either surgeon, illness 7 only to the limb surgeon
+		int[][] plan = assertPlanIsMaximum(new int[]{0,0,1,1,0}, patients(4, 7), new CapabilityTable());
+		assertEquals(1, plan[SURGEON][4]);
+		assertEquals(1, plan[LIMB_SURGEON][7]);
+	}
+
+	@Test
+	public void doctorTreatsSoSurgeonCanOperate(){
+		int[][] plan = assertPlanIsMaximum(new int[]{0,1,1,0,0}, patients(1, 4), new CapabilityTable());
+		assertEquals(1, plan[DOCTOR][1]);
+		assertEquals(1, plan[SURGEON][4]);
+	}
+
+	@Test
+	public void organSurgeonsAreShared(){
+		int[][] plan = assertPlanIsMaximum(new int[]{0,1,0,0,2}, patients(1, 1, 1, 5, 5), new CapabilityTable());
+		assertEquals(2, plan[ORGAN_SURGEON][5]);
+		assertEquals(1, plan[DOCTOR][1]);
+	}
+
+	@Test
+	public void nobodyIsAssignedWithoutCapableDoctors(){
+		assertPlanIsMaximum(new int[]{0,3,0,0,0}, patients(4, 5, 9), new CapabilityTable());
+		assertPlanIsMaximum(new int[]{0,0,0,0,0}, patients(1, 2, 3), new CapabilityTable());
+		assertPlanIsMaximum(new int[]{0,2,1,1,1}, patients(), new CapabilityTable());
+	}
+
+	@Test
+	public void changedCapabilitiesAreFollowed() throws Exception{
+		CapabilityTable capabilities = new CapabilityTable();
+		capabilities.setCapability(DOCTOR, 1, CapabilityTable.CANNOT);
+		capabilities.setCapability(LIMB_SURGEON, 9, CapabilityTable.OPERATE);
+		int[][] plan = assertPlanIsMaximum(new int[]{0,2,0,1,0}, patients(1, 2, 9), capabilities);
+		assertEquals(0, plan[DOCTOR][1]);
+		assertEquals(1, plan[LIMB_SURGEON][9]);
+	}
+
+	@Test
+	public void randomCasesMatchMaximumMatching(){
+		Random random = new Random(42);
+		for(int round=0;round<500;round++){
+			int[] doctors = new int[NUM_OF_SPECIALISMS];
+			for(int specialism=1;specialism<NUM_OF_SPECIALISMS;specialism++)
+				doctors[specialism] = random.nextInt(4);
+			int[] patients = new int[NUM_OF_ILLNESSES];
+			for(int illness=0;illness<NUM_OF_ILLNESSES;illness++)
+				patients[illness] = random.nextInt(3);
+			assertPlanIsMaximum(doctors, patients, new CapabilityTable());
+		}
+	}
+
+	@Test
+	public void refusedPatientStaysInTheQueue() throws Exception{
+		HospitalAdministrator hA = SimulationFixtures.administrator("hospital:5,1\ndoctor:M,40\npatient:M,30,1,-1\n", 1);
+		hA.setOptimalAssignment(true);
+		Hospital hospital = hA.getHospital();
+
+		//The hospital's own table no longer lets a doctor treat illness 1, the administrator's still does
+		CapabilityTable capabilities = new CapabilityTable();
+		capabilities.setCapability(DOCTOR, 1, CapabilityTable.CANNOT);
+		hospital.setCapabilityTable(capabilities);
+		for(int day=0;day<3;day++){
+			hA.simulate(1);
+			assertEquals(1, hospital.getNumOfUntreatedPatients(1));
+			assertEquals(0, hA.getNumOfBusyDoctors());
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package ecshospital;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The theatres are claimed while free, booked in queue order into the theatre that frees up soonest, and kept for the operation's days.
+ * @author Man-Leong Chan
+ */
+public class TheatreSchedulerTest {
+
+	//Illness 5 keeps its theatre for 3 days, the others for 1
+	private static final int LONG_OPERATION = 5;
+	private static final int SHORT_OPERATION = 1;
+
+	private HospitalStatistics statistics;
+	private int[] operationDays;
+	private long nextQueueTicket;
+
+	@Before
+	public void setUp(){
+		statistics = new HospitalStatistics();
+		operationDays = TheatreScheduler.defaultOperationDays();
+		operationDays[LONG_OPERATION] = 3;
+		nextQueueTicket = 0;
+	}
+
+	private TheatreScheduler scheduler(int numOfTheatres){
+		TheatreScheduler scheduler = new TheatreScheduler(numOfTheatres, statistics);
+		scheduler.setOperationDays(operationDays);
+		return scheduler;
+	}
+
+	/**
+	 * Get a patient waiting for an operation, queued after the patients made before.
+	 */
+	private Patient patient(int illness) throws Exception{
+		Patient patient = new Patient('F', 40, 1, illness, -1);
+		patient.setQueueTicket(nextQueueTicket++);
+		return patient;
+	}
+
+	@Test
+	public void claimsTheLowestFreeTheatre() throws Exception{
+		TheatreScheduler scheduler = scheduler(2);
+		assertEquals(0, scheduler.claimFreeTheatre(patient(SHORT_OPERATION), 0));
+		assertEquals(1, scheduler.claimFreeTheatre(patient(SHORT_OPERATION), 0));
+		assertEquals(-1, scheduler.claimFreeTheatre(patient(SHORT_OPERATION), 0));
+		assertEquals(0, scheduler.getNumOfFreeTheatres());
+
+		scheduler.release(1, 0);
+		assertTrue(scheduler.isTheatreFree(1));
+		assertEquals(1, scheduler.findFreeTheatre());
+	}
+
+	@Test
+	public void multiDayOperationKeepsItsTheatre() throws Exception{
+		TheatreScheduler scheduler = scheduler(1);
+		Patient patient = patient(LONG_OPERATION);
+		assertEquals(0, scheduler.claimFreeTheatre(patient, 0));
+		assertEquals(3, scheduler.getOperationEnd(0));
+
+		for(int day=0;day<2;day++){
+			scheduler.endOfDay(day);
+			assertSame(patient, scheduler.getOccupant(0));
+			assertFalse(scheduler.isTheatreFree(0));
+		}
+		scheduler.endOfDay(2);
+		assertNull(scheduler.getOccupant(0));
+		assertTrue(scheduler.isTheatreFree(0));
+		assertEquals(3, statistics.getTheatreDaysUsed());
+	}
+
+	@Test
+	public void waitingPatientIsBookedWhenTheTheatreFreesUp() throws Exception{
+		TheatreScheduler scheduler = scheduler(1);
+		scheduler.claimFreeTheatre(patient(LONG_OPERATION), 0);
+		Patient waiting = patient(SHORT_OPERATION);
+		scheduler.addToWaitingList(waiting, 0);
+		assertEquals(1, scheduler.getNumOfWaitingPatients());
+
+		scheduler.endOfDay(0);
+		assertEquals(0, scheduler.getNumOfWaitingPatients());
+		assertEquals(1, scheduler.getNumOfBookings());
+		assertEquals(3, scheduler.getNextBookedDay());
+
+		for(int day=1;day<3;day++){
+			assertNull(scheduler.startNextBookedOperation(day));
+			scheduler.endOfDay(day);
+		}
+		//Booked, so not free to claim although empty
+		assertNull(scheduler.getOccupant(0));
+		assertFalse(scheduler.isTheatreFree(0));
+
+		assertSame(waiting, scheduler.startNextBookedOperation(3));
+		assertSame(waiting, scheduler.getOccupant(0));
+		assertEquals(4, scheduler.getOperationEnd(0));
+		assertEquals(Integer.MAX_VALUE, scheduler.getNextBookedDay());
+		assertEquals(2, statistics.getNumOfOperations());
+		assertEquals(1.5, statistics.getMeanTheatreWait(), 1e-9);
+	}
+
+	@Test
+	public void longestWaitingIsBookedIntoTheTheatreFreeSoonest() throws Exception{
+		TheatreScheduler scheduler = scheduler(2);
+		Patient later = patient(SHORT_OPERATION);
+		Patient earlier = patient(SHORT_OPERATION);
+		earlier.setQueueTicket(-1);
+		scheduler.claimFreeTheatre(patient(LONG_OPERATION), 0);
+		scheduler.claimFreeTheatre(patient(SHORT_OPERATION), 0);
+		scheduler.addToWaitingList(later, 0);
+		scheduler.addToWaitingList(earlier, 0);
+
+		//Theatre 1 is free from day 1 and theatre 0 from day 3, so both go to theatre 1
+		scheduler.endOfDay(0);
+		assertEquals(1, scheduler.getNextBookedDay());
+		assertEquals(2, scheduler.getLastBookedDay());
+		assertSame(later, scheduler.getLastBookedPatient());
+		assertSame(earlier, scheduler.startNextBookedOperation(1));
+		assertSame(earlier, scheduler.getOccupant(1));
+		assertNull(scheduler.startNextBookedOperation(1));
+
+		scheduler.endOfDay(1);
+		assertFalse(scheduler.isTheatreFree(1));
+		assertSame(later, scheduler.startNextBookedOperation(2));
+		assertSame(later, scheduler.getOccupant(1));
+	}
+
+	@Test
+	public void cancelLastBookingFreesItsSlot() throws Exception{
+		TheatreScheduler scheduler = scheduler(1);
+		assertNull(scheduler.cancelLastBooking());
+
+		scheduler.claimFreeTheatre(patient(SHORT_OPERATION), 0);
+		Patient first = patient(SHORT_OPERATION);
+		Patient second = patient(SHORT_OPERATION);
+		scheduler.addToWaitingList(first, 0);
+		scheduler.addToWaitingList(second, 0);
+		scheduler.endOfDay(0);
+		assertEquals(2, scheduler.getNumOfBookings());
+		assertEquals(2, scheduler.getLastBookedDay());
+		assertSame(second, scheduler.getLastBookedPatient());
+
+		assertSame(second, scheduler.cancelLastBooking());
+		assertEquals(1, scheduler.getNumOfBookings());
+		assertEquals(1, scheduler.getLastBookedDay());
+		assertSame(first, scheduler.getLastBookedPatient());
+
+		//The next patient takes the slot given up
+		assertSame(first, scheduler.startNextBookedOperation(1));
+		Patient next = patient(SHORT_OPERATION);
+		scheduler.addToWaitingList(next, 1);
+		scheduler.endOfDay(1);
+		assertEquals(2, scheduler.getNextBookedDay());
+		assertSame(next, scheduler.startNextBookedOperation(2));
+	}
+}